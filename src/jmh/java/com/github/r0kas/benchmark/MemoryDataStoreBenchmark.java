@@ -0,0 +1,106 @@
+package com.github.r0kas.benchmark;
+
+import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.AccountStorage;
+import com.github.r0kas.model.data.MemoryDataStore;
+import java.util.Currency;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Account lookups and replacements in data store of growing size. Keys are random,
+ * so larger stores measure cache and TLB misses rather than hashing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class MemoryDataStoreBenchmark {
+
+  private static final int UPDATES = 1024;
+
+  @Param({"10000", "100000", "1000000", "10000000"})
+  private int size;
+
+  @Param({"HEAP", "OFF_HEAP"})
+  private AccountStorage storage;
+
+  private MemoryDataStore store;
+  private long[] idMsb;
+  private long[] idLsb;
+  private Account[] updates;
+
+  /**
+   * Fills data store and prepares detached account copies for replacement.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    store = new MemoryDataStore(storage);
+    Currency eur = Currency.getInstance("EUR");
+    UUID holderId = UUID.randomUUID();
+    idMsb = new long[size];
+    idLsb = new long[size];
+    for (int i = 0; i < size; i++) {
+      UUID id = store.setAccount(new Account(holderId, eur)).id();
+      idMsb[i] = id.getMostSignificantBits();
+      idLsb[i] = id.getLeastSignificantBits();
+    }
+    SplittableRandom random = new SplittableRandom(size);
+    updates = new Account[UPDATES];
+    for (int i = 0; i < UPDATES; i++) {
+      int key = random.nextInt(size);
+      updates[i] = store.getAccount(idMsb[key], idLsb[key]).copy();
+    }
+  }
+
+  @Benchmark
+  public Account getAccount(Keys keys) {
+    int key = keys.next(size);
+    return store.getAccount(new UUID(idMsb[key], idLsb[key]));
+  }
+
+  @Benchmark
+  public Account getAccountByHalves(Keys keys) {
+    int key = keys.next(size);
+    return store.getAccount(idMsb[key], idLsb[key]);
+  }
+
+  @Benchmark
+  public boolean isAccountPresentMiss(Keys keys) {
+    int key = keys.next(size);
+    return store.isAccountPresent(new UUID(idMsb[key], ~idLsb[key]));
+  }
+
+  @Benchmark
+  public Account setAccount(Keys keys) {
+    return store.setAccount(updates[keys.next(UPDATES)]);
+  }
+
+  /**
+   * Per thread key generator.
+   */
+  @State(Scope.Thread)
+  public static class Keys {
+
+    private final SplittableRandom random = new SplittableRandom();
+
+    int next(int bound) {
+      return random.nextInt(bound);
+    }
+  }
+}
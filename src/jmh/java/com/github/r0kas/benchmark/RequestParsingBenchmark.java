@@ -0,0 +1,75 @@
+package com.github.r0kas.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.r0kas.model.rest.RequestDepositWithdraw;
+import com.github.r0kas.model.rest.RequestTransfer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Request body parsing, decoded string with mapper lookup against cached reader over raw
+ * bytes. Run with {@code -prof gc} to compare allocations per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestParsingBenchmark {
+
+  private ObjectMapper mapper;
+  private ObjectReader transferReader;
+  private ObjectReader depositReader;
+  private byte[] transfer;
+  private byte[] deposit;
+
+  /**
+   * Creates request bodies.
+   */
+  @Setup
+  public void setUp() {
+    mapper = new ObjectMapper();
+    transferReader = mapper.readerFor(RequestTransfer.class);
+    depositReader = mapper.readerFor(RequestDepositWithdraw.class);
+    transfer = ("{\"source\":\"" + UUID.randomUUID() + "\",\"target\":\"" + UUID.randomUUID()
+        + "\",\"amount\":\"10.5\"}").getBytes(StandardCharsets.UTF_8);
+    deposit = ("{\"accountId\":\"" + UUID.randomUUID() + "\",\"currency\":\"EUR\","
+        + "\"amount\":10.5}").getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public RequestTransfer transferFromString() throws IOException {
+    return mapper.readValue(new String(transfer, StandardCharsets.UTF_8), RequestTransfer.class);
+  }
+
+  @Benchmark
+  public RequestTransfer transferFromStream() throws IOException {
+    return transferReader.readValue(new ByteArrayInputStream(transfer));
+  }
+
+  @Benchmark
+  public RequestDepositWithdraw depositFromString() throws IOException {
+    return mapper.readValue(new String(deposit, StandardCharsets.UTF_8),
+        RequestDepositWithdraw.class);
+  }
+
+  @Benchmark
+  public RequestDepositWithdraw depositFromStream() throws IOException {
+    return depositReader.readValue(new ByteArrayInputStream(deposit));
+  }
+}
@@ -0,0 +1,93 @@
+package com.github.r0kas.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.AccountStorage;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.MemoryDataStore;
+import com.github.r0kas.model.data.User;
+import com.github.r0kas.model.rest.Response;
+import com.github.r0kas.model.rest.ResponseModule;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jetty.http.HttpStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of {@link Response} the same way REST service builds its responses, with
+ * annotation driven or streaming serializers and compact or pretty output.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+  @Param({"annotated", "streaming"})
+  private String serializers;
+
+  @Param({"compact", "pretty"})
+  private String format;
+
+  private ObjectWriter writer;
+  private Account account;
+  private Account offHeapAccount;
+  private User user;
+
+  /**
+   * Creates serialized entities.
+   */
+  @Setup
+  public void setUp() {
+    ObjectMapper mapper = new ObjectMapper();
+    if ("streaming".equals(serializers)) {
+      mapper.registerModule(new ResponseModule());
+    }
+    writer = mapper.writerFor(Response.class);
+    if ("pretty".equals(format)) {
+      writer = writer.withDefaultPrettyPrinter();
+    }
+    user = new User("Benchmark", "Street 1", "LT", HolderType.PERSONAL);
+    account = new Account(user.id(), Currency.getInstance("EUR"));
+    account.setMinorBalance(123_456);
+    MemoryDataStore store = new MemoryDataStore(AccountStorage.OFF_HEAP);
+    store.setUser(user);
+    store.linkOwnedAccount(user.id(), account.id());
+    offHeapAccount = store.setAccount(account.copy());
+  }
+
+  @Benchmark
+  public byte[] account() throws JsonProcessingException {
+    return jsonResponse(account);
+  }
+
+  @Benchmark
+  public byte[] offHeapAccount() throws JsonProcessingException {
+    return jsonResponse(offHeapAccount);
+  }
+
+  @Benchmark
+  public byte[] user() throws JsonProcessingException {
+    return jsonResponse(user);
+  }
+
+  private byte[] jsonResponse(Object data) throws JsonProcessingException {
+    return writer.writeValueAsBytes(
+        new Response(UUID.randomUUID(), HttpStatus.getMessage(200), data));
+  }
+}
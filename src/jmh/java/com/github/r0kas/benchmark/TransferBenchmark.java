@@ -0,0 +1,143 @@
+package com.github.r0kas.benchmark;
+
+import com.github.r0kas.controller.data.DataService;
+import com.github.r0kas.controller.data.InMemoryDataService;
+import com.github.r0kas.controller.data.LockFreeDataService;
+import com.github.r0kas.controller.data.LockMode;
+import com.github.r0kas.controller.data.SequencedDataService;
+import com.github.r0kas.controller.data.ShardedDataService;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.Journal;
+import java.util.Currency;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transfer throughput of every ledger engine under growing contention. Uniform distribution
+ * picks both accounts at random, hot distribution sends most transfers through few accounts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+  private static final int HOT_ACCOUNTS = 16;
+  private static final int HOT_PERCENT = 90;
+  private static final Currency EUR = Currency.getInstance("EUR");
+
+  @Param({"striped", "global", "lockfree", "sequenced", "sharded"})
+  private String engine;
+
+  @Param({"uniform", "hot"})
+  private String distribution;
+
+  @Param({"10000"})
+  private int accountCount;
+
+  private DataService dataService;
+  private UUID[] accounts;
+
+  /**
+   * Creates funded accounts for selected engine.
+   *
+   * @throws Exception if accounts cannot be created
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    dataService = dataService(engine);
+    UUID holderId = dataService.createUser("Benchmark", "Street 1", "LT", HolderType.PERSONAL);
+    accounts = new UUID[accountCount];
+    for (int i = 0; i < accountCount; i++) {
+      accounts[i] = dataService.createAccount(holderId, EUR);
+      dataService.deposit(accounts[i], 1_000_000_000, EUR);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dataService.close();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void transfer1(Picker picker) throws Exception {
+    transfer(picker);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void transfer4(Picker picker) throws Exception {
+    transfer(picker);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public void transfer16(Picker picker) throws Exception {
+    transfer(picker);
+  }
+
+  @Benchmark
+  @Threads(64)
+  public void transfer64(Picker picker) throws Exception {
+    transfer(picker);
+  }
+
+  private void transfer(Picker picker) throws Exception {
+    int source = picker.next(this);
+    int target = picker.next(this);
+    if (source == target) {
+      target = (target + 1) % accounts.length;
+    }
+    dataService.transfer(accounts[source], accounts[target], 0.01);
+  }
+
+  private static DataService dataService(String engine) {
+    switch (engine) {
+      case "global":
+        return new InMemoryDataService(LockMode.GLOBAL, Journal.disabled());
+      case "lockfree":
+        return new LockFreeDataService();
+      case "sequenced":
+        return new SequencedDataService(1 << 14, Journal.disabled());
+      case "sharded":
+        return new ShardedDataService();
+      default:
+        return new InMemoryDataService(LockMode.STRIPED, Journal.disabled());
+    }
+  }
+
+  /**
+   * Per thread account picker, keeps random generators out of measured contention.
+   */
+  @State(Scope.Thread)
+  public static class Picker {
+
+    private final SplittableRandom random = new SplittableRandom();
+
+    int next(TransferBenchmark benchmark) {
+      int count = benchmark.accounts.length;
+      if ("hot".equals(benchmark.distribution) && random.nextInt(100) < HOT_PERCENT) {
+        return random.nextInt(Math.min(HOT_ACCOUNTS, count));
+      }
+      return random.nextInt(count);
+    }
+  }
+}
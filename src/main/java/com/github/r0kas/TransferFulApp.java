@@ -2,34 +2,204 @@ package com.github.r0kas;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.r0kas.controller.data.AccountService;
+import com.github.r0kas.controller.data.DataService;
 import com.github.r0kas.controller.data.InMemoryDataService;
+import com.github.r0kas.controller.data.LockFreeDataService;
+import com.github.r0kas.controller.data.LockMode;
+import com.github.r0kas.controller.data.SequencedDataService;
+import com.github.r0kas.controller.data.ShardedDataService;
 import com.github.r0kas.controller.data.UserService;
+import com.github.r0kas.controller.rest.AccessLog;
+import com.github.r0kas.controller.rest.ExecutionConfig;
+import com.github.r0kas.controller.rest.IdempotencyCache;
+import com.github.r0kas.controller.rest.RequestIdGenerator;
 import com.github.r0kas.controller.rest.TransferFulService;
+import com.github.r0kas.model.data.AccountStorage;
+import com.github.r0kas.model.data.FileJournal;
+import com.github.r0kas.model.data.Journal;
+import com.github.r0kas.model.data.MemoryDataStore;
+import com.github.r0kas.model.data.SyncPolicy;
+import com.github.r0kas.model.data.TransactionLog;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * TransferFul application exposes RESTFul api for funds related operations.
  */
 public class TransferFulApp {
 
+  private static final Logger log = LoggerFactory.getLogger(TransferFulApp.class);
+
+  private static final String ENGINE_PROPERTY = "transferful.engine";
+  private static final String SHARDS_PROPERTY = "transferful.shards";
+  private static final String ACCOUNTS_PROPERTY = "transferful.accounts";
+  private static final String HISTORY_CAPACITY_PROPERTY = "transferful.history.capacity";
+  private static final String JOURNAL_PROPERTY = "transferful.journal";
+  private static final String JOURNAL_SYNC_PROPERTY = "transferful.journal.sync";
+  private static final String JOURNAL_INTERVAL_PROPERTY = "transferful.journal.syncIntervalMillis";
+  private static final String SNAPSHOT_PROPERTY = "transferful.snapshot";
+  private static final String SNAPSHOT_INTERVAL_PROPERTY = "transferful.snapshot.intervalSeconds";
+  private static final String REQUEST_IDS_PROPERTY = "transferful.requestIds";
+  private static final String ACCESS_LOG_SAMPLE_PROPERTY = "transferful.accessLog.sampleRate";
+  private static final String IDEMPOTENCY_KEYS_PROPERTY = "transferful.idempotency.maxKeys";
+  private static final String IDEMPOTENCY_TTL_PROPERTY = "transferful.idempotency.ttlSeconds";
+  private static final String EXECUTOR_PROPERTY = "transferful.server.executor";
+  private static final String MAX_THREADS_PROPERTY = "transferful.server.maxThreads";
+  private static final String MIN_THREADS_PROPERTY = "transferful.server.minThreads";
+  private static final String QUEUE_CAPACITY_PROPERTY = "transferful.server.queueCapacity";
+  private static final String IDLE_TIMEOUT_PROPERTY = "transferful.server.idleTimeoutMillis";
+
   /**
    * The entry point of application.
    *
    * @param args the input arguments
    */
   public static void main(String[] args) {
-    AccountService accountService = new InMemoryDataService();
-    UserService userService = new InMemoryDataService();
+    MemoryDataStore.initialize(
+        "offheap".equals(System.getProperty(ACCOUNTS_PROPERTY, ""))
+            ? AccountStorage.OFF_HEAP : AccountStorage.HEAP,
+        Integer.getInteger(HISTORY_CAPACITY_PROPERTY, TransactionLog.DEFAULT_CAPACITY));
+    String snapshotPath = System.getProperty(SNAPSHOT_PROPERTY, "");
+    String journalPath = System.getProperty(JOURNAL_PROPERTY, "");
+    if (!snapshotPath.isEmpty() && journalPath.isEmpty()) {
+      throw new IllegalArgumentException(SNAPSHOT_PROPERTY + " requires " + JOURNAL_PROPERTY);
+    }
+    long replayPosition = loadSnapshot(snapshotPath);
+    Journal journal = journal(journalPath, replayPosition);
+    DataService dataService = dataService(System.getProperty(ENGINE_PROPERTY, ""), journal);
+    ScheduledExecutorService snapshots = scheduleSnapshots(dataService, snapshotPath);
+    AccountService accountService = dataService;
+    UserService userService = dataService;
 
-    TransferFulService restService = new TransferFulService(
-        new ObjectMapper(), accountService, userService);
+    TransferFulService restService = new TransferFulService(new ObjectMapper(),
+        accountService, userService, requestIds(System.getProperty(REQUEST_IDS_PROPERTY, "")),
+        new AccessLog(Integer.getInteger(ACCESS_LOG_SAMPLE_PROPERTY, 1)),
+        new IdempotencyCache(Long.getLong(IDEMPOTENCY_KEYS_PROPERTY, 100_000L),
+            Duration.ofSeconds(Long.getLong(IDEMPOTENCY_TTL_PROPERTY, 3_600L))));
 
     String portArg = "";
     if (args.length > 0) {
       portArg = args[0];
     }
-    restService.start(portArg);
+    restService.start(portArg, execution(System.getProperty(EXECUTOR_PROPERTY, "")));
+
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      restService.stop();
+      snapshots.shutdownNow();
+      writeSnapshot(dataService, snapshotPath);
+      dataService.close();
+      journal.close();
+    }));
+  }
+
+  private static DataService dataService(String engine, Journal journal) {
+    switch (engine) {
+      case "global":
+        return new InMemoryDataService(LockMode.GLOBAL, journal);
+      case "lockfree":
+        return new LockFreeDataService(journal);
+      case "sequenced":
+        return new SequencedDataService(1 << 14, journal);
+      case "sharded":
+        return new ShardedDataService(Integer.getInteger(SHARDS_PROPERTY,
+            Runtime.getRuntime().availableProcessors()), journal);
+      default:
+        return new InMemoryDataService(LockMode.STRIPED, journal);
+    }
+  }
+
+  private static RequestIdGenerator requestIds(String generator) {
+    if ("random".equals(generator)) {
+      return RequestIdGenerator.random();
+    }
+    return RequestIdGenerator.timeOrdered();
+  }
+
+  private static ExecutionConfig execution(String executor) {
+    switch (executor) {
+      case "pool":
+        return ExecutionConfig.boundedPool(
+            Integer.getInteger(MAX_THREADS_PROPERTY, 200),
+            Integer.getInteger(MIN_THREADS_PROPERTY, 8),
+            Integer.getInteger(QUEUE_CAPACITY_PROPERTY, 1024),
+            Integer.getInteger(IDLE_TIMEOUT_PROPERTY, 60_000));
+      case "virtual":
+        if (ExecutionConfig.virtualThreadsSupported()) {
+          return ExecutionConfig.virtualThreads();
+        }
+        log.error("virtual threads are not supported by running JDK, using default pool");
+        return ExecutionConfig.defaults();
+      default:
+        return ExecutionConfig.defaults();
+    }
+  }
 
-    Runtime.getRuntime().addShutdownHook(new Thread(restService::stop));
+  private static Journal journal(String path, long replayPosition) {
+    if (path.isEmpty()) {
+      return Journal.disabled();
+    }
+    SyncPolicy syncPolicy = SyncPolicy.valueOf(
+        System.getProperty(JOURNAL_SYNC_PROPERTY, "batch").toUpperCase(Locale.ROOT));
+    long syncIntervalMillis = Long.getLong(JOURNAL_INTERVAL_PROPERTY, 10L);
+    try {
+      FileJournal journal = FileJournal.open(Paths.get(path), syncPolicy, syncIntervalMillis);
+      journal.replay(MemoryDataStore.getInstance(), replayPosition);
+      return journal;
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to open journal: " + path, e);
+    }
+  }
+
+  private static long loadSnapshot(String path) {
+    if (path.isEmpty() || !Files.exists(Paths.get(path))) {
+      return 0;
+    }
+    try {
+      long started = System.nanoTime();
+      long position = MemoryDataStore.getInstance().loadSnapshot(Paths.get(path));
+      log.info("snapshot loaded in {} ms", TimeUnit.NANOSECONDS.toMillis(
+          System.nanoTime() - started));
+      return position;
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to load snapshot: " + path, e);
+    }
   }
 
+  private static ScheduledExecutorService scheduleSnapshots(DataService dataService,
+                                                            String path) {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "ledger-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = Long.getLong(SNAPSHOT_INTERVAL_PROPERTY, 0L);
+    if (!path.isEmpty() && interval > 0) {
+      executor.scheduleWithFixedDelay(() -> writeSnapshot(dataService, path),
+          interval, interval, TimeUnit.SECONDS);
+    }
+    return executor;
+  }
+
+  private static void writeSnapshot(DataService dataService, String path) {
+    if (path.isEmpty()) {
+      return;
+    }
+    try {
+      Path snapshot = Paths.get(path);
+      long position = dataService.snapshot(snapshot);
+      log.info("snapshot written at journal position {}", position);
+    } catch (IOException | UnsupportedOperationException e) {
+      log.error("failed to write snapshot: " + e.toString());
+    }
+  }
 }
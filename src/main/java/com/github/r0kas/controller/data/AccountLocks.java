@@ -0,0 +1,102 @@
+package com.github.r0kas.controller.data;
+
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Account locks maps entity ids to a fixed table of lock stripes.
+ * Multiple stripes are always acquired in ascending stripe order, so concurrent
+ * operations locking the same pair of entities cannot deadlock.
+ */
+final class AccountLocks {
+
+  private static final int DEFAULT_STRIPES = 1024;
+
+  private final ReentrantLock[] stripes;
+  private final int mask;
+  private final boolean confined;
+
+  private AccountLocks(int stripeCount, boolean confined) {
+    this.stripes = new ReentrantLock[stripeCount];
+    this.mask = stripeCount - 1;
+    this.confined = confined;
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Creates lock table for provided lock mode.
+   *
+   * @param mode desired locking mode
+   * @return lock table with single stripe for global mode or default stripe count for
+   *     striped mode
+   */
+  static AccountLocks forMode(LockMode mode) {
+    switch (mode) {
+      case GLOBAL:
+        return new AccountLocks(1, false);
+      case STRIPED:
+        return new AccountLocks(DEFAULT_STRIPES, false);
+      default:
+        throw new IllegalArgumentException("unsupported lock mode: " + mode);
+    }
+  }
+
+  /**
+   * Creates no-op lock table. Caller guarantees that all mutations are applied by a single
+   * thread.
+   *
+   * @return lock table which never locks
+   */
+  static AccountLocks confined() {
+    return new AccountLocks(1, true);
+  }
+
+  void lock(UUID id) {
+    if (confined) {
+      return;
+    }
+    stripes[index(id)].lock();
+  }
+
+  void lock(UUID first, UUID second) {
+    if (confined) {
+      return;
+    }
+    int firstIndex = index(first);
+    int secondIndex = index(second);
+    if (firstIndex == secondIndex) {
+      stripes[firstIndex].lock();
+      return;
+    }
+    stripes[Math.min(firstIndex, secondIndex)].lock();
+    stripes[Math.max(firstIndex, secondIndex)].lock();
+  }
+
+  void unlock(UUID id) {
+    if (confined) {
+      return;
+    }
+    stripes[index(id)].unlock();
+  }
+
+  void unlock(UUID first, UUID second) {
+    if (confined) {
+      return;
+    }
+    int firstIndex = index(first);
+    int secondIndex = index(second);
+    if (firstIndex == secondIndex) {
+      stripes[firstIndex].unlock();
+      return;
+    }
+    stripes[Math.max(firstIndex, secondIndex)].unlock();
+    stripes[Math.min(firstIndex, secondIndex)].unlock();
+  }
+
+  private int index(UUID id) {
+    int hash = id.hashCode();
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+}
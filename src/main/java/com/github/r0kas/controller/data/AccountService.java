@@ -1,8 +1,14 @@
 package com.github.r0kas.controller.data;
 
 import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.BalanceReport;
+import com.github.r0kas.model.data.TransactionPage;
+import com.github.r0kas.model.rest.ImportResult;
+import com.github.r0kas.model.rest.RequestAccount;
 import com.sun.jdi.InvalidTypeException;
 import java.util.Currency;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 import javax.naming.InsufficientResourcesException;
@@ -20,6 +26,15 @@ public interface AccountService {
   UUID createAccount(UUID holderId, Currency accountCurrency)
       throws IllegalArgumentException, NoSuchElementException;
 
+  /**
+   * Creates batch of new accounts. Invalid records and records of missing holders are
+   * rejected without affecting the rest of the batch.
+   *
+   * @param accounts records of accounts to create
+   * @return results in the order of provided records, without line numbers
+   */
+  List<ImportResult> importAccounts(List<RequestAccount> accounts);
+
   /**
    * Retrieve account by provided its ID.
    *
@@ -29,6 +44,37 @@ public interface AccountService {
    */
   Account getAccount(UUID accountId) throws NoSuchElementException;
 
+  /**
+   * Retrieve page of account transactions, newest first.
+   *
+   * @param accountId UUID of desired account
+   * @param cursor cursor returned with previous page, null for the latest transactions
+   * @param limit maximum number of transactions, from 1 to 100
+   * @return page of account transactions
+   * @throws NoSuchElementException if account with provided ID doesn't exists
+   * @throws IllegalArgumentException if cursor is not of this account or limit is out of range
+   */
+  TransactionPage getTransactions(UUID accountId, Long cursor, int limit)
+      throws NoSuchElementException, IllegalArgumentException;
+
+  /**
+   * Iterates over all accounts. Iteration is weakly consistent: accounts created or deleted
+   * meanwhile may be skipped, every returned account is a consistent detached copy. Accounts
+   * are copied one at a time, so memory use does not depend on number of accounts.
+   *
+   * @return iterator over account copies
+   */
+  Iterator<Account> exportAccounts();
+
+  /**
+   * Retrieve number of accounts and sum of their balances per currency. Totals are maintained
+   * on every change and read in time proportional to the number of currencies.
+   *
+   * @param verify whether to also compute totals by scanning all accounts
+   * @return report of currency totals
+   */
+  BalanceReport getBalanceReport(boolean verify);
+
   /**
    * Removes account entry of provided ID reference.
    *
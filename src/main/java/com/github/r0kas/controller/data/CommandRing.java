@@ -0,0 +1,253 @@
+package com.github.r0kas.controller.data;
+
+import com.sun.jdi.InvalidTypeException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.naming.InsufficientResourcesException;
+
+/**
+ * Command ring is a pre-allocated ring buffer of ledger commands.
+ * Any number of threads publish commands, a single consumer thread applies them in
+ * sequence order. Producers claim a sequence, fill the slot it maps to and publish it;
+ * when ring is full producers wait for the consumer to free slots.
+ *
+ * <p>Stopping the ring and claiming a sequence change the same counter, so every command
+ * claimed before stop is applied and no command can be claimed after it.
+ */
+final class CommandRing {
+
+  private static final int SPINS_BEFORE_PARK = 200;
+  private static final long PARK_NANOS = 100_000L;
+  private static final long STOPPED = Long.MIN_VALUE;
+
+  private final Slot[] slots;
+  private final int mask;
+  private final AtomicLong claims = new AtomicLong();
+  private volatile long consumed = -1;
+  private volatile boolean consumerSleeping;
+  private final Thread consumer;
+
+  /**
+   * Instantiates ring and starts consumer thread applying commands to provided target.
+   *
+   * @param capacity   number of slots, must be power of two
+   * @param target     data service commands are applied to
+   * @param threadName name of consumer thread
+   */
+  CommandRing(int capacity, InMemoryDataService target, String threadName) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("ring capacity must be power of two");
+    }
+    this.slots = new Slot[capacity];
+    this.mask = capacity - 1;
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Slot();
+    }
+    this.consumer = new Thread(() -> consume(target), threadName);
+    this.consumer.setDaemon(true);
+    this.consumer.start();
+  }
+
+  /**
+   * Publishes command for execution by consumer thread.
+   *
+   * @param command ledger command to apply
+   * @param <T>     command result type
+   * @return future completed with command result, or with {@link Failure} if command
+   *     threw, once applied
+   * @throws IllegalStateException if ring is stopped
+   */
+  @SuppressWarnings("unchecked")
+  <T> CompletableFuture<T> publish(Command<T> command) {
+    long sequence = claim();
+    int spins = 0;
+    while (sequence - slots.length > consumed) {
+      spins = idle(spins);
+    }
+
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Slot slot = slots[(int) sequence & mask];
+    slot.command = (Command<Object>) command;
+    slot.result = (CompletableFuture<Object>) result;
+    slot.published = sequence;
+
+    if (consumerSleeping) {
+      LockSupport.unpark(consumer);
+    }
+    return result;
+  }
+
+  /**
+   * Waits for result of published command. Failure of command is rethrown as is.
+   *
+   * @param result future returned by {@link #publish(Command)}
+   * @param <T>    command result type
+   * @return command result
+   * @throws InvalidTypeException           if command failed with it
+   * @throws InsufficientResourcesException if command failed with it
+   */
+  static <T> T await(CompletableFuture<T> result)
+      throws InvalidTypeException, InsufficientResourcesException {
+    Object value = awaitUninterruptibly(result);
+    if (value instanceof Failure) {
+      Throwable cause = ((Failure) value).cause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof InvalidTypeException) {
+        throw (InvalidTypeException) cause;
+      }
+      if (cause instanceof InsufficientResourcesException) {
+        throw (InsufficientResourcesException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("unexpected ledger failure", cause);
+    }
+    @SuppressWarnings("unchecked")
+    T applied = (T) value;
+    return applied;
+  }
+
+  /**
+   * Stops accepting commands and stops consumer thread once all already claimed commands
+   * are applied.
+   */
+  void stop() {
+    long current;
+    do {
+      current = claims.get();
+    } while (current >= 0 && !claims.compareAndSet(current, current | STOPPED));
+    LockSupport.unpark(consumer);
+    try {
+      consumer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void consume(InMemoryDataService target) {
+    int spins = 0;
+    while (true) {
+      long next = consumed + 1;
+      Slot slot = slots[(int) next & mask];
+      if (slot.published != next) {
+        long current = claims.get();
+        if (current < 0 && (current & ~STOPPED) <= next) {
+          return;
+        }
+        spins = awaitPublication(slot, next, spins);
+        continue;
+      }
+      spins = 0;
+
+      Command<Object> command = slot.command;
+      CompletableFuture<Object> result = slot.result;
+      slot.command = null;
+      slot.result = null;
+      consumed = next;
+
+      try {
+        result.complete(command.apply(target));
+      } catch (Throwable e) {
+        result.complete(new Failure(e));
+      }
+    }
+  }
+
+  private int awaitPublication(Slot slot, long sequence, int spins) {
+    if (spins < SPINS_BEFORE_PARK) {
+      Thread.onSpinWait();
+      return spins + 1;
+    }
+    consumerSleeping = true;
+    if (slot.published != sequence && claims.get() >= 0) {
+      LockSupport.parkNanos(this, PARK_NANOS);
+    }
+    consumerSleeping = false;
+    return spins;
+  }
+
+  /**
+   * Claims next sequence. Number of claimed sequences is kept in claims counter, its sign bit
+   * is set once ring is stopped.
+   *
+   * @return claimed sequence
+   * @throws IllegalStateException if ring is stopped
+   */
+  private long claim() {
+    long current;
+    do {
+      current = claims.get();
+      if (current < 0) {
+        throw new IllegalStateException("command ring is stopped");
+      }
+    } while (!claims.compareAndSet(current, current + 1));
+    return current;
+  }
+
+  private static Object awaitUninterruptibly(CompletableFuture<?> result) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return result.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("unexpected ledger failure", e.getCause());
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static int idle(int spins) {
+    if (spins < SPINS_BEFORE_PARK) {
+      Thread.onSpinWait();
+      return spins + 1;
+    }
+    LockSupport.parkNanos(PARK_NANOS);
+    return spins;
+  }
+
+  /**
+   * Ledger command applied on consumer thread.
+   *
+   * @param <T> command result type
+   */
+  @FunctionalInterface
+  interface Command<T> {
+    T apply(InMemoryDataService target) throws Exception;
+  }
+
+  /**
+   * Failure of ledger command. Failed commands complete their result normally with failure,
+   * so waiting thread rethrows original exception instead of one wrapping it, which
+   * future would create with freshly filled in stack trace.
+   */
+  static final class Failure {
+
+    private final Throwable cause;
+
+    private Failure(Throwable cause) {
+      this.cause = cause;
+    }
+
+    Throwable cause() {
+      return cause;
+    }
+  }
+
+  private static final class Slot {
+    private volatile long published = -1;
+    private Command<Object> command;
+    private CompletableFuture<Object> result;
+  }
+}
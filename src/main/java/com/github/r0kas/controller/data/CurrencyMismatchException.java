@@ -0,0 +1,26 @@
+package com.github.r0kas.controller.data;
+
+import com.sun.jdi.InvalidTypeException;
+
+/**
+ * Thrown when operation currency does not match account currency. Mismatch is ordinary
+ * outcome of a request, so stack trace is not filled in.
+ */
+public final class CurrencyMismatchException extends InvalidTypeException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Instantiates a new currency mismatch exception.
+   *
+   * @param message the detail message
+   */
+  public CurrencyMismatchException(String message) {
+    super(message);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,32 @@
+package com.github.r0kas.controller.data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Data service combines account and user services backed by the same ledger engine.
+ */
+public interface DataService extends AccountService, UserService, AutoCloseable {
+
+  /**
+   * Writes snapshot of the ledger without stopping it. Snapshot is captured while mutations
+   * continue and restores the ledger exactly only together with journal records after
+   * returned position.
+   *
+   * @param path snapshot file location
+   * @return journal position from which journal has to be replayed after snapshot load
+   * @throws IOException                   if snapshot cannot be written
+   * @throws UnsupportedOperationException if engine cannot take snapshots or journal is
+   *                                       disabled
+   */
+  default long snapshot(Path path) throws IOException {
+    throw new UnsupportedOperationException("ledger engine does not support snapshots");
+  }
+
+  /**
+   * Releases resources held by the engine. Default engines hold none.
+   */
+  @Override
+  default void close() {
+  }
+}
@@ -0,0 +1,26 @@
+package com.github.r0kas.controller.data;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Thrown when requested user or account does not exist. Missing entity is ordinary outcome
+ * of a request, so stack trace is not filled in and rejection costs as much as success.
+ */
+public final class EntityNotFoundException extends NoSuchElementException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Instantiates a new entity not found exception.
+   *
+   * @param message the detail message
+   */
+  public EntityNotFoundException(String message) {
+    super(message);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
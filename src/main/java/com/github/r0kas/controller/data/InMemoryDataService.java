@@ -5,27 +5,81 @@ import static com.github.r0kas.controller.data.Utils.validateBalance;
 import static com.github.r0kas.controller.data.Utils.validateCountryCode;
 import static com.github.r0kas.controller.data.Utils.validateCurrencyMatch;
 import static com.github.r0kas.controller.data.Utils.validateObjectParams;
+import static com.github.r0kas.controller.data.Utils.validatePageLimit;
 import static com.github.r0kas.controller.data.Utils.validateStringParams;
+import static com.github.r0kas.model.data.MinorUnits.toMinorUnits;
 
 import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.BalanceReport;
+import com.github.r0kas.model.data.CurrencyBalance;
+import com.github.r0kas.model.data.CurrencyTotals;
 import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.Journal;
 import com.github.r0kas.model.data.MemoryDataStore;
+import com.github.r0kas.model.data.SnapshotSource;
+import com.github.r0kas.model.data.TransactionPage;
+import com.github.r0kas.model.data.TransactionType;
 import com.github.r0kas.model.data.User;
+import com.github.r0kas.model.data.UserPage;
+import com.github.r0kas.model.rest.ImportResult;
+import com.github.r0kas.model.rest.RequestAccount;
 import com.github.r0kas.model.rest.RequestUser;
+import com.google.common.collect.Iterators;
 import com.sun.jdi.InvalidTypeException;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Currency;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.IntStream;
 import javax.naming.InsufficientResourcesException;
 
-public class InMemoryDataService implements UserService, AccountService {
+public class InMemoryDataService implements DataService {
 
   private MemoryDataStore dataStore;
+  private AccountLocks locks;
+  private Journal journal;
+  private boolean awaitDurability;
 
+  /**
+   * Instantiates data service guarded by striped locks.
+   */
   public InMemoryDataService() {
+    this(LockMode.STRIPED);
+  }
+
+  /**
+   * Instantiates data service guarded by locks of provided mode.
+   *
+   * @param lockMode locking mode for ledger mutations
+   */
+  public InMemoryDataService(LockMode lockMode) {
+    this(lockMode, Journal.disabled());
+  }
+
+  /**
+   * Instantiates data service which records every mutation in provided journal.
+   * Mutations return only after their journal records are durable.
+   *
+   * @param lockMode locking mode for ledger mutations
+   * @param journal  journal recording mutations
+   */
+  public InMemoryDataService(LockMode lockMode, Journal journal) {
+    this(AccountLocks.forMode(lockMode), journal, true);
+  }
+
+  InMemoryDataService(AccountLocks locks, Journal journal, boolean awaitDurability) {
     this.dataStore = MemoryDataStore.getInstance();
+    this.locks = locks;
+    this.journal = journal;
+    this.awaitDurability = awaitDurability;
   }
 
   @Override
@@ -33,69 +87,144 @@ public class InMemoryDataService implements UserService, AccountService {
       throws IllegalArgumentException, NoSuchElementException {
 
     validateObjectParams(holderId, accountCurrency);
-    validateUserPresent(holderId);
-
     Account account = new Account(holderId, accountCurrency);
-    dataStore.setAccount(account);
-    addOwnedAccountToUser(holderId, account.id());
-
+    awaitDurable(insertAccount(account));
     return account.id();
   }
 
+  /**
+   * Validates all records in parallel and inserts valid ones in their order. Durability of
+   * the whole batch is awaited once.
+   */
+  @Override
+  public List<ImportResult> importAccounts(List<RequestAccount> requests) {
+    Account[] accounts = new Account[requests.size()];
+    ImportResult[] results = new ImportResult[requests.size()];
+    prepareAccounts(requests, accounts, results);
+    awaitDurable(insertAccounts(accounts, results));
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Retrieves consistent copy of account, so it can be read while account is mutated.
+   */
   @Override
   public Account getAccount(UUID accountId) throws NoSuchElementException {
-    validateAccountPresent(accountId);
-    return dataStore.getAccount(accountId);
+    return liveAccount(accountId).copy();
   }
 
+  /**
+   * Retrieves page of account history. Reads take no locks, page contains transactions
+   * recorded before the read started.
+   */
   @Override
-  public synchronized void deleteAccount(UUID accountId) throws NoSuchElementException {
-    validateAccountPresent(accountId);
-    Account accountToRemove = dataStore.getAccount(accountId);
+  public TransactionPage getTransactions(UUID accountId, Long cursor, int limit)
+      throws NoSuchElementException, IllegalArgumentException {
+    validatePageLimit(limit);
+    return dataStore.transactionLog().read(liveAccount(accountId), cursor, limit);
+  }
 
-    removeOwnedAccountFromUser(accountToRemove.holderId(), accountToRemove.id());
-    dataStore.removeAccount(accountToRemove.id());
+  /**
+   * Iterates over accounts without locks, copying each account when it is returned.
+   */
+  @Override
+  public Iterator<Account> exportAccounts() {
+    return Iterators.transform(dataStore.accounts().iterator(), Account::copy);
   }
 
+  /**
+   * Verification scans accounts while they keep changing, so totals reported together with
+   * operations in flight may differ from the scan.
+   */
   @Override
-  public synchronized void deposit(UUID accountId, double amount, Currency currency)
-      throws NoSuchElementException, InvalidTypeException {
+  public BalanceReport getBalanceReport(boolean verify) {
+    List<CurrencyBalance> balances = dataStore.currencyTotals().balances();
+    return new BalanceReport(balances, verify ? CurrencyTotals.scan(dataStore.accounts()) : null);
+  }
 
-    Account account = getAccount(accountId);
-    double deposit = Math.abs(amount);
+  @Override
+  public void deleteAccount(UUID accountId) throws NoSuchElementException {
+    journal.ensureWritable();
+    UUID holderId = liveAccount(accountId).holderId();
+    long position;
+    locks.lock(accountId, holderId);
+    try {
+      Account accountToRemove = liveAccount(accountId);
+
+      dataStore.unlinkOwnedAccount(accountToRemove.holderId(), accountToRemove.id());
+      position = removeAccount(accountToRemove);
+    } finally {
+      locks.unlock(accountId, holderId);
+    }
+    awaitDurable(position);
+  }
 
-    validateCurrencyMatch(account.currency(), currency);
+  @Override
+  public void deposit(UUID accountId, double amount, Currency currency)
+      throws NoSuchElementException, InvalidTypeException {
 
-    account.setBalance(account.balance() + deposit);
-    account.setUpdatedOn(ZonedDateTime.now(ZoneOffset.UTC));
-    dataStore.setAccount(account);
+    journal.ensureWritable();
+    long position;
+    locks.lock(accountId);
+    try {
+      ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+      Account account = liveAccount(accountId);
+      long deposit = applyDeposit(account, amount, currency, now);
+      recordTransaction(account, TransactionType.DEPOSIT, null, deposit, now);
+      position = journal.balanceAdjusted(accountId, deposit, now);
+      account.setJournalPosition(position);
+    } finally {
+      locks.unlock(accountId);
+    }
+    awaitDurable(position);
   }
 
   @Override
-  public synchronized void withdraw(UUID accountId, double amount, Currency currency)
+  public void withdraw(UUID accountId, double amount, Currency currency)
       throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
 
-    Account account = getAccount(accountId);
-    double withdraw = Math.abs(amount);
-
-    validateCurrencyMatch(account.currency(), currency);
-    validateBalance(account.balance(), withdraw);
-
-    account.setBalance(account.balance() - withdraw);
-    account.setUpdatedOn(ZonedDateTime.now(ZoneOffset.UTC));
-    dataStore.setAccount(account);
+    journal.ensureWritable();
+    long position;
+    locks.lock(accountId);
+    try {
+      ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+      Account account = liveAccount(accountId);
+      long withdraw = applyWithdraw(account, amount, currency, now);
+      recordTransaction(account, TransactionType.WITHDRAW, null, -withdraw, now);
+      position = journal.balanceAdjusted(accountId, -withdraw, now);
+      account.setJournalPosition(position);
+    } finally {
+      locks.unlock(accountId);
+    }
+    awaitDurable(position);
   }
 
   @Override
-  public synchronized void transfer(UUID sourceAccountID, UUID targetAccountID, double amount)
+  public void transfer(UUID sourceAccountID, UUID targetAccountID, double amount)
       throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
 
-    Account sourceAccount = getAccount(sourceAccountID);
-    Account targetAccount = getAccount(targetAccountID);
-    double transfer = Math.abs(amount);
-
-    withdraw(sourceAccount.id(), transfer, targetAccount.currency());
-    deposit(targetAccount.id(), transfer, sourceAccount.currency());
+    journal.ensureWritable();
+    long position;
+    locks.lock(sourceAccountID, targetAccountID);
+    try {
+      Account sourceAccount = liveAccount(sourceAccountID);
+      Account targetAccount = liveAccount(targetAccountID);
+      double transfer = Math.abs(amount);
+      ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+
+      long withdrawn = applyWithdraw(sourceAccount, transfer, targetAccount.currency(), now);
+      applyDeposit(targetAccount, transfer, sourceAccount.currency(), now);
+      recordTransaction(sourceAccount, TransactionType.TRANSFER_OUT, targetAccountID,
+          -withdrawn, now);
+      recordTransaction(targetAccount, TransactionType.TRANSFER_IN, sourceAccountID,
+          withdrawn, now);
+      position = journal.transferred(sourceAccountID, targetAccountID, withdrawn, now);
+      sourceAccount.setJournalPosition(position);
+      targetAccount.setJournalPosition(position);
+    } finally {
+      locks.unlock(sourceAccountID, targetAccountID);
+    }
+    awaitDurable(position);
   }
 
   @Override
@@ -108,63 +237,620 @@ public class InMemoryDataService implements UserService, AccountService {
     validateCountryCode(countryCode);
 
     User user = new User(name, address, countryCode, type);
-    dataStore.setUser(user);
+    awaitDurable(insertUser(user));
     return user.id();
   }
 
+  /**
+   * Validates all records in parallel and inserts valid ones in their order. Durability of
+   * the whole batch is awaited once.
+   */
+  @Override
+  public List<ImportResult> importUsers(List<RequestUser> requests) {
+    User[] users = new User[requests.size()];
+    ImportResult[] results = new ImportResult[requests.size()];
+    prepareUsers(requests, users, results);
+    awaitDurable(insertUsers(users, results));
+    return Arrays.asList(results);
+  }
+
   @Override
   public User getUser(UUID userID) throws NoSuchElementException {
     validateUserPresent(userID);
     return dataStore.getUser(userID);
   }
 
+  /**
+   * Copies owned accounts of user looked up in its owned set without locks. Accounts linked
+   * or unlinked meanwhile may be missing or included, every returned account is a consistent
+   * copy.
+   */
   @Override
-  public synchronized User updateUser(UUID userId, RequestUser data) throws NoSuchElementException {
-    User userToModify = getUser(userId);
-    User modifiedUser = modifyUser(userToModify, data);
-    dataStore.setUser(modifiedUser);
+  public List<Account> getUserAccounts(UUID userID) throws NoSuchElementException {
+    validateUserPresent(userID);
+    Set<UUID> accountIds = dataStore.getOwnedAccounts(userID);
+    List<Account> accounts = new ArrayList<>(accountIds.size());
+    for (UUID accountId : accountIds) {
+      Account account = dataStore.getAccount(accountId);
+      if (account == null) {
+        continue;
+      }
+      try {
+        accounts.add(account.copy());
+      } catch (NoSuchElementException e) {
+        // account was removed and its storage reused after lookup
+      }
+    }
+    return accounts;
+  }
+
+  /**
+   * Iterates over users without locks. User details are immutable, so they are not copied.
+   */
+  @Override
+  public Iterator<User> exportUsers() {
+    return dataStore.users().iterator();
+  }
+
+  /**
+   * Finds users through country and type index of the data store without locks.
+   */
+  @Override
+  public UserPage findUsers(String countryCode, HolderType type, UUID cursor, int limit)
+      throws IllegalArgumentException {
+    validatePageLimit(limit);
+    if (countryCode != null) {
+      validateCountryCode(countryCode);
+    }
+    return dataStore.findUsers(countryCode, type, cursor, limit);
+  }
+
+  @Override
+  public User updateUser(UUID userId, RequestUser data) throws NoSuchElementException {
+    journal.ensureWritable();
+    User modifiedUser;
+    long position;
+    locks.lock(userId);
+    try {
+      User userToModify = getUser(userId);
+      modifiedUser = modifyUser(userToModify, data);
+      dataStore.setUser(modifiedUser);
+      position = journal.userPut(modifiedUser);
+    } finally {
+      locks.unlock(userId);
+    }
+    awaitDurable(position);
     return modifiedUser;
   }
 
   @Override
-  public synchronized void deleteUser(UUID userID)
+  public void deleteUser(UUID userID)
       throws NoSuchElementException, UnsupportedOperationException {
 
-    validateUserPresent(userID);
-    validateUserHasNoAccounts(userID);
-    dataStore.removeUser(userID);
+    journal.ensureWritable();
+    long position;
+    locks.lock(userID);
+    try {
+      validateUserPresent(userID);
+      validateUserHasNoAccounts(userID);
+      dataStore.removeUser(userID);
+      position = journal.userRemoved(userID);
+    } finally {
+      locks.unlock(userID);
+    }
+    awaitDurable(position);
+  }
+
+  /**
+   * Writes snapshot of the data store while mutations continue. Every entity is copied
+   * under its own lock, so snapshot never pauses the whole ledger. Journal records after
+   * returned position are not reflected in snapshot as a whole and have to be replayed.
+   *
+   * @param path snapshot file location
+   * @return journal position from which journal has to be replayed after snapshot load
+   * @throws IOException if snapshot cannot be written
+   */
+  @Override
+  public long snapshot(Path path) throws IOException {
+    return snapshot(path, new SnapshotSource() {
+      @Override
+      public List<User> captureUsers(List<User> users) {
+        return InMemoryDataService.this.captureUsers(users);
+      }
+
+      @Override
+      public List<Account> captureAccounts(List<Account> accounts) {
+        return InMemoryDataService.this.captureAccounts(accounts);
+      }
+    });
+  }
+
+  /**
+   * Writes snapshot of the data store capturing entities through provided source. Snapshot
+   * is captured while mutations continue, so it is refused without journal to complete it.
+   *
+   * @param path   snapshot file location
+   * @param source source capturing consistent entity copies
+   * @return journal position from which journal has to be replayed after snapshot load
+   * @throws IOException                   if snapshot cannot be written
+   * @throws UnsupportedOperationException if journal is disabled
+   */
+  long snapshot(Path path, SnapshotSource source) throws IOException {
+    if (!journal.isEnabled()) {
+      throw new UnsupportedOperationException("snapshots require enabled journal");
+    }
+    long position = journal.appendedPosition();
+    dataStore.writeSnapshot(path, position, source);
+    return position;
+  }
+
+  /**
+   * Captures current versions of users, each under its own lock. Removed users are omitted.
+   *
+   * @param users live users
+   * @return user copies
+   */
+  List<User> captureUsers(List<User> users) {
+    List<User> copies = new ArrayList<>(users.size());
+    for (User user : users) {
+      locks.lock(user.id());
+      try {
+        if (dataStore.isUserPresent(user.id())) {
+          copies.add(dataStore.getUser(user.id()));
+        }
+      } finally {
+        locks.unlock(user.id());
+      }
+    }
+    return copies;
+  }
+
+  /**
+   * Captures copies of accounts, each under its own lock. Removed accounts are omitted.
+   *
+   * @param accounts live accounts
+   * @return account copies
+   */
+  List<Account> captureAccounts(List<Account> accounts) {
+    List<Account> copies = new ArrayList<>(accounts.size());
+    for (Account account : accounts) {
+      locks.lock(account.id());
+      try {
+        if (dataStore.isAccountPresent(account.id())) {
+          copies.add(dataStore.getAccount(account.id()).copy());
+        }
+      } finally {
+        locks.unlock(account.id());
+      }
+    }
+    return copies;
+  }
+
+  /**
+   * Validates user import records in parallel. Valid records are turned into new users,
+   * invalid ones into rejected results at the same index.
+   *
+   * @param requests import records
+   * @param users    array receiving new users, null for rejected records
+   * @param results  array receiving rejected results, null for valid records
+   */
+  static void prepareUsers(List<RequestUser> requests, User[] users, ImportResult[] results) {
+    IntStream.range(0, requests.size()).parallel().forEach(i -> {
+      RequestUser request = requests.get(i);
+      try {
+        validateStringParams(request.name(), request.address(), request.countryCode());
+        validateObjectParams(request.type());
+        validateCountryCode(request.countryCode());
+        users[i] = new User(request.name(), request.address(), request.countryCode(),
+            request.type());
+      } catch (IllegalArgumentException e) {
+        results[i] = ImportResult.rejected(e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Validates account import records in parallel. Valid records are turned into new accounts,
+   * invalid ones into rejected results at the same index. Holder presence is validated on
+   * insert.
+   *
+   * @param requests import records
+   * @param accounts array receiving new accounts, null for rejected records
+   * @param results  array receiving rejected results, null for valid records
+   */
+  static void prepareAccounts(List<RequestAccount> requests, Account[] accounts,
+                              ImportResult[] results) {
+    IntStream.range(0, requests.size()).parallel().forEach(i -> {
+      RequestAccount request = requests.get(i);
+      try {
+        validateObjectParams(request.getHolderId(), request.getCurrency());
+        accounts[i] = new Account(request.getHolderId(), request.getCurrency());
+      } catch (IllegalArgumentException e) {
+        results[i] = ImportResult.rejected(e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Inserts prepared user under its own lock without awaiting durability.
+   *
+   * @param user prepared user
+   * @return journal position of the inserted user
+   */
+  long insertUser(User user) {
+    journal.ensureWritable();
+    locks.lock(user.id());
+    try {
+      dataStore.setUser(user);
+      return journal.userPut(user);
+    } finally {
+      locks.unlock(user.id());
+    }
+  }
+
+  /**
+   * Inserts prepared users, each under its own lock, without awaiting durability.
+   *
+   * @param users   prepared users, null entries are skipped
+   * @param results array receiving created results of inserted users
+   * @return journal position of the last inserted user
+   */
+  long insertUsers(User[] users, ImportResult[] results) {
+    long position = 0;
+    for (int i = 0; i < users.length; i++) {
+      if (users[i] != null) {
+        position = insertUser(users[i]);
+        results[i] = ImportResult.created(users[i].id());
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Inserts prepared accounts, each under lock of its own and of its holder, without awaiting
+   * durability. Accounts of missing holders are rejected.
+   *
+   * @param accounts prepared accounts, null entries are skipped
+   * @param results  array receiving results of inserted and rejected accounts
+   * @return journal position of the last inserted account
+   */
+  long insertAccounts(Account[] accounts, ImportResult[] results) {
+    long position = 0;
+    for (int i = 0; i < accounts.length; i++) {
+      if (accounts[i] == null) {
+        continue;
+      }
+      try {
+        position = insertAccount(accounts[i]);
+        results[i] = ImportResult.created(accounts[i].id());
+      } catch (NoSuchElementException e) {
+        results[i] = ImportResult.rejected(e.getMessage());
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Links prepared account to its holder, first step of account creation when holder and
+   * account are owned by different threads. Until {@link #storeAccount(Account)} completes,
+   * holder lists account which cannot be found yet, and holder cannot be deleted.
+   *
+   * @param account prepared account
+   * @throws NoSuchElementException if holder does not exist
+   */
+  void linkAccount(Account account) throws NoSuchElementException {
+    journal.ensureWritable();
+    UUID holderId = account.holderId();
+    locks.lock(holderId);
+    try {
+      validateUserPresent(holderId);
+      dataStore.linkOwnedAccount(holderId, account.id());
+    } finally {
+      locks.unlock(holderId);
+    }
+  }
+
+  /**
+   * Links prepared accounts to their holders. Accounts of missing holders are rejected and
+   * cleared from provided array.
+   *
+   * @param accounts prepared accounts, null entries are skipped
+   * @param results  array receiving results of rejected accounts
+   */
+  void linkAccounts(Account[] accounts, ImportResult[] results) {
+    for (int i = 0; i < accounts.length; i++) {
+      if (accounts[i] == null) {
+        continue;
+      }
+      try {
+        linkAccount(accounts[i]);
+      } catch (NoSuchElementException e) {
+        results[i] = ImportResult.rejected(e.getMessage());
+        accounts[i] = null;
+      }
+    }
+  }
+
+  /**
+   * Stores account already linked to its holder, second step of account creation.
+   *
+   * @param account linked account
+   * @return journal position of the stored account
+   */
+  long storeAccount(Account account) {
+    locks.lock(account.id());
+    try {
+      return putAccount(account);
+    } finally {
+      locks.unlock(account.id());
+    }
+  }
+
+  /**
+   * Stores accounts already linked to their holders without awaiting durability.
+   *
+   * @param accounts linked accounts, null entries are skipped
+   * @param results  array receiving created results of stored accounts
+   * @return journal position of the last stored account
+   */
+  long storeAccounts(Account[] accounts, ImportResult[] results) {
+    long position = 0;
+    for (int i = 0; i < accounts.length; i++) {
+      if (accounts[i] != null) {
+        position = storeAccount(accounts[i]);
+        results[i] = ImportResult.created(accounts[i].id());
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Removes account while leaving it linked to its holder, first step of account deletion
+   * when holder and account are owned by different threads.
+   *
+   * @param accountId UUID of account to delete
+   * @return UUID of holder account has to be unlinked from
+   * @throws NoSuchElementException if account with provided ID doesn't exists
+   */
+  UUID detachAccount(UUID accountId) throws NoSuchElementException {
+    journal.ensureWritable();
+    locks.lock(accountId);
+    try {
+      Account accountToRemove = liveAccount(accountId);
+      UUID holderId = accountToRemove.holderId();
+      removeAccount(accountToRemove);
+      return holderId;
+    } finally {
+      locks.unlock(accountId);
+    }
+  }
+
+  /**
+   * Unlinks removed account from its holder, second step of account deletion.
+   *
+   * @param holderId  UUID of account holder
+   * @param accountId UUID of removed account
+   */
+  void unlinkAccount(UUID holderId, UUID accountId) {
+    locks.lock(holderId);
+    try {
+      dataStore.unlinkOwnedAccount(holderId, accountId);
+    } finally {
+      locks.unlock(holderId);
+    }
+  }
+
+  /**
+   * Debits source account and journals the whole transfer, first step of transfer between
+   * accounts owned by different threads. Target account is only validated and is credited
+   * by {@link #creditTransfer(UUID, UUID, long)}. Until then transferred funds are counted
+   * neither on accounts nor in currency totals.
+   *
+   * @param sourceAccountID UUID of account from which to transfer funds
+   * @param targetAccountID UUID of account to which to transfer funds
+   * @param amount          of funds to transfer
+   * @return debited amount in minor units
+   * @throws NoSuchElementException         if one source or target does not exist
+   * @throws InvalidTypeException           if source account currency does not match with
+   *                                        target
+   * @throws InsufficientResourcesException if source account does not have sufficient
+   *                                        balance
+   */
+  long debitTransfer(UUID sourceAccountID, UUID targetAccountID, double amount)
+      throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
+    journal.ensureWritable();
+    locks.lock(sourceAccountID);
+    try {
+      Account sourceAccount = liveAccount(sourceAccountID);
+      Currency targetCurrency = liveAccount(targetAccountID).currency();
+      ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+
+      long withdrawn = applyWithdraw(sourceAccount, Math.abs(amount), targetCurrency, now);
+      recordTransaction(sourceAccount, TransactionType.TRANSFER_OUT, targetAccountID,
+          -withdrawn, now);
+      dataStore.currencyTotals().balanceChanged(sourceAccount.currency(), -withdrawn);
+      long position = journal.transferred(sourceAccountID, targetAccountID, withdrawn, now);
+      sourceAccount.setJournalPosition(position);
+      return withdrawn;
+    } finally {
+      locks.unlock(sourceAccountID);
+    }
+  }
+
+  /**
+   * Credits target account with funds debited by
+   * {@link #debitTransfer(UUID, UUID, double)}, second step of transfer. Funds sent to
+   * account deleted in the meantime are dropped together with the account, as if transfer
+   * was applied right before the deletion, which is also how journal replays it. Journal
+   * position of target is left as is, because later records of target may already be
+   * applied.
+   *
+   * @param sourceAccountID UUID of debited account
+   * @param targetAccountID UUID of account to credit
+   * @param minorAmount     debited amount in minor units
+   */
+  void creditTransfer(UUID sourceAccountID, UUID targetAccountID, long minorAmount) {
+    locks.lock(targetAccountID);
+    try {
+      Account targetAccount = dataStore.getAccount(targetAccountID);
+      if (targetAccount == null) {
+        return;
+      }
+      ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+      targetAccount.addMinorBalance(minorAmount, now);
+      recordTransaction(targetAccount, TransactionType.TRANSFER_IN, sourceAccountID,
+          minorAmount, now);
+      dataStore.currencyTotals().balanceChanged(targetAccount.currency(), minorAmount);
+    } finally {
+      locks.unlock(targetAccountID);
+    }
+  }
+
+  /**
+   * Retrieves stored account which is mutated in place.
+   *
+   * @param accountId the account id
+   * @return live account
+   * @throws NoSuchElementException if account with provided ID doesn't exists
+   */
+  Account liveAccount(UUID accountId) throws NoSuchElementException {
+    validateAccountPresent(accountId);
+    return dataStore.getAccount(accountId);
+  }
+
+  /**
+   * Appends applied balance change to account history.
+   *
+   * @param account        changed account, its balance already includes the change
+   * @param type           transaction type
+   * @param counterpartyId other account of transfer, null for deposits and withdrawals
+   * @param minorAmount    balance change in minor units, negative for debits
+   * @param now            time of the change
+   */
+  void recordTransaction(Account account, TransactionType type, UUID counterpartyId,
+                         long minorAmount, ZonedDateTime now) {
+    recordTransaction(account, type, counterpartyId, minorAmount, account.minorBalance(), now);
+  }
+
+  /**
+   * Appends applied balance change with known resulting balance to account history. Deposits
+   * and withdrawals are also added to currency totals, transfers leave them unchanged.
+   *
+   * @param account        changed account
+   * @param type           transaction type
+   * @param counterpartyId other account of transfer, null for deposits and withdrawals
+   * @param minorAmount    balance change in minor units, negative for debits
+   * @param minorBalance   balance after the change in minor units
+   * @param now            time of the change
+   */
+  void recordTransaction(Account account, TransactionType type, UUID counterpartyId,
+                         long minorAmount, long minorBalance, ZonedDateTime now) {
+    dataStore.transactionLog().append(account, type, counterpartyId, minorAmount, minorBalance,
+        now.toInstant().toEpochMilli());
+    if (type == TransactionType.DEPOSIT || type == TransactionType.WITHDRAW) {
+      dataStore.currencyTotals().balanceChanged(account.currency(), minorAmount);
+    }
+  }
+
+  /**
+   * Getter for per currency totals maintained by this service.
+   *
+   * @return currency totals of the data store
+   */
+  CurrencyTotals currencyTotals() {
+    return dataStore.currencyTotals();
+  }
+
+  /**
+   * Getter for journal recording mutations of this service.
+   *
+   * @return journal instance
+   */
+  Journal journal() {
+    return journal;
+  }
+
+  /**
+   * Blocks until journal position is durable, unless durability is awaited by caller.
+   *
+   * @param position journal position returned by append
+   */
+  void awaitDurable(long position) {
+    if (awaitDurability) {
+      journal.awaitDurable(position);
+    }
+  }
+
+  private long applyDeposit(Account account, double amount, Currency currency,
+                            ZonedDateTime now) throws InvalidTypeException {
+
+    validateCurrencyMatch(account.currency(), currency);
+
+    long deposit = toMinorUnits(Math.abs(amount), account.currency());
+    account.setMinorBalance(account.minorBalance() + deposit, now);
+    dataStore.setAccount(account);
+    return deposit;
+  }
+
+  private long applyWithdraw(Account account, double amount, Currency currency,
+                             ZonedDateTime now)
+      throws InvalidTypeException, InsufficientResourcesException {
+
+    validateCurrencyMatch(account.currency(), currency);
+
+    long withdraw = toMinorUnits(Math.abs(amount), account.currency());
+    validateBalance(account.minorBalance(), withdraw);
+
+    account.setMinorBalance(account.minorBalance() - withdraw, now);
+    dataStore.setAccount(account);
+    return withdraw;
+  }
+
+  private long insertAccount(Account account) throws NoSuchElementException {
+    journal.ensureWritable();
+    UUID holderId = account.holderId();
+    locks.lock(holderId, account.id());
+    try {
+      validateUserPresent(holderId);
+
+      dataStore.linkOwnedAccount(holderId, account.id());
+      return putAccount(account);
+    } finally {
+      locks.unlock(holderId, account.id());
+    }
   }
 
-  private void addOwnedAccountToUser(UUID holderId, UUID accountId) {
-    User holder = dataStore.getUser(holderId);
-    holder.addOwnedAccount(accountId);
-    holder.setUpdatedOn(ZonedDateTime.now(ZoneOffset.UTC));
-    dataStore.setUser(holder);
+  private long putAccount(Account account) {
+    Account stored = dataStore.setAccount(account);
+    dataStore.currencyTotals().accountAdded(stored.currency(), stored.minorBalance());
+    long position = journal.accountPut(stored);
+    stored.setJournalPosition(position);
+    return position;
   }
 
-  private void removeOwnedAccountFromUser(UUID holderId, UUID accountId) {
-    User holder = dataStore.getUser(holderId);
-    holder.removeOwnedAccount(accountId);
-    holder.setUpdatedOn(ZonedDateTime.now(ZoneOffset.UTC));
-    dataStore.setUser(holder);
+  private long removeAccount(Account account) {
+    long balance = account.close();
+    dataStore.currencyTotals().accountRemoved(account.currency(), balance);
+    dataStore.removeAccount(account.id());
+    return journal.accountRemoved(account.id());
   }
 
   private void validateAccountPresent(UUID accountID) throws NoSuchElementException {
     if (dataStore.isAccountPresent(accountID)) {
       return;
     }
-    throw new NoSuchElementException("no account found with id: " + accountID.toString());
+    throw new EntityNotFoundException("no account found with id: " + accountID.toString());
   }
 
   private void validateUserPresent(UUID userID) throws NoSuchElementException {
     if (dataStore.isUserPresent(userID)) {
       return;
     }
-    throw new NoSuchElementException("no user found with id: " + userID.toString());
+    throw new EntityNotFoundException("no user found with id: " + userID.toString());
   }
 
   private void validateUserHasNoAccounts(UUID userID) throws UnsupportedOperationException {
-    if (dataStore.getUser(userID).ownedAccounts().isEmpty()) {
+    if (dataStore.getOwnedAccounts(userID).isEmpty()) {
       return;
     }
     throw new UnsupportedOperationException("user has linked accounts");
@@ -0,0 +1,26 @@
+package com.github.r0kas.controller.data;
+
+import javax.naming.InsufficientResourcesException;
+
+/**
+ * Thrown when account balance is too low for withdrawal or transfer. Clients may retry
+ * such requests in bulk, so stack trace is not filled in.
+ */
+public final class InsufficientFundsException extends InsufficientResourcesException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Instantiates a new insufficient funds exception.
+   *
+   * @param message the detail message
+   */
+  public InsufficientFundsException(String message) {
+    super(message);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,154 @@
+package com.github.r0kas.controller.data;
+
+import static com.github.r0kas.controller.data.Utils.validateBalance;
+import static com.github.r0kas.controller.data.Utils.validateCurrencyMatch;
+import static com.github.r0kas.model.data.MinorUnits.toMinorUnits;
+
+import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.Journal;
+import com.github.r0kas.model.data.TransactionType;
+import com.sun.jdi.InvalidTypeException;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import javax.naming.InsufficientResourcesException;
+
+/**
+ * Lock free data service applies funds operations directly on atomic account balances.
+ * Deposits and withdrawals are compare-and-set loops which check that account is still open
+ * within each attempt, withdrawals check balance sufficiency as well. User and account
+ * management is inherited from striped lock data service.
+ *
+ * <p>Transfer debits source and credits target as two atomic steps, therefore transferred
+ * funds are briefly visible on neither account.
+ *
+ * <p>Account deletion closes account state, every atomic step fails on closed account and
+ * reports it as missing. Deposit to deleted account is therefore rejected instead of lost.
+ * Transfer to deleted account is refunded to its source; if source was deleted meanwhile as
+ * well, funds are dropped together with the source, as they would be if transfer failed
+ * before the deletion.
+ *
+ * <p>History entries carry balance produced by their own atomic step, but concurrent
+ * operations on the same account may be appended to its history in a different order
+ * than their balance changes were applied. Currency totals are likewise added to after each
+ * atomic step and may briefly lag behind balances. Deleted account is taken out of totals
+ * with the balance it was closed with, which no later step can change, so once operations
+ * settle totals match account balances exactly and can be verified.
+ *
+ * <p>Balances change outside of any lock, so balance and its journal position cannot be
+ * captured together and online snapshots are not supported.
+ */
+public class LockFreeDataService extends InMemoryDataService {
+
+  /**
+   * Instantiates lock free data service.
+   */
+  public LockFreeDataService() {
+    this(Journal.disabled());
+  }
+
+  /**
+   * Instantiates lock free data service which records every mutation in provided journal.
+   * Balance changes are journaled as commutative deltas, so their relative order in journal
+   * does not affect replayed balances.
+   *
+   * @param journal journal recording mutations
+   */
+  public LockFreeDataService(Journal journal) {
+    super(LockMode.STRIPED, journal);
+  }
+
+  @Override
+  public void deposit(UUID accountId, double amount, Currency currency)
+      throws NoSuchElementException, InvalidTypeException {
+
+    journal().ensureWritable();
+    Account account = liveAccount(accountId);
+    validateCurrencyMatch(account.currency(), currency);
+
+    long deposit = toMinorUnits(Math.abs(amount), account.currency());
+    ZonedDateTime now = credit(account, deposit, TransactionType.DEPOSIT, null);
+    awaitDurable(journal().balanceAdjusted(accountId, deposit, now));
+  }
+
+  @Override
+  public void withdraw(UUID accountId, double amount, Currency currency)
+      throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
+
+    journal().ensureWritable();
+    Account account = liveAccount(accountId);
+    validateCurrencyMatch(account.currency(), currency);
+
+    long withdraw = toMinorUnits(Math.abs(amount), account.currency());
+    ZonedDateTime now = debit(account, withdraw, TransactionType.WITHDRAW, null);
+    awaitDurable(journal().balanceAdjusted(accountId, -withdraw, now));
+  }
+
+  @Override
+  public void transfer(UUID sourceAccountID, UUID targetAccountID, double amount)
+      throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
+
+    journal().ensureWritable();
+    Account sourceAccount = liveAccount(sourceAccountID);
+    Account targetAccount = liveAccount(targetAccountID);
+    validateCurrencyMatch(sourceAccount.currency(), targetAccount.currency());
+
+    long transfer = toMinorUnits(Math.abs(amount), sourceAccount.currency());
+    debit(sourceAccount, transfer, TransactionType.TRANSFER_OUT, targetAccountID);
+    ZonedDateTime now;
+    try {
+      now = credit(targetAccount, transfer, TransactionType.TRANSFER_IN, sourceAccountID);
+    } catch (NoSuchElementException e) {
+      refund(sourceAccount, transfer, targetAccountID);
+      throw e;
+    }
+    awaitDurable(journal().transferred(sourceAccountID, targetAccountID, transfer, now));
+  }
+
+  @Override
+  public long snapshot(Path path) {
+    throw new UnsupportedOperationException("lock free engine does not support snapshots");
+  }
+
+  private ZonedDateTime credit(Account account, long deposit, TransactionType type,
+                               UUID counterpartyId) throws NoSuchElementException {
+    ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+    long balance;
+    do {
+      balance = account.minorBalance();
+      validateOpen(account);
+    } while (!account.compareAndSetMinorBalance(balance, balance + deposit, now));
+    recordTransaction(account, type, counterpartyId, deposit, balance + deposit, now);
+    return now;
+  }
+
+  private ZonedDateTime debit(Account account, long withdraw, TransactionType type,
+                              UUID counterpartyId) throws InsufficientResourcesException {
+    ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+    long balance;
+    do {
+      balance = account.minorBalance();
+      validateOpen(account);
+      validateBalance(balance, withdraw);
+    } while (!account.compareAndSetMinorBalance(balance, balance - withdraw, now));
+    recordTransaction(account, type, counterpartyId, -withdraw, balance - withdraw, now);
+    return now;
+  }
+
+  private void refund(Account account, long transfer, UUID targetAccountID) {
+    try {
+      credit(account, transfer, TransactionType.TRANSFER_IN, targetAccountID);
+    } catch (NoSuchElementException e) {
+      currencyTotals().balanceChanged(account.currency(), -transfer);
+    }
+  }
+
+  private static void validateOpen(Account account) throws NoSuchElementException {
+    if (account.isClosed()) {
+      throw new EntityNotFoundException("no account found with id: " + account.id());
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.github.r0kas.controller.data;
+
+/**
+ * Lock mode describes how ledger mutations are guarded against concurrent access.
+ */
+public enum LockMode {
+  /**
+   * Single lock shared by every mutation. Operations are fully serialized.
+   */
+  GLOBAL,
+  /**
+   * Lock stripes selected by entity id. Only entities involved in operation are locked,
+   * so operations on unrelated accounts proceed in parallel.
+   */
+  STRIPED
+}
@@ -0,0 +1,126 @@
+package com.github.r0kas.controller.data;
+
+import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.BalanceReport;
+import com.github.r0kas.model.data.TransactionPage;
+import com.github.r0kas.model.rest.ImportResult;
+import com.github.r0kas.model.rest.RequestAccount;
+import com.sun.jdi.InvalidTypeException;
+import java.util.Currency;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import javax.naming.InsufficientResourcesException;
+
+/**
+ * Account service decorator counting transfer outcomes of underlying ledger.
+ */
+public final class MeteredAccountService implements AccountService {
+
+  private final AccountService delegate;
+  private final LongAdder transfersApplied = new LongAdder();
+  private final LongAdder transfersInsufficientFunds = new LongAdder();
+  private final LongAdder transfersCurrencyMismatch = new LongAdder();
+
+  /**
+   * Instantiates metered account service.
+   *
+   * @param delegate account service executing operations
+   */
+  public MeteredAccountService(AccountService delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public UUID createAccount(UUID holderId, Currency accountCurrency)
+      throws IllegalArgumentException, NoSuchElementException {
+    return delegate.createAccount(holderId, accountCurrency);
+  }
+
+  @Override
+  public List<ImportResult> importAccounts(List<RequestAccount> accounts) {
+    return delegate.importAccounts(accounts);
+  }
+
+  @Override
+  public Account getAccount(UUID accountId) throws NoSuchElementException {
+    return delegate.getAccount(accountId);
+  }
+
+  @Override
+  public TransactionPage getTransactions(UUID accountId, Long cursor, int limit)
+      throws NoSuchElementException, IllegalArgumentException {
+    return delegate.getTransactions(accountId, cursor, limit);
+  }
+
+  @Override
+  public Iterator<Account> exportAccounts() {
+    return delegate.exportAccounts();
+  }
+
+  @Override
+  public BalanceReport getBalanceReport(boolean verify) {
+    return delegate.getBalanceReport(verify);
+  }
+
+  @Override
+  public void deleteAccount(UUID accountId) throws NoSuchElementException {
+    delegate.deleteAccount(accountId);
+  }
+
+  @Override
+  public void deposit(UUID accountId, double amount, Currency currency)
+      throws NoSuchElementException, InvalidTypeException {
+    delegate.deposit(accountId, amount, currency);
+  }
+
+  @Override
+  public void withdraw(UUID accountId, double amount, Currency currency)
+      throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
+    delegate.withdraw(accountId, amount, currency);
+  }
+
+  @Override
+  public void transfer(UUID sourceAccountID, UUID targetAccountID, double amount)
+      throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
+    try {
+      delegate.transfer(sourceAccountID, targetAccountID, amount);
+    } catch (InsufficientResourcesException e) {
+      transfersInsufficientFunds.increment();
+      throw e;
+    } catch (InvalidTypeException e) {
+      transfersCurrencyMismatch.increment();
+      throw e;
+    }
+    transfersApplied.increment();
+  }
+
+  /**
+   * Number of completed transfers.
+   *
+   * @return transfers applied to ledger
+   */
+  public long transfersApplied() {
+    return transfersApplied.sum();
+  }
+
+  /**
+   * Number of transfers rejected because source account balance was too low.
+   *
+   * @return transfers rejected for insufficient funds
+   */
+  public long transfersInsufficientFunds() {
+    return transfersInsufficientFunds.sum();
+  }
+
+  /**
+   * Number of transfers rejected because account currencies differ.
+   *
+   * @return transfers rejected for currency mismatch
+   */
+  public long transfersCurrencyMismatch() {
+    return transfersCurrencyMismatch.sum();
+  }
+}
@@ -0,0 +1,254 @@
+package com.github.r0kas.controller.data;
+
+import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.BalanceReport;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.Journal;
+import com.github.r0kas.model.data.SnapshotSource;
+import com.github.r0kas.model.data.TransactionPage;
+import com.github.r0kas.model.data.User;
+import com.github.r0kas.model.data.UserPage;
+import com.github.r0kas.model.rest.ImportResult;
+import com.github.r0kas.model.rest.RequestAccount;
+import com.github.r0kas.model.rest.RequestUser;
+import com.sun.jdi.InvalidTypeException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import javax.naming.InsufficientResourcesException;
+
+/**
+ * Sequenced data service applies every ledger mutation on a single business logic thread.
+ * Request threads publish commands into pre-allocated ring buffer and wait for their
+ * completion, so mutations are applied in deterministic order without any locking.
+ * Reads are served directly from the data store.
+ */
+public class SequencedDataService implements DataService {
+
+  private static final int DEFAULT_RING_CAPACITY = 1 << 14;
+
+  private final InMemoryDataService ledger;
+  private final CommandRing ring;
+  private final Journal journal;
+
+  /**
+   * Instantiates sequenced data service with default ring capacity.
+   */
+  public SequencedDataService() {
+    this(DEFAULT_RING_CAPACITY);
+  }
+
+  /**
+   * Instantiates sequenced data service.
+   *
+   * @param ringCapacity number of pre-allocated command slots, must be power of two
+   */
+  public SequencedDataService(int ringCapacity) {
+    this(ringCapacity, Journal.disabled());
+  }
+
+  /**
+   * Instantiates sequenced data service which records every mutation in provided journal.
+   * Business logic thread only appends records, request threads wait for durability, so
+   * records of concurrent requests are group committed.
+   *
+   * @param ringCapacity number of pre-allocated command slots, must be power of two
+   * @param journal      journal recording mutations
+   */
+  public SequencedDataService(int ringCapacity, Journal journal) {
+    this.journal = journal;
+    this.ledger = new InMemoryDataService(AccountLocks.confined(), journal, false);
+    this.ring = new CommandRing(ringCapacity, ledger, "ledger-sequencer");
+  }
+
+  @Override
+  public UUID createAccount(UUID holderId, Currency accountCurrency)
+      throws IllegalArgumentException, NoSuchElementException {
+    return execute(ring.publish(target -> target.createAccount(holderId, accountCurrency)));
+  }
+
+  /**
+   * Validates records in parallel on the calling thread, so business logic thread only
+   * inserts valid ones.
+   */
+  @Override
+  public List<ImportResult> importAccounts(List<RequestAccount> requests) {
+    Account[] accounts = new Account[requests.size()];
+    ImportResult[] results = new ImportResult[requests.size()];
+    InMemoryDataService.prepareAccounts(requests, accounts, results);
+    execute(ring.publish(target -> target.insertAccounts(accounts, results)));
+    return Arrays.asList(results);
+  }
+
+  @Override
+  public Account getAccount(UUID accountId) throws NoSuchElementException {
+    return ledger.getAccount(accountId);
+  }
+
+  @Override
+  public TransactionPage getTransactions(UUID accountId, Long cursor, int limit)
+      throws NoSuchElementException, IllegalArgumentException {
+    return ledger.getTransactions(accountId, cursor, limit);
+  }
+
+  @Override
+  public Iterator<Account> exportAccounts() {
+    return ledger.exportAccounts();
+  }
+
+  /**
+   * Verification scans accounts on business logic thread, so it sees totals and accounts at
+   * the same point of command sequence.
+   */
+  @Override
+  public BalanceReport getBalanceReport(boolean verify) {
+    return verify ? execute(ring.publish(target -> target.getBalanceReport(true)))
+        : ledger.getBalanceReport(false);
+  }
+
+  @Override
+  public void deleteAccount(UUID accountId) throws NoSuchElementException {
+    execute(ring.publish(target -> {
+      target.deleteAccount(accountId);
+      return null;
+    }));
+  }
+
+  @Override
+  public void deposit(UUID accountId, double amount, Currency currency)
+      throws NoSuchElementException, InvalidTypeException {
+    try {
+      executeFunds(ring.publish(target -> {
+        target.deposit(accountId, amount, currency);
+        return null;
+      }));
+    } catch (InsufficientResourcesException e) {
+      throw new IllegalStateException("unexpected ledger outcome", e);
+    }
+  }
+
+  @Override
+  public void withdraw(UUID accountId, double amount, Currency currency)
+      throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
+    executeFunds(ring.publish(target -> {
+      target.withdraw(accountId, amount, currency);
+      return null;
+    }));
+  }
+
+  @Override
+  public void transfer(UUID sourceAccountID, UUID targetAccountID, double amount)
+      throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
+    executeFunds(ring.publish(target -> {
+      target.transfer(sourceAccountID, targetAccountID, amount);
+      return null;
+    }));
+  }
+
+  @Override
+  public UUID createUser(String name, String address, String countryCode, HolderType type)
+      throws IllegalArgumentException {
+    return execute(ring.publish(target -> target.createUser(name, address, countryCode, type)));
+  }
+
+  /**
+   * Validates records in parallel on the calling thread, so business logic thread only
+   * inserts valid ones.
+   */
+  @Override
+  public List<ImportResult> importUsers(List<RequestUser> requests) {
+    User[] users = new User[requests.size()];
+    ImportResult[] results = new ImportResult[requests.size()];
+    InMemoryDataService.prepareUsers(requests, users, results);
+    execute(ring.publish(target -> target.insertUsers(users, results)));
+    return Arrays.asList(results);
+  }
+
+  @Override
+  public User getUser(UUID userID) throws NoSuchElementException {
+    return ledger.getUser(userID);
+  }
+
+  @Override
+  public List<Account> getUserAccounts(UUID userID) throws NoSuchElementException {
+    return ledger.getUserAccounts(userID);
+  }
+
+  @Override
+  public Iterator<User> exportUsers() {
+    return ledger.exportUsers();
+  }
+
+  @Override
+  public UserPage findUsers(String countryCode, HolderType type, UUID cursor, int limit)
+      throws IllegalArgumentException {
+    return ledger.findUsers(countryCode, type, cursor, limit);
+  }
+
+  @Override
+  public User updateUser(UUID userId, RequestUser data) throws NoSuchElementException {
+    return execute(ring.publish(target -> target.updateUser(userId, data)));
+  }
+
+  @Override
+  public void deleteUser(UUID userID)
+      throws NoSuchElementException, UnsupportedOperationException {
+    execute(ring.publish(target -> {
+      target.deleteUser(userID);
+      return null;
+    }));
+  }
+
+  /**
+   * Writes snapshot of the data store while mutations continue. Every chunk of entities is
+   * copied by business logic thread between other commands, so copies are consistent and
+   * processing is paused only for the time of copying one chunk.
+   *
+   * @param path snapshot file location
+   * @return journal position from which journal has to be replayed after snapshot load
+   * @throws IOException if snapshot cannot be written
+   */
+  @Override
+  public long snapshot(Path path) throws IOException {
+    return ledger.snapshot(path, new SnapshotSource() {
+      @Override
+      public List<User> captureUsers(List<User> users) {
+        return execute(ring.publish(target -> target.captureUsers(users)));
+      }
+
+      @Override
+      public List<Account> captureAccounts(List<Account> accounts) {
+        return execute(ring.publish(target -> target.captureAccounts(accounts)));
+      }
+    });
+  }
+
+  /**
+   * Stops business logic thread after all published commands are applied.
+   */
+  @Override
+  public void close() {
+    ring.stop();
+  }
+
+  private <T> T execute(CompletableFuture<T> result) {
+    try {
+      return executeFunds(result);
+    } catch (InvalidTypeException | InsufficientResourcesException e) {
+      throw new IllegalStateException("unexpected ledger outcome", e);
+    }
+  }
+
+  private <T> T executeFunds(CompletableFuture<T> result)
+      throws InvalidTypeException, InsufficientResourcesException {
+    T applied = CommandRing.await(result);
+    journal.awaitDurable(journal.appendedPosition());
+    return applied;
+  }
+}
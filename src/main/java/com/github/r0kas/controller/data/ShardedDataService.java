@@ -0,0 +1,338 @@
+package com.github.r0kas.controller.data;
+
+import static com.github.r0kas.controller.data.Utils.validateCountryCode;
+import static com.github.r0kas.controller.data.Utils.validateObjectParams;
+import static com.github.r0kas.controller.data.Utils.validateStringParams;
+
+import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.BalanceReport;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.Journal;
+import com.github.r0kas.model.data.TransactionPage;
+import com.github.r0kas.model.data.User;
+import com.github.r0kas.model.data.UserPage;
+import com.github.r0kas.model.rest.ImportResult;
+import com.github.r0kas.model.rest.RequestAccount;
+import com.github.r0kas.model.rest.RequestUser;
+import com.sun.jdi.InvalidTypeException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import javax.naming.InsufficientResourcesException;
+
+/**
+ * Sharded data service partitions users and accounts by hash of their id into shards, each
+ * owned by its own business logic thread. Request threads publish commands into ring buffer
+ * of the owning shard, so mutations of one shard are applied without any locking and shards
+ * proceed in parallel.
+ *
+ * <p>Operations touching entities of two shards are split into steps applied on each shard
+ * in turn, no shard ever waits for another one:
+ *
+ * <ul>
+ *   <li>transfer debits source and journals the transfer on source shard, then credits
+ *   target on target shard; transferred funds are briefly visible on neither account</li>
+ *   <li>account creation links account to its holder on holder shard, then stores account
+ *   on account shard</li>
+ *   <li>account deletion removes account on account shard, then unlinks it from its holder
+ *   on holder shard</li>
+ * </ul>
+ *
+ * <p>Reads are served directly from the data store. All shards append to the same journal,
+ * so with journal enabled appends are serialized by it. Snapshots are not supported, as
+ * transfer in flight cannot be captured consistently.
+ */
+public class ShardedDataService implements DataService {
+
+  private static final int DEFAULT_RING_CAPACITY = 1 << 12;
+
+  private final InMemoryDataService[] ledgers;
+  private final CommandRing[] rings;
+  private final Journal journal;
+
+  /**
+   * Instantiates sharded data service with one shard per available processor.
+   */
+  public ShardedDataService() {
+    this(Runtime.getRuntime().availableProcessors(), Journal.disabled());
+  }
+
+  /**
+   * Instantiates sharded data service which records every mutation in provided journal.
+   * Business logic threads only append records, request threads wait for durability.
+   *
+   * @param shards  number of shards
+   * @param journal journal recording mutations
+   */
+  public ShardedDataService(int shards, Journal journal) {
+    this(shards, DEFAULT_RING_CAPACITY, journal);
+  }
+
+  /**
+   * Instantiates sharded data service.
+   *
+   * @param shards       number of shards
+   * @param ringCapacity number of pre-allocated command slots of every shard, must be power
+   *                     of two
+   * @param journal      journal recording mutations
+   */
+  public ShardedDataService(int shards, int ringCapacity, Journal journal) {
+    if (shards < 1) {
+      throw new IllegalArgumentException("number of shards must be positive");
+    }
+    this.journal = journal;
+    this.ledgers = new InMemoryDataService[shards];
+    this.rings = new CommandRing[shards];
+    for (int i = 0; i < shards; i++) {
+      ledgers[i] = new InMemoryDataService(AccountLocks.confined(), journal, false);
+      rings[i] = new CommandRing(ringCapacity, ledgers[i], "ledger-shard-" + i);
+    }
+  }
+
+  @Override
+  public UUID createAccount(UUID holderId, Currency accountCurrency)
+      throws IllegalArgumentException, NoSuchElementException {
+    validateObjectParams(holderId, accountCurrency);
+    Account account = new Account(holderId, accountCurrency);
+    execute(ring(holderId).publish(target -> {
+      target.linkAccount(account);
+      return null;
+    }));
+    execute(ring(account.id()).publish(target -> target.storeAccount(account)));
+    return account.id();
+  }
+
+  /**
+   * Validates records in parallel on the calling thread, then links accounts on holder shards
+   * and stores linked ones on account shards, all shards working in parallel.
+   */
+  @Override
+  public List<ImportResult> importAccounts(List<RequestAccount> requests) {
+    Account[] accounts = new Account[requests.size()];
+    ImportResult[] results = new ImportResult[requests.size()];
+    InMemoryDataService.prepareAccounts(requests, accounts, results);
+
+    List<CompletableFuture<?>> linked = new ArrayList<>(rings.length);
+    for (int shard = 0; shard < rings.length; shard++) {
+      Account[] shardAccounts = partition(accounts, shard, Account::holderId);
+      linked.add(rings[shard].publish(target -> {
+        target.linkAccounts(shardAccounts, results);
+        return null;
+      }));
+    }
+    awaitAll(linked);
+
+    for (int i = 0; i < accounts.length; i++) {
+      if (results[i] != null) {
+        accounts[i] = null;
+      }
+    }
+    List<CompletableFuture<?>> stored = new ArrayList<>(rings.length);
+    for (int shard = 0; shard < rings.length; shard++) {
+      Account[] shardAccounts = partition(accounts, shard, Account::id);
+      stored.add(rings[shard].publish(target -> target.storeAccounts(shardAccounts, results)));
+    }
+    awaitAll(stored);
+    return Arrays.asList(results);
+  }
+
+  @Override
+  public Account getAccount(UUID accountId) throws NoSuchElementException {
+    return ledgers[0].getAccount(accountId);
+  }
+
+  @Override
+  public TransactionPage getTransactions(UUID accountId, Long cursor, int limit)
+      throws NoSuchElementException, IllegalArgumentException {
+    return ledgers[0].getTransactions(accountId, cursor, limit);
+  }
+
+  @Override
+  public Iterator<Account> exportAccounts() {
+    return ledgers[0].exportAccounts();
+  }
+
+  /**
+   * Shards are not paused for verification, so with operations in flight scanned accounts
+   * may differ from totals.
+   */
+  @Override
+  public BalanceReport getBalanceReport(boolean verify) {
+    return ledgers[0].getBalanceReport(verify);
+  }
+
+  @Override
+  public void deleteAccount(UUID accountId) throws NoSuchElementException {
+    UUID holderId = execute(ring(accountId).publish(target -> target.detachAccount(accountId)));
+    execute(ring(holderId).publish(target -> {
+      target.unlinkAccount(holderId, accountId);
+      return null;
+    }));
+  }
+
+  @Override
+  public void deposit(UUID accountId, double amount, Currency currency)
+      throws NoSuchElementException, InvalidTypeException {
+    try {
+      executeFunds(ring(accountId).publish(target -> {
+        target.deposit(accountId, amount, currency);
+        return null;
+      }));
+    } catch (InsufficientResourcesException e) {
+      throw new IllegalStateException("unexpected ledger outcome", e);
+    }
+  }
+
+  @Override
+  public void withdraw(UUID accountId, double amount, Currency currency)
+      throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
+    executeFunds(ring(accountId).publish(target -> {
+      target.withdraw(accountId, amount, currency);
+      return null;
+    }));
+  }
+
+  /**
+   * Transfer within one shard is applied as a single command. Transfer between shards
+   * is debited on source shard and credited on target shard.
+   */
+  @Override
+  public void transfer(UUID sourceAccountID, UUID targetAccountID, double amount)
+      throws NoSuchElementException, InvalidTypeException, InsufficientResourcesException {
+    CommandRing sourceRing = ring(sourceAccountID);
+    CommandRing targetRing = ring(targetAccountID);
+    if (sourceRing == targetRing) {
+      executeFunds(sourceRing.publish(target -> {
+        target.transfer(sourceAccountID, targetAccountID, amount);
+        return null;
+      }));
+      return;
+    }
+    long debited = CommandRing.await(sourceRing.publish(
+        target -> target.debitTransfer(sourceAccountID, targetAccountID, amount)));
+    execute(targetRing.publish(target -> {
+      target.creditTransfer(sourceAccountID, targetAccountID, debited);
+      return null;
+    }));
+  }
+
+  @Override
+  public UUID createUser(String name, String address, String countryCode, HolderType type)
+      throws IllegalArgumentException {
+    validateStringParams(name, address, countryCode);
+    validateObjectParams(type);
+    validateCountryCode(countryCode);
+    User user = new User(name, address, countryCode, type);
+    execute(ring(user.id()).publish(target -> target.insertUser(user)));
+    return user.id();
+  }
+
+  /**
+   * Validates records in parallel on the calling thread, then inserts valid ones on their
+   * shards, all shards working in parallel.
+   */
+  @Override
+  public List<ImportResult> importUsers(List<RequestUser> requests) {
+    User[] users = new User[requests.size()];
+    ImportResult[] results = new ImportResult[requests.size()];
+    InMemoryDataService.prepareUsers(requests, users, results);
+
+    List<CompletableFuture<?>> inserted = new ArrayList<>(rings.length);
+    for (int shard = 0; shard < rings.length; shard++) {
+      User[] shardUsers = partition(users, shard, User::id);
+      inserted.add(rings[shard].publish(target -> target.insertUsers(shardUsers, results)));
+    }
+    awaitAll(inserted);
+    return Arrays.asList(results);
+  }
+
+  @Override
+  public User getUser(UUID userID) throws NoSuchElementException {
+    return ledgers[0].getUser(userID);
+  }
+
+  @Override
+  public List<Account> getUserAccounts(UUID userID) throws NoSuchElementException {
+    return ledgers[0].getUserAccounts(userID);
+  }
+
+  @Override
+  public Iterator<User> exportUsers() {
+    return ledgers[0].exportUsers();
+  }
+
+  @Override
+  public UserPage findUsers(String countryCode, HolderType type, UUID cursor, int limit)
+      throws IllegalArgumentException {
+    return ledgers[0].findUsers(countryCode, type, cursor, limit);
+  }
+
+  @Override
+  public User updateUser(UUID userId, RequestUser data) throws NoSuchElementException {
+    return execute(ring(userId).publish(target -> target.updateUser(userId, data)));
+  }
+
+  @Override
+  public void deleteUser(UUID userID)
+      throws NoSuchElementException, UnsupportedOperationException {
+    execute(ring(userID).publish(target -> {
+      target.deleteUser(userID);
+      return null;
+    }));
+  }
+
+  /**
+   * Stops business logic threads of all shards after all published commands are applied.
+   */
+  @Override
+  public void close() {
+    for (CommandRing ring : rings) {
+      ring.stop();
+    }
+  }
+
+  private CommandRing ring(UUID id) {
+    return rings[shard(id)];
+  }
+
+  private int shard(UUID id) {
+    return Math.floorMod(id.hashCode(), rings.length);
+  }
+
+  private <T> T[] partition(T[] entities, int shard, Function<T, UUID> key) {
+    T[] shardEntities = Arrays.copyOf(entities, entities.length);
+    for (int i = 0; i < shardEntities.length; i++) {
+      if (shardEntities[i] != null && shard(key.apply(shardEntities[i])) != shard) {
+        shardEntities[i] = null;
+      }
+    }
+    return shardEntities;
+  }
+
+  private void awaitAll(List<CompletableFuture<?>> results) {
+    for (CompletableFuture<?> result : results) {
+      execute(result);
+    }
+  }
+
+  private <T> T execute(CompletableFuture<T> result) {
+    try {
+      return executeFunds(result);
+    } catch (InvalidTypeException | InsufficientResourcesException e) {
+      throw new IllegalStateException("unexpected ledger outcome", e);
+    }
+  }
+
+  private <T> T executeFunds(CompletableFuture<T> result)
+      throws InvalidTypeException, InsufficientResourcesException {
+    T applied = CommandRing.await(result);
+    journal.awaitDurable(journal.appendedPosition());
+    return applied;
+  }
+}
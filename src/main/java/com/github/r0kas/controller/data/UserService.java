@@ -1,8 +1,13 @@
 package com.github.r0kas.controller.data;
 
+import com.github.r0kas.model.data.Account;
 import com.github.r0kas.model.data.HolderType;
 import com.github.r0kas.model.data.User;
+import com.github.r0kas.model.data.UserPage;
+import com.github.r0kas.model.rest.ImportResult;
 import com.github.r0kas.model.rest.RequestUser;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
@@ -20,6 +25,15 @@ public interface UserService {
   UUID createUser(String name, String address, String countryCode, HolderType type)
       throws IllegalArgumentException;
 
+  /**
+   * Creates batch of new users. Invalid records are rejected without affecting the rest
+   * of the batch.
+   *
+   * @param users records of users to create
+   * @return results in the order of provided records, without line numbers
+   */
+  List<ImportResult> importUsers(List<RequestUser> users);
+
   /**
    * Retrieve user instance by providing respective user ID.
    *
@@ -29,6 +43,36 @@ public interface UserService {
    */
   User getUser(UUID userID) throws NoSuchElementException;
 
+  /**
+   * Retrieve all accounts owned by user in one call.
+   *
+   * @param userID UUID of account holder
+   * @return consistent copies of owned accounts
+   * @throws NoSuchElementException if no record is found for provided UUID
+   */
+  List<Account> getUserAccounts(UUID userID) throws NoSuchElementException;
+
+  /**
+   * Iterates over all users. Iteration is weakly consistent: users created or deleted
+   * meanwhile may be skipped, memory use does not depend on number of users.
+   *
+   * @return iterator over users
+   */
+  Iterator<User> exportUsers();
+
+  /**
+   * Retrieve page of users matching provided filters, in id order.
+   *
+   * @param countryCode country code of users, null for any
+   * @param type user type, null for any
+   * @param cursor cursor returned with previous page, null for the first page
+   * @param limit maximum number of users, from 1 to 100
+   * @return page of matching users
+   * @throws IllegalArgumentException if country code is not valid or limit is out of range
+   */
+  UserPage findUsers(String countryCode, HolderType type, UUID cursor, int limit)
+      throws IllegalArgumentException;
+
   /**
    * Updates account user in application's persistence layer.
    *
@@ -17,31 +17,26 @@ import javax.naming.InsufficientResourcesException;
 
 final class Utils {
 
+  static final int MAX_PAGE_LIMIT = 100;
+
   private static final Set<String> ISO_COUNTRIES =
       new HashSet<>(Arrays.asList(Locale.getISOCountries()));
 
   static User modifyUser(User user, RequestUser modData) {
     String name = Objects.requireNonNullElse(modData.name(), user.name());
-    user.setName(name);
-
     String address = Objects.requireNonNullElse(modData.address(), user.address());
-    user.setAddress(address);
-
     String countryCode = Objects.requireNonNullElse(modData.countryCode(), user.countryCode());
     validateCountryCode(countryCode);
-    user.setCountryCode(countryCode);
-
     HolderType type = Objects.requireNonNullElse(modData.type(), user.type());
-    user.setType(type);
 
-    user.setUpdatedOn(ZonedDateTime.now(ZoneOffset.UTC));
-    return user;
+    return user.withDetails(name, address, countryCode, type,
+        ZonedDateTime.now(ZoneOffset.UTC));
   }
 
-  static void validateBalance(double actual, double toWithdraw)
+  static void validateBalance(long actual, long toWithdraw)
       throws InsufficientResourcesException {
     if (actual < toWithdraw) {
-      throw new InsufficientResourcesException("balance too low to withdraw " + toWithdraw);
+      throw new InsufficientFundsException("balance too low to withdraw " + toWithdraw);
     }
   }
 
@@ -49,7 +44,13 @@ final class Utils {
     if (source.equals(target)) {
       return;
     }
-    throw new InvalidTypeException("currencies do not match");
+    throw new CurrencyMismatchException("currencies do not match");
+  }
+
+  static void validatePageLimit(int limit) throws IllegalArgumentException {
+    if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_LIMIT);
+    }
   }
 
   static void validateCountryCode(String countryCode) throws IllegalArgumentException {
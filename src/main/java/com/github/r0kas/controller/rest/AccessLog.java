@@ -0,0 +1,75 @@
+package com.github.r0kas.controller.rest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Access log writes one structured line per request to {@value #LOGGER} logger:
+ *
+ * <pre>
+ * requestId=... method=POST route=/account/transfer status=200 latencyMicros=120
+ * </pre>
+ *
+ * <p>Successful requests can be sampled, failed ones are always offered to the logger.
+ * Failed requests are logged as warnings or errors, so asynchronous appender discarding
+ * info events under pressure keeps them longer.
+ */
+public final class AccessLog {
+
+  /**
+   * Name of access logger.
+   */
+  public static final String LOGGER = "transferful.access";
+
+  private static final Logger log = LoggerFactory.getLogger(LOGGER);
+
+  private final int sampleRate;
+
+  /**
+   * Instantiates access log recording every request.
+   */
+  public AccessLog() {
+    this(1);
+  }
+
+  /**
+   * Instantiates access log recording on average one of every sample rate successful
+   * requests.
+   *
+   * @param sampleRate successful requests per recorded one, at least 1
+   * @throws IllegalArgumentException if sample rate is less than 1
+   */
+  public AccessLog(int sampleRate) {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("access log sample rate must be at least 1");
+    }
+    this.sampleRate = sampleRate;
+  }
+
+  void record(String requestId, String method, String route, int status, long latencyNanos) {
+    if (!log.isInfoEnabled()) {
+      return;
+    }
+    boolean failed = status >= 400;
+    if (!failed && sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+      return;
+    }
+
+    String line = new StringBuilder(128)
+        .append("requestId=").append(requestId)
+        .append(" method=").append(method)
+        .append(" route=").append(route)
+        .append(" status=").append(status)
+        .append(" latencyMicros=").append(TimeUnit.NANOSECONDS.toMicros(latencyNanos))
+        .toString();
+    if (status >= 500) {
+      log.error(line);
+    } else if (failed) {
+      log.warn(line);
+    } else {
+      log.info(line);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.github.r0kas.controller.rest;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.github.r0kas.model.rest.ImportResult;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Bulk import reads newline delimited records from request body and imports them in batches.
+ * Results are produced in input order while they are iterated and the next batch is read only
+ * once results of the previous one are consumed, so neither the body nor the results are ever
+ * held in memory as a whole.
+ *
+ * <p>Record which cannot be mapped to request type is rejected on its own. Malformed JSON
+ * ends the import, as the rest of the body cannot be split into records reliably.
+ *
+ * @param <T> request type of records
+ */
+final class BulkImport<T> implements Iterator<ImportResult> {
+
+  static final int BATCH_SIZE = 1024;
+
+  private final MappingIterator<T> records;
+  private final Function<List<T>, List<ImportResult>> importer;
+  private final List<ImportResult> results = new ArrayList<>(BATCH_SIZE);
+  private final long[] lines = new long[BATCH_SIZE];
+  private final ImportResult[] rejected = new ImportResult[BATCH_SIZE];
+  private int next;
+  private boolean exhausted;
+
+  /**
+   * Instantiates bulk import.
+   *
+   * @param records  records read from request body
+   * @param importer service call importing batch of records
+   */
+  BulkImport(MappingIterator<T> records, Function<List<T>, List<ImportResult>> importer) {
+    this.records = records;
+    this.importer = importer;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == results.size() && !exhausted) {
+      importBatch();
+    }
+    return next < results.size();
+  }
+
+  @Override
+  public ImportResult next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return results.get(next++);
+  }
+
+  private void importBatch() {
+    List<T> batch = new ArrayList<>(BATCH_SIZE);
+    int count = 0;
+    while (count < BATCH_SIZE && !exhausted) {
+      rejected[count] = null;
+      try {
+        if (!records.hasNextValue()) {
+          exhausted = true;
+          break;
+        }
+        lines[count] = records.getParser().getTokenLocation().getLineNr();
+        T record = records.nextValue();
+        if (record == null) {
+          rejected[count] = ImportResult.rejected("record must be a JSON object");
+        } else {
+          batch.add(record);
+        }
+      } catch (JsonParseException e) {
+        lines[count] = e.getLocation() == null ? lines[count] : e.getLocation().getLineNr();
+        rejected[count] = ImportResult.rejected(e.getOriginalMessage());
+        exhausted = true;
+      } catch (JsonMappingException e) {
+        rejected[count] = ImportResult.rejected(e.getOriginalMessage());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      count++;
+    }
+    List<ImportResult> imported = batch.isEmpty()
+        ? Collections.emptyList() : importer.apply(batch);
+    results.clear();
+    next = 0;
+    for (int i = 0, j = 0; i < count; i++) {
+      ImportResult result = rejected[i] != null ? rejected[i] : imported.get(j++);
+      results.add(result.atLine(lines[i]));
+    }
+  }
+}
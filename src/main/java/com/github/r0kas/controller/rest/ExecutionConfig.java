@@ -0,0 +1,119 @@
+package com.github.r0kas.controller.rest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+/**
+ * Execution config defines threads serving requests of embedded Jetty server.
+ * It must be applied before service registers its first endpoint.
+ */
+public final class ExecutionConfig {
+
+  private static final Method VIRTUAL_EXECUTOR = virtualExecutorFactory();
+
+  private final ThreadPool threadPool;
+  private final String description;
+
+  private ExecutionConfig(ThreadPool threadPool, String description) {
+    this.threadPool = threadPool;
+    this.description = description;
+  }
+
+  /**
+   * Spark default thread pool, up to 200 threads with unbounded queue.
+   *
+   * @return default execution config
+   */
+  public static ExecutionConfig defaults() {
+    return new ExecutionConfig(null, "default pool");
+  }
+
+  /**
+   * Thread pool with bounded number of threads and bounded queue of waiting tasks.
+   * Connections which cannot be queued are rejected instead of waiting for a thread.
+   *
+   * @param maxThreads        maximum number of pool threads
+   * @param minThreads        number of threads kept when idle
+   * @param queueCapacity     maximum number of tasks waiting for a thread
+   * @param idleTimeoutMillis time after which idle thread above minimum is stopped
+   * @return bounded pool execution config
+   * @throws IllegalArgumentException if limits are not positive or min exceeds max
+   */
+  public static ExecutionConfig boundedPool(int maxThreads, int minThreads, int queueCapacity,
+                                            int idleTimeoutMillis) {
+    if (minThreads < 1 || maxThreads < minThreads || queueCapacity < 1 || idleTimeoutMillis < 1) {
+      throw new IllegalArgumentException("invalid thread pool limits: max " + maxThreads
+          + ", min " + minThreads + ", queue " + queueCapacity
+          + ", idle timeout " + idleTimeoutMillis);
+    }
+    QueuedThreadPool pool = new QueuedThreadPool(maxThreads, minThreads, idleTimeoutMillis,
+        new BlockingArrayQueue<>(minThreads, minThreads, queueCapacity));
+    pool.setName("transferful-pool");
+    return new ExecutionConfig(pool, "bounded pool of " + maxThreads + " threads and "
+        + queueCapacity + " queued tasks");
+  }
+
+  /**
+   * New virtual thread for every task, so blocked requests do not hold pool threads.
+   *
+   * @return virtual thread execution config
+   * @throws UnsupportedOperationException if running JDK has no virtual threads
+   */
+  public static ExecutionConfig virtualThreads() {
+    if (!virtualThreadsSupported()) {
+      throw new UnsupportedOperationException("virtual threads require JDK 21 or newer, running "
+          + System.getProperty("java.version"));
+    }
+    return new ExecutionConfig(new VirtualThreadPool(ExecutionConfig::newVirtualExecutor),
+        "virtual thread per task");
+  }
+
+  /**
+   * Checks if running JDK can create virtual thread per task executor.
+   *
+   * @return true if virtual threads are available
+   */
+  public static boolean virtualThreadsSupported() {
+    return VIRTUAL_EXECUTOR != null;
+  }
+
+  ThreadPool threadPool() {
+    return threadPool;
+  }
+
+  void apply() {
+    EmbeddedJettyFactory factory = new EmbeddedJettyFactory();
+    if (threadPool != null) {
+      factory.withThreadPool(threadPool);
+    }
+    EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, factory);
+  }
+
+  @Override
+  public String toString() {
+    return description;
+  }
+
+  private static ExecutorService newVirtualExecutor() {
+    try {
+      return (ExecutorService) VIRTUAL_EXECUTOR.invoke(null);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("failed to create virtual thread executor", e);
+    }
+  }
+
+  private static Method virtualExecutorFactory() {
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
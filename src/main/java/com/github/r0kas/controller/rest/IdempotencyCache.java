@@ -0,0 +1,195 @@
+package com.github.r0kas.controller.rest;
+
+import com.github.r0kas.model.rest.Response;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.eclipse.jetty.http.HttpStatus;
+
+/**
+ * Idempotency cache keeps responses of requests sent with idempotency key. Number of kept
+ * responses is bounded and every response expires after configured time from its execution.
+ *
+ * <p>Requests in flight are kept apart from completed responses and are never evicted, so a
+ * duplicate cannot execute while the first request with its key still runs. Every key is
+ * bound to hash of the request body it was first used with.
+ */
+public final class IdempotencyCache {
+
+  private static final Duration DEFAULT_WAIT = Duration.ofSeconds(30);
+
+  private final ConcurrentMap<String, Entry> inFlight = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Entry> completed;
+  private final long waitNanos;
+
+  /**
+   * Instantiates idempotency cache.
+   *
+   * @param maximumSize maximum number of kept responses, least recently used are evicted first
+   * @param ttl         time for which response is kept after request is completed
+   */
+  public IdempotencyCache(long maximumSize, Duration ttl) {
+    this(maximumSize, ttl, DEFAULT_WAIT);
+  }
+
+  /**
+   * Instantiates idempotency cache with provided wait for requests in flight.
+   *
+   * @param maximumSize maximum number of kept responses, least recently used are evicted first
+   * @param ttl         time for which response is kept after request is completed
+   * @param wait        how long duplicate waits for response of request in flight
+   */
+  public IdempotencyCache(long maximumSize, Duration ttl, Duration wait) {
+    this.completed = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .<String, Entry>build()
+        .asMap();
+    this.waitNanos = wait.toNanos();
+  }
+
+  /**
+   * Claims execution of request with given key. If the same key is being executed by another
+   * request, waits until it completes and returns claim to replay its response.
+   *
+   * @param key         request idempotency key
+   * @param fingerprint hash of request body
+   * @return claim to execute request or to replay stored response
+   * @throws IdempotencyConflictException if key was used with another body or request in
+   *                                      flight did not complete in time
+   * @throws InterruptedException         if interrupted while waiting for request in flight
+   */
+  Claim claim(String key, HashCode fingerprint) throws InterruptedException {
+    Entry pending = new Entry(fingerprint);
+    while (true) {
+      Entry done = completed.get(key);
+      if (done != null) {
+        return replay(key, done, fingerprint);
+      }
+      Entry existing = inFlight.putIfAbsent(key, pending);
+      if (existing == null) {
+        // owner of the key completed between both lookups
+        done = completed.get(key);
+        if (done != null) {
+          inFlight.remove(key, pending);
+          pending.response.complete(null);
+          return replay(key, done, fingerprint);
+        }
+        return new Claim(key, pending, null);
+      }
+      validateFingerprint(existing, fingerprint);
+      StoredResponse stored = await(existing.response);
+      if (stored != null) {
+        return new Claim(key, existing, stored);
+      }
+      // first request gave up its key, retry as owner
+    }
+  }
+
+  private Claim replay(String key, Entry done, HashCode fingerprint) {
+    validateFingerprint(done, fingerprint);
+    return new Claim(key, done, done.response.getNow(null));
+  }
+
+  private static void validateFingerprint(Entry entry, HashCode fingerprint) {
+    if (!entry.fingerprint.equals(fingerprint)) {
+      throw new IdempotencyConflictException(HttpStatus.UNPROCESSABLE_ENTITY_422,
+          "idempotency key was already used with another request body");
+    }
+  }
+
+  private StoredResponse await(CompletableFuture<StoredResponse> response)
+      throws InterruptedException {
+    try {
+      return response.get(waitNanos, TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      return null;
+    } catch (TimeoutException e) {
+      throw new IdempotencyConflictException(HttpStatus.CONFLICT_409,
+          "request with the same idempotency key is still in progress");
+    }
+  }
+
+  private static final class Entry {
+
+    private final HashCode fingerprint;
+    private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+    private Entry(HashCode fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+  }
+
+  /**
+   * Claim of idempotency key.
+   */
+  final class Claim {
+
+    private final String key;
+    private final Entry entry;
+    private final StoredResponse replay;
+
+    private Claim(String key, Entry entry, StoredResponse replay) {
+      this.key = key;
+      this.entry = entry;
+      this.replay = replay;
+    }
+
+    /**
+     * Response of earlier request with the same key.
+     *
+     * @return stored response or null if request must be executed
+     */
+    StoredResponse replay() {
+      return replay;
+    }
+
+    /**
+     * Stores response of executed request and releases waiting duplicates.
+     */
+    void complete(int status, Response body) {
+      if (replay == null && entry.response.complete(new StoredResponse(status, body))) {
+        completed.put(key, entry);
+        inFlight.remove(key, entry);
+      }
+    }
+
+    /**
+     * Gives up key without response, so the next request with it is executed again.
+     */
+    void abandon() {
+      if (replay == null && !entry.response.isDone()) {
+        inFlight.remove(key, entry);
+        entry.response.complete(null);
+      }
+    }
+  }
+
+  /**
+   * Response of request executed with idempotency key.
+   */
+  static final class StoredResponse {
+
+    private final int status;
+    private final Response body;
+
+    private StoredResponse(int status, Response body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    int status() {
+      return status;
+    }
+
+    Response body() {
+      return body;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.github.r0kas.controller.rest;
+
+/**
+ * Thrown when request cannot be matched with earlier request sent with the same idempotency
+ * key. Conflict is ordinary outcome of a request, so stack trace is not filled in.
+ */
+final class IdempotencyConflictException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int status;
+
+  /**
+   * Instantiates a new idempotency conflict exception.
+   *
+   * @param status  response status of rejected request
+   * @param message the detail message
+   */
+  IdempotencyConflictException(int status, String message) {
+    super(message);
+    this.status = status;
+  }
+
+  /**
+   * Getter for response status of rejected request.
+   *
+   * @return response status
+   */
+  int status() {
+    return status;
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,106 @@
+package com.github.r0kas.controller.rest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with log-linear buckets. Every power of two range is split into 32 equal
+ * buckets, so recorded values are kept with at most ~3% relative error. Recording is two atomic
+ * increments without locks or allocation.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_MAGNITUDE = 36;
+  private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  /**
+   * Highest distinguishable value in nanoseconds, ~68 seconds. Longer latencies are counted in
+   * the last bucket.
+   */
+  static final long MAX_VALUE = (1L << MAX_MAGNITUDE) - 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong sum = new AtomicLong();
+
+  void record(long nanos) {
+    long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+    counts.incrementAndGet(index(value));
+    sum.addAndGet(value);
+  }
+
+  /**
+   * Copies current bucket counts. Concurrent recordings may be partially included.
+   *
+   * @return histogram snapshot
+   */
+  Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+      count += copy[i];
+    }
+    return new Snapshot(copy, count, sum.get());
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    int subBucket = index % SUB_BUCKETS;
+    return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * Point in time copy of histogram.
+   */
+  static final class Snapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+
+    private Snapshot(long[] counts, long count, long sum) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+    }
+
+    long count() {
+      return count;
+    }
+
+    long sum() {
+      return sum;
+    }
+
+    /**
+     * Value at given quantile, reported as the highest value of its bucket.
+     *
+     * @param quantile between 0 and 1
+     * @return value in nanoseconds, 0 if nothing was recorded
+     */
+    long valueAt(double quantile) {
+      long rank = Math.max(1, (long) Math.ceil(quantile * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return highestValue(i);
+        }
+      }
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.github.r0kas.controller.rest;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random request id generator produces version 4 UUIDs from thread local random, without
+ * contending on shared secure random as {@link UUID#randomUUID()} does.
+ */
+enum RandomRequestIdGenerator implements RequestIdGenerator {
+  INSTANCE;
+
+  @Override
+  public UUID next() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return new UUID(random.nextLong() & ~0xF000L | 0x4000L,
+        random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL | 0x8000_0000_0000_0000L);
+  }
+}
@@ -0,0 +1,36 @@
+package com.github.r0kas.controller.rest;
+
+import java.util.UUID;
+
+/**
+ * Request id generator assigns ids to requests which do not carry their own.
+ * Generators are called on every request thread and must not block.
+ */
+public interface RequestIdGenerator {
+
+  /**
+   * Generator of time ordered ids. Ids start with creation millisecond, so they sort by
+   * time, the rest comes from counter of calling thread without any shared state.
+   *
+   * @return time ordered id generator
+   */
+  static RequestIdGenerator timeOrdered() {
+    return TimeOrderedRequestIdGenerator.INSTANCE;
+  }
+
+  /**
+   * Generator of random ids drawn from thread local random.
+   *
+   * @return random id generator
+   */
+  static RequestIdGenerator random() {
+    return RandomRequestIdGenerator.INSTANCE;
+  }
+
+  /**
+   * Generates next request id.
+   *
+   * @return unique request id
+   */
+  UUID next();
+}
@@ -0,0 +1,112 @@
+package com.github.r0kas.controller.rest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.r0kas.model.rest.RequestAccount;
+import com.github.r0kas.model.rest.RequestDepositWithdraw;
+import com.github.r0kas.model.rest.RequestTransfer;
+import com.github.r0kas.model.rest.RequestUser;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Request reader deserializes request bodies straight from servlet input stream. Readers
+ * are built once per request type, body is neither copied into byte array nor decoded
+ * into string.
+ *
+ * <p>Spark caches body when it is requested through its wrapper, so request body must not
+ * be read by other means before or after this reader.
+ */
+final class RequestReader {
+
+  private final Map<Class<?>, ObjectReader> readers;
+
+  /**
+   * Instantiates request reader.
+   *
+   * @param mapper mapper to base request deserialization on
+   */
+  RequestReader(ObjectMapper mapper) {
+    ImmutableMap.Builder<Class<?>, ObjectReader> builder = ImmutableMap.builder();
+    for (Class<?> type : new Class<?>[] {RequestAccount.class, RequestDepositWithdraw.class,
+        RequestTransfer.class, RequestUser.class}) {
+      builder.put(type, mapper.readerFor(type).without(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+    }
+    this.readers = builder.build();
+  }
+
+  /**
+   * Reads request body as provided request type.
+   *
+   * @param request servlet request
+   * @param type    request type, one of request models
+   * @param <T>     request type
+   * @return request
+   * @throws IOException if body cannot be read or mapped to request type
+   */
+  <T> T read(HttpServletRequest request, Class<T> type) throws IOException {
+    return reader(type).readValue(body(request));
+  }
+
+  /**
+   * Reads request body kept in byte array as provided request type.
+   *
+   * @param body request body
+   * @param type request type, one of request models
+   * @param <T>  request type
+   * @return request
+   * @throws IOException if body cannot be mapped to request type
+   */
+  <T> T read(byte[] body, Class<T> type) throws IOException {
+    return reader(type).readValue(body);
+  }
+
+  /**
+   * Reads whole request body into byte array, for requests whose body has to be inspected
+   * before it is mapped.
+   *
+   * @param request servlet request
+   * @return request body
+   * @throws IOException if body cannot be read
+   */
+  byte[] readBytes(HttpServletRequest request) throws IOException {
+    return body(request).readAllBytes();
+  }
+
+  /**
+   * Opens iterator reading request body as a sequence of whitespace separated requests of
+   * provided type, such as newline delimited JSON. Requests are parsed one at a time as they
+   * are iterated.
+   *
+   * @param request servlet request
+   * @param type    request type, one of request models
+   * @param <T>     request type
+   * @return iterator over requests
+   * @throws IOException if body cannot be read
+   */
+  <T> MappingIterator<T> readLines(HttpServletRequest request, Class<T> type)
+      throws IOException {
+    return reader(type).readValues(body(request));
+  }
+
+  private ObjectReader reader(Class<?> type) {
+    ObjectReader reader = readers.get(type);
+    if (reader == null) {
+      throw new IllegalArgumentException("unsupported request type: " + type.getName());
+    }
+    return reader;
+  }
+
+  private static InputStream body(HttpServletRequest request) throws IOException {
+    ServletRequest unwrapped = request instanceof HttpServletRequestWrapper
+        ? ((HttpServletRequestWrapper) request).getRequest() : request;
+    return unwrapped.getInputStream();
+  }
+}
@@ -0,0 +1,111 @@
+package com.github.r0kas.controller.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.r0kas.model.rest.Response;
+import com.github.r0kas.model.rest.ResponseModule;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Response writer serializes responses straight into servlet output stream. Writers are
+ * built once, output is compact unless pretty printing is requested.
+ *
+ * <p>Streams of entities are written as newline delimited JSON through one generator, which
+ * hands its buffer to servlet stream whenever it fills up. Blocking servlet writes keep a slow
+ * client from being sent more than the server buffers hold. Status of the stream is sent with
+ * its first bytes, so values failing to be produced afterwards end the stream with terminal
+ * error line instead of error response.
+ */
+final class ResponseWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(ResponseWriter.class);
+
+  private final ObjectWriter compact;
+  private final ObjectWriter pretty;
+  private final ObjectWriter lines;
+
+  /**
+   * Instantiates response writer. Provided mapper configuration is copied and left intact.
+   *
+   * @param mapper mapper to base response serialization on
+   */
+  ResponseWriter(ObjectMapper mapper) {
+    ObjectMapper responseMapper = mapper.copy().registerModule(new ResponseModule());
+    ObjectWriter writer = responseMapper
+        .writerFor(Response.class)
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.compact = writer;
+    this.pretty = writer.withDefaultPrettyPrinter();
+    this.lines = responseMapper.writer()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  /**
+   * Writes response as UTF-8 JSON to servlet output stream. If response cannot be
+   * serialized, generic server error is written instead.
+   *
+   * @param raw         servlet response, status and content type have to be already set
+   * @param response    response to write
+   * @param prettyPrint whether output should be indented
+   * @throws IOException if output stream cannot be written
+   */
+  void write(HttpServletResponse raw, Response response, boolean prettyPrint)
+      throws IOException {
+    try {
+      (prettyPrint ? pretty : compact).writeValue(raw.getOutputStream(), response);
+    } catch (JsonProcessingException e) {
+      log.error("failed to serialize response: " + e.toString());
+      if (!raw.isCommitted()) {
+        raw.resetBuffer();
+        raw.getOutputStream().write(
+            "{\"status\":\"Server Error\"}".getBytes(StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  /**
+   * Writes values as UTF-8 newline delimited JSON to servlet output stream, one line per value.
+   * Values are serialized as they are iterated, none of them is retained. If iteration fails,
+   * provided failure is written as the last line and stream ends.
+   *
+   * @param raw     servlet response, status and content type have to be already set
+   * @param type    serialized type of values
+   * @param values  values to write
+   * @param failure terminal line written when values cannot be iterated to the end
+   * @param <T>     type of values
+   * @throws IOException if output stream cannot be written
+   */
+  <T> void writeLines(HttpServletResponse raw, Class<T> type, Iterator<? extends T> values,
+                      Response failure) throws IOException {
+    ObjectWriter writer = lines.forType(type);
+    try (JsonGenerator generator = writer.getFactory()
+        .createGenerator(raw.getOutputStream())
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+      generator.setRootValueSeparator(null);
+      while (true) {
+        T value;
+        try {
+          if (!values.hasNext()) {
+            return;
+          }
+          value = values.next();
+        } catch (RuntimeException e) {
+          log.error("streamed response failed: " + e.toString());
+          lines.forType(Response.class).writeValue(generator, failure);
+          generator.writeRaw('\n');
+          return;
+        }
+        writer.writeValue(generator, value);
+        generator.writeRaw('\n');
+      }
+    }
+  }
+}
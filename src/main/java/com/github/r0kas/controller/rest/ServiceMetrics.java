@@ -0,0 +1,104 @@
+package com.github.r0kas.controller.rest;
+
+import com.github.r0kas.controller.data.MeteredAccountService;
+import com.google.common.collect.ImmutableSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Service metrics keep latency histogram for every method, route and status combination and
+ * expose them together with ledger counters in Prometheus text format. Methods other than
+ * standard HTTP methods share one bucket, so clients cannot grow metrics without bound.
+ */
+final class ServiceMetrics {
+
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final int STATUSES = 600;
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+  private static final double NANOS_PER_SECOND = 1e9;
+  private static final String OTHER_METHOD = "OTHER";
+  private static final Set<String> METHODS = ImmutableSet.of(
+      "GET", "HEAD", "POST", "PUT", "DELETE", "PATCH", "OPTIONS", "TRACE", "CONNECT");
+
+  private final Map<String, Map<String, Endpoint>> endpoints = new ConcurrentHashMap<>();
+  private final MeteredAccountService ledger;
+
+  ServiceMetrics(MeteredAccountService ledger) {
+    this.ledger = ledger;
+  }
+
+  void record(String method, String route, int status, long latencyNanos) {
+    String bucket = METHODS.contains(method) ? method : OTHER_METHOD;
+    endpoints.computeIfAbsent(bucket, key -> new ConcurrentHashMap<>())
+        .computeIfAbsent(route, key -> new Endpoint())
+        .histogram(status)
+        .record(latencyNanos);
+  }
+
+  String scrape() {
+    StringBuilder requests = new StringBuilder(1024)
+        .append("# HELP transferful_requests_total Completed requests.\n")
+        .append("# TYPE transferful_requests_total counter\n");
+    StringBuilder latency = new StringBuilder(4096)
+        .append("# HELP transferful_request_duration_seconds Request latency.\n")
+        .append("# TYPE transferful_request_duration_seconds summary\n");
+
+    endpoints.forEach((method, routes) -> routes.forEach((route, endpoint) -> {
+      for (int status = 0; status < STATUSES; status++) {
+        LatencyHistogram histogram = endpoint.statuses.get(status);
+        if (histogram == null) {
+          continue;
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        String labels = "method=\"" + escape(method) + "\",route=\"" + escape(route)
+            + "\",status=\"" + status + "\"";
+
+        requests.append("transferful_requests_total{").append(labels).append("} ")
+            .append(snapshot.count()).append('\n');
+        for (double quantile : QUANTILES) {
+          latency.append("transferful_request_duration_seconds{").append(labels)
+              .append(",quantile=\"").append(quantile).append("\"} ")
+              .append(snapshot.valueAt(quantile) / NANOS_PER_SECOND).append('\n');
+        }
+        latency.append("transferful_request_duration_seconds_sum{").append(labels).append("} ")
+            .append(snapshot.sum() / NANOS_PER_SECOND).append('\n');
+        latency.append("transferful_request_duration_seconds_count{").append(labels).append("} ")
+            .append(snapshot.count()).append('\n');
+      }
+    }));
+
+    return requests.append(latency)
+        .append("# HELP transferful_ledger_transfers_total Transfers by outcome.\n")
+        .append("# TYPE transferful_ledger_transfers_total counter\n")
+        .append("transferful_ledger_transfers_total{outcome=\"applied\"} ")
+        .append(ledger.transfersApplied()).append('\n')
+        .append("transferful_ledger_transfers_total{outcome=\"insufficient_funds\"} ")
+        .append(ledger.transfersInsufficientFunds()).append('\n')
+        .append("transferful_ledger_transfers_total{outcome=\"currency_mismatch\"} ")
+        .append(ledger.transfersCurrencyMismatch()).append('\n')
+        .toString();
+  }
+
+  private static String escape(String label) {
+    return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static final class Endpoint {
+
+    private final AtomicReferenceArray<LatencyHistogram> statuses =
+        new AtomicReferenceArray<>(STATUSES);
+
+    LatencyHistogram histogram(int status) {
+      int index = 0 <= status && status < STATUSES ? status : 0;
+      LatencyHistogram histogram = statuses.get(index);
+      if (histogram == null) {
+        statuses.compareAndSet(index, null, new LatencyHistogram());
+        histogram = statuses.get(index);
+      }
+      return histogram;
+    }
+  }
+}
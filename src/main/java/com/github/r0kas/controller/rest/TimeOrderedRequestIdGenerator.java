@@ -0,0 +1,51 @@
+package com.github.r0kas.controller.rest;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time ordered request id generator produces version 7 UUIDs. Most significant bits hold
+ * epoch millisecond and the rest identify process, thread and per thread sequence number:
+ *
+ * <pre>
+ * | epoch millis (48) | version (4) | sequence high (12) |
+ * | variant (2) | process (14) | thread (16) | sequence low (32) |
+ * </pre>
+ *
+ * <p>Sequence of each thread starts at random value, so threads reusing thread number
+ * after many threads were created do not repeat ids of their predecessors.
+ */
+enum TimeOrderedRequestIdGenerator implements RequestIdGenerator {
+  INSTANCE;
+
+  private static final long VERSION = 0x7000L;
+  private static final long VARIANT = 0x8000_0000_0000_0000L;
+  private static final long SEQUENCE_MASK = (1L << 44) - 1;
+  private static final long PROCESS = (new SecureRandom().nextLong() & 0x3FFFL) << 48;
+  private static final AtomicInteger THREADS = new AtomicInteger();
+  private static final ThreadLocal<Sequence> SEQUENCES = ThreadLocal.withInitial(Sequence::new);
+
+  @Override
+  public UUID next() {
+    Sequence sequence = SEQUENCES.get();
+    long value = sequence.next();
+    return new UUID(System.currentTimeMillis() << 16 | VERSION | value >>> 32,
+        VARIANT | PROCESS | sequence.thread | value & 0xFFFF_FFFFL);
+  }
+
+  /**
+   * Sequence of ids generated by single thread.
+   */
+  private static final class Sequence {
+
+    private final long thread = (THREADS.getAndIncrement() & 0xFFFFL) << 32;
+    private long value = ThreadLocalRandom.current().nextLong() & SEQUENCE_MASK;
+
+    long next() {
+      value = (value + 1) & SEQUENCE_MASK;
+      return value;
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package com.github.r0kas.controller.rest;
 
+import static spark.Spark.afterAfter;
 import static spark.Spark.awaitStop;
+import static spark.Spark.before;
 import static spark.Spark.delete;
 import static spark.Spark.exception;
 import static spark.Spark.get;
@@ -8,24 +10,42 @@ import static spark.Spark.patch;
 import static spark.Spark.port;
 import static spark.Spark.post;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.github.r0kas.controller.data.AccountService;
+import com.github.r0kas.controller.data.CurrencyMismatchException;
+import com.github.r0kas.controller.data.EntityNotFoundException;
+import com.github.r0kas.controller.data.InsufficientFundsException;
+import com.github.r0kas.controller.data.MeteredAccountService;
 import com.github.r0kas.controller.data.UserService;
+import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.User;
+import com.github.r0kas.model.rest.ImportResult;
 import com.github.r0kas.model.rest.RequestAccount;
 import com.github.r0kas.model.rest.RequestDepositWithdraw;
 import com.github.r0kas.model.rest.RequestTransfer;
 import com.github.r0kas.model.rest.RequestUser;
 import com.github.r0kas.model.rest.Response;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
 import com.sun.jdi.InvalidTypeException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.function.Function;
 import javax.naming.InsufficientResourcesException;
 import org.eclipse.jetty.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import spark.ExceptionHandler;
+import spark.Request;
+import spark.Route;
 
 /**
  * TransferFul service expose rest endpoints representing application logic and functionality.
@@ -34,7 +54,33 @@ public class TransferFulService {
 
   private static final Logger log = LoggerFactory.getLogger(TransferFulService.class);
   private static final int DEFAULT_SERVER_PORT = 4567;
-  private ObjectMapper mapper;
+  private static final Splitter QUERY_SPLITTER = Splitter.on('&');
+  private static final String REQUEST_ID_HEADER = "X-Request-Id";
+  private static final String REQUEST_ID_ATTRIBUTE = "requestId";
+  private static final String REQUEST_ID_MDC = "requestId";
+  private static final String ROUTE_ATTRIBUTE = "route";
+  private static final String START_ATTRIBUTE = "startNanos";
+  private static final String UNMATCHED_ROUTE = "unmatched";
+  private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  private static final String IDEMPOTENT_REPLAY_HEADER = "Idempotent-Replayed";
+  private static final String IDEMPOTENCY_ATTRIBUTE = "idempotencyClaim";
+  private static final String IDEMPOTENT_BODY_ATTRIBUTE = "idempotentBody";
+  private static final int DEFAULT_PAGE_LIMIT = 20;
+  private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+  private static final long IDEMPOTENCY_MAX_KEYS = 100_000;
+  private static final Duration IDEMPOTENCY_TTL = Duration.ofHours(1);
+  private static final int CLIENT_KEY_MAX_LENGTH = 64;
+  private static final CharMatcher CLIENT_KEY_CHARS = CharMatcher.inRange('a', 'z')
+      .or(CharMatcher.inRange('A', 'Z'))
+      .or(CharMatcher.inRange('0', '9'))
+      .or(CharMatcher.anyOf("-_.:"))
+      .precomputed();
+  private RequestIdGenerator requestIds;
+  private AccessLog accessLog;
+  private ServiceMetrics metrics;
+  private IdempotencyCache idempotency;
+  private RequestReader requestReader;
+  private ResponseWriter responseWriter;
   private AccountService accountService;
   private UserService userService;
 
@@ -48,8 +94,67 @@ public class TransferFulService {
   public TransferFulService(ObjectMapper mapper,
                             AccountService accountService,
                             UserService userService) {
-    this.mapper = mapper;
-    this.accountService = accountService;
+    this(mapper, accountService, userService, RequestIdGenerator.timeOrdered());
+  }
+
+  /**
+   * Instantiates a new Transfer ful service with provided request id generator.
+   *
+   * @param mapper         Jackson Object mapper instance
+   * @param accountService Initialised account service instance
+   * @param userService    Initialised user service instance
+   * @param requestIds     generator of ids for requests without X-Request-Id header
+   */
+  public TransferFulService(ObjectMapper mapper,
+                            AccountService accountService,
+                            UserService userService,
+                            RequestIdGenerator requestIds) {
+    this(mapper, accountService, userService, requestIds, new AccessLog());
+  }
+
+  /**
+   * Instantiates a new Transfer ful service with provided request id generator and access log.
+   *
+   * @param mapper         Jackson Object mapper instance
+   * @param accountService Initialised account service instance
+   * @param userService    Initialised user service instance
+   * @param requestIds     generator of ids for requests without X-Request-Id header
+   * @param accessLog      access log recording completed requests
+   */
+  public TransferFulService(ObjectMapper mapper,
+                            AccountService accountService,
+                            UserService userService,
+                            RequestIdGenerator requestIds,
+                            AccessLog accessLog) {
+    this(mapper, accountService, userService, requestIds, accessLog,
+        new IdempotencyCache(IDEMPOTENCY_MAX_KEYS, IDEMPOTENCY_TTL));
+  }
+
+  /**
+   * Instantiates a new Transfer ful service with provided request id generator, access log and
+   * idempotency cache.
+   *
+   * @param mapper         Jackson Object mapper instance
+   * @param accountService Initialised account service instance
+   * @param userService    Initialised user service instance
+   * @param requestIds     generator of ids for requests without X-Request-Id header
+   * @param accessLog      access log recording completed requests
+   * @param idempotency    cache of responses to requests with Idempotency-Key header
+   */
+  public TransferFulService(ObjectMapper mapper,
+                            AccountService accountService,
+                            UserService userService,
+                            RequestIdGenerator requestIds,
+                            AccessLog accessLog,
+                            IdempotencyCache idempotency) {
+    this.requestIds = requestIds;
+    this.idempotency = idempotency;
+    MeteredAccountService ledger = new MeteredAccountService(accountService);
+    this.accessLog = accessLog;
+    this.metrics = new ServiceMetrics(ledger);
+    this.requestReader = new RequestReader(mapper);
+    this.responseWriter = new ResponseWriter(mapper);
+    this.accountService = ledger;
     this.userService = userService;
   }
 
@@ -57,12 +162,25 @@ public class TransferFulService {
    * Start registers available service endpoints and starts web server.
    */
   public void start(String portArgument) {
+    start(portArgument, ExecutionConfig.defaults());
+  }
+
+  /**
+   * Start registers available service endpoints and starts web server serving requests
+   * with provided execution config.
+   */
+  public void start(String portArgument, ExecutionConfig execution) {
+    log.info("serving requests with {}", execution);
+    execution.apply();
     if (!Strings.isNullOrEmpty(portArgument)) {
       port(parsePort(portArgument));
     }
+    initRequestTracking();
     mapExceptions();
     initAccountEndpoints();
     initUserEndpoints();
+    initExportEndpoints();
+    initImportEndpoints();
     initManagementEndpoints();
   }
 
@@ -87,194 +205,390 @@ public class TransferFulService {
     return DEFAULT_SERVER_PORT;
   }
 
+  private void initRequestTracking() {
+
+    before((request, response) -> {
+      // Spark keeps filters registered when the same server is stopped and started again
+      if (request.attribute(REQUEST_ID_ATTRIBUTE) != null) {
+        return;
+      }
+      String requestId = request.headers(REQUEST_ID_HEADER);
+      if (!isValidClientKey(requestId)) {
+        requestId = requestIds.next().toString();
+      }
+      request.attribute(START_ATTRIBUTE, System.nanoTime());
+      request.attribute(REQUEST_ID_ATTRIBUTE, requestId);
+      response.header(REQUEST_ID_HEADER, requestId);
+      MDC.put(REQUEST_ID_MDC, requestId);
+    });
+
+    afterAfter((request, response) -> {
+      // Filters see their own matched path, routes store theirs as request attribute.
+      // Start time is removed, so filters retained after restart record request once
+      Long start = request.attribute(START_ATTRIBUTE);
+      String route = request.attribute(ROUTE_ATTRIBUTE);
+      if (start != null) {
+        request.raw().removeAttribute(START_ATTRIBUTE);
+        long latency = System.nanoTime() - start;
+        String method = request.requestMethod();
+        String matchedRoute = route == null ? UNMATCHED_ROUTE : route;
+        int status = response.raw().getStatus();
+        metrics.record(method, matchedRoute, status, latency);
+        accessLog.record(request.attribute(REQUEST_ID_ATTRIBUTE),
+            method, matchedRoute, status, latency);
+      }
+      IdempotencyCache.Claim claim = request.attribute(IDEMPOTENCY_ATTRIBUTE);
+      if (claim != null) {
+        claim.abandon();
+      }
+      MDC.remove(REQUEST_ID_MDC);
+    });
+  }
+
   private void initManagementEndpoints() {
 
     get("/health", (request, response) -> {
+      request.attribute(ROUTE_ATTRIBUTE, request.matchedPath());
       response.status(HttpStatus.OK_200);
       return "{\"status\": \"up\"}";
     });
+
+    get("/metrics", (request, response) -> {
+      request.attribute(ROUTE_ATTRIBUTE, request.matchedPath());
+      response.type(ServiceMetrics.CONTENT_TYPE);
+      response.status(HttpStatus.OK_200);
+      return metrics.scrape();
+    });
   }
 
   private void initAccountEndpoints() {
 
     post("/account", (request, response) -> {
-      RequestAccount data = mapper.readValue(request.body(), RequestAccount.class);
+      RequestAccount data = requestReader.read(request.raw(), RequestAccount.class);
       UUID accountId = accountService.createAccount(
           data.getHolderId(),
           data.getCurrency());
-      response.type("application/json");
-      response.status(HttpStatus.CREATED_201);
-      return jsonResponse(UUID.randomUUID(),
+      return jsonResponse(request, response,
           HttpStatus.CREATED_201,
           accountService.getAccount(accountId));
     });
 
     get("/account/:id", (request, response) -> {
       UUID accountId = UUID.fromString(request.params(":id"));
-      response.type("application/json");
-      response.status(HttpStatus.OK_200);
-      return jsonResponse(UUID.randomUUID(),
+      return jsonResponse(request, response,
           HttpStatus.OK_200,
           accountService.getAccount(accountId));
     });
 
+    get("/account/:id/transactions", (request, response) -> {
+      UUID accountId = UUID.fromString(request.params(":id"));
+      Integer limit = queryNumber(request, "limit", Integer::valueOf);
+      return jsonResponse(request, response,
+          HttpStatus.OK_200,
+          accountService.getTransactions(accountId,
+              queryNumber(request, "cursor", Long::valueOf),
+              limit == null ? DEFAULT_PAGE_LIMIT : limit));
+    });
+
+    get("/stats/balances", (request, response) -> {
+      String verify = Strings.nullToEmpty(request.queryParams("verify"));
+      if (!verify.isEmpty() && !"true".equals(verify) && !"false".equals(verify)) {
+        throw new IllegalArgumentException("verify must be true or false");
+      }
+      return jsonResponse(request, response,
+          HttpStatus.OK_200,
+          accountService.getBalanceReport("true".equals(verify)));
+    });
+
     delete("/account/:id", (request, response) -> {
       UUID accountId = UUID.fromString(request.params(":id"));
       accountService.deleteAccount(accountId);
-      response.status(HttpStatus.OK_200);
-      return jsonResponse(UUID.randomUUID(),
+      return jsonResponse(request, response,
           HttpStatus.OK_200,
           "deleted account with id: " + accountId.toString());
     });
 
-    post("/account/deposit", (request, response) -> {
-      RequestDepositWithdraw data = mapper.readValue(request.body(), RequestDepositWithdraw.class);
+    post("/account/deposit", idempotent((request, response) -> {
+      RequestDepositWithdraw data = readRequest(request, RequestDepositWithdraw.class);
       accountService.deposit(data.getAccountId(),
                              data.getAmount(),
                              data.getCurrency());
-      response.type("application/json");
-      response.status(HttpStatus.OK_200);
-      return jsonResponse(UUID.randomUUID(),
+      return jsonResponse(request, response,
           HttpStatus.OK_200,
           "deposit successful to account with id: " + data.getAccountId().toString());
-    });
+    }));
 
-    post("/account/withdraw", (request, response) -> {
-      RequestDepositWithdraw data = mapper.readValue(request.body(), RequestDepositWithdraw.class);
+    post("/account/withdraw", idempotent((request, response) -> {
+      RequestDepositWithdraw data = readRequest(request, RequestDepositWithdraw.class);
       accountService.withdraw(data.getAccountId(),
                               data.getAmount(),
                               data.getCurrency());
-      response.type("application/json");
-      response.status(HttpStatus.OK_200);
-      return jsonResponse(UUID.randomUUID(),
+      return jsonResponse(request, response,
           HttpStatus.OK_200,
           "withdraw successful from account with id: " + data.getAccountId().toString());
-    });
+    }));
 
-    post("/account/transfer", (request, response) -> {
-      RequestTransfer data = mapper.readValue(request.body(), RequestTransfer.class);
+    post("/account/transfer", idempotent((request, response) -> {
+      RequestTransfer data = readRequest(request, RequestTransfer.class);
       accountService.transfer(data.getSourceAccountId(),
                               data.getTargetAccountId(),
                               data.getAmount());
-      response.type("application/json");
-      response.status(HttpStatus.OK_200);
-      return jsonResponse(UUID.randomUUID(),
+      return jsonResponse(request, response,
           HttpStatus.OK_200,
           "transfer successful from account with id: " + data.getSourceAccountId().toString()
       + " to account with id: " + data.getTargetAccountId().toString());
-    });
+    }));
   }
 
   private void initUserEndpoints() {
 
     post("/user", (request, response) -> {
-      RequestUser data = mapper.readValue(request.body(), RequestUser.class);
+      RequestUser data = requestReader.read(request.raw(), RequestUser.class);
       UUID userID = userService.createUser(data.name(),
                                            data.address(),
                                            data.countryCode(),
                                            data.type());
-      response.type("application/json");
-      response.status(HttpStatus.CREATED_201);
-      return jsonResponse(UUID.randomUUID(),
+      return jsonResponse(request, response,
           HttpStatus.CREATED_201,
           userService.getUser(userID));
     });
 
+    get("/users", (request, response) -> {
+      String type = Strings.emptyToNull(request.queryParams("type"));
+      String cursor = Strings.emptyToNull(request.queryParams("cursor"));
+      Integer limit = queryNumber(request, "limit", Integer::valueOf);
+      return jsonResponse(request, response,
+          HttpStatus.OK_200,
+          userService.findUsers(Strings.emptyToNull(request.queryParams("country")),
+              type == null ? null : HolderType.fromDisplayName(type),
+              cursor == null ? null : UUID.fromString(cursor),
+              limit == null ? DEFAULT_PAGE_LIMIT : limit));
+    });
+
     patch("/user/:id", (request, response) -> {
       UUID userId = UUID.fromString(request.params(":id"));
-      RequestUser data = mapper.readValue(request.body(), RequestUser.class);
-      response.type("application/json");
-      response.status(HttpStatus.OK_200);
-      return jsonResponse(UUID.randomUUID(),
+      RequestUser data = requestReader.read(request.raw(), RequestUser.class);
+      return jsonResponse(request, response,
           HttpStatus.OK_200,
           userService.updateUser(userId, data));
     });
 
     get("/user/:id", (request, response) -> {
       UUID userId = UUID.fromString(request.params(":id"));
-      response.type("application/json");
-      response.status(HttpStatus.OK_200);
-      return jsonResponse(UUID.randomUUID(),
+      return jsonResponse(request, response,
           HttpStatus.OK_200,
           userService.getUser(userId));
     });
 
+    get("/user/:id/accounts", (request, response) -> {
+      UUID userId = UUID.fromString(request.params(":id"));
+      return jsonResponse(request, response,
+          HttpStatus.OK_200,
+          userService.getUserAccounts(userId));
+    });
+
     delete("/user/:id", (request, response) -> {
       UUID userId = UUID.fromString(request.params(":id"));
       userService.deleteUser(userId);
-      response.status(HttpStatus.OK_200);
-      return jsonResponse(UUID.randomUUID(),
+      return jsonResponse(request, response,
           HttpStatus.OK_200,
           "deleted user with id: " + userId.toString());
     });
   }
 
+  private void initExportEndpoints() {
+
+    get("/export/accounts", (request, response) ->
+        linesResponse(request, response, Account.class, accountService.exportAccounts()));
+
+    get("/export/users", (request, response) ->
+        linesResponse(request, response, User.class, userService.exportUsers()));
+  }
+
+  private void initImportEndpoints() {
+
+    post("/import/users", (request, response) ->
+        linesResponse(request, response, ImportResult.class, new BulkImport<>(
+            requestReader.readLines(request.raw(), RequestUser.class),
+            userService::importUsers)));
+
+    post("/import/accounts", (request, response) ->
+        linesResponse(request, response, ImportResult.class, new BulkImport<>(
+            requestReader.readLines(request.raw(), RequestAccount.class),
+            accountService::importAccounts)));
+  }
+
+  /**
+   * Maps exceptions to responses. Stackless domain exceptions are mapped by their own class,
+   * so Spark does not have to search exception hierarchy for their handler.
+   */
   private void mapExceptions() {
 
     exception(IllegalArgumentException.class, (exception, request, response) -> {
-      UUID reqId = UUID.randomUUID();
-      log.error(exception.toString() + " : " + reqId);
-      response.status(HttpStatus.BAD_REQUEST_400);
-      response.body(
-          jsonResponse(reqId, HttpStatus.BAD_REQUEST_400, exception.getMessage()));
+      log.debug("request rejected: {}", exception.getMessage());
+      response.body(jsonResponse(request, response,
+          HttpStatus.BAD_REQUEST_400, exception.getMessage()));
     });
 
     exception(InvalidFormatException.class, (exception, request, response) -> {
-      UUID reqId = UUID.randomUUID();
-      log.error(exception.toString() + " : " + reqId);
-      response.status(HttpStatus.BAD_REQUEST_400);
-      response.body(
-          jsonResponse(reqId, HttpStatus.BAD_REQUEST_400, exception.getMessage()));
+      log.debug("request rejected: {}", exception.getMessage());
+      response.body(jsonResponse(request, response,
+          HttpStatus.BAD_REQUEST_400, exception.getMessage()));
     });
 
-    exception(NoSuchElementException.class, (exception, request, response) -> {
-      UUID reqId = UUID.randomUUID();
-      log.error(exception.toString() + " : " + reqId);
-      response.status(HttpStatus.NOT_FOUND_404);
-      response.body(
-          jsonResponse(reqId,HttpStatus.NOT_FOUND_404, exception.getMessage()));
-    });
+    ExceptionHandler<NoSuchElementException> notFound = (exception, request, response) -> {
+      log.debug("request rejected: {}", exception.getMessage());
+      response.body(jsonResponse(request, response,
+          HttpStatus.NOT_FOUND_404, exception.getMessage()));
+    };
+    exception(NoSuchElementException.class, notFound);
+    exception(EntityNotFoundException.class, notFound);
 
     exception(UnsupportedOperationException.class, (exception, request, response) -> {
-      UUID reqId = UUID.randomUUID();
-      log.error(exception.toString() + " : " + reqId);
-      response.status(HttpStatus.CONFLICT_409);
-      response.body(
-          jsonResponse(reqId,
-              HttpStatus.CONFLICT_409,
-              "cannot delete. Resource has linked objects"));
+      log.debug("request rejected: {}", exception.getMessage());
+      response.body(jsonResponse(request, response,
+          HttpStatus.CONFLICT_409,
+          "cannot delete. Resource has linked objects"));
     });
 
-    exception(InvalidTypeException.class, (exception, request, response) -> {
-      UUID reqId = UUID.randomUUID();
-      log.error(exception.toString() + " : " + reqId);
-      response.status(HttpStatus.CONFLICT_409);
-      response.body(
-          jsonResponse(reqId,
-              HttpStatus.CONFLICT_409,
-              "cannot complete. Incompatible currency"));
-    });
+    ExceptionHandler<InvalidTypeException> currencyMismatch = (exception, request, response) -> {
+      log.debug("request rejected: {}", exception.getMessage());
+      response.body(jsonResponse(request, response,
+          HttpStatus.CONFLICT_409,
+          "cannot complete. Incompatible currency"));
+    };
+    exception(InvalidTypeException.class, currencyMismatch);
+    exception(CurrencyMismatchException.class, currencyMismatch);
 
-    exception(InsufficientResourcesException.class, (exception, request, response) -> {
-      UUID reqId = UUID.randomUUID();
-      log.error(exception.toString() + " : " + reqId);
-      response.status(HttpStatus.PAYMENT_REQUIRED_402);
-      response.body(
-          jsonResponse(reqId,
+    ExceptionHandler<InsufficientResourcesException> insufficientFunds =
+        (exception, request, response) -> {
+          log.debug("request rejected: {}", exception.getMessage());
+          response.body(jsonResponse(request, response,
               HttpStatus.PAYMENT_REQUIRED_402,
               "insufficient funds in source account"));
+        };
+    exception(InsufficientResourcesException.class, insufficientFunds);
+    exception(InsufficientFundsException.class, insufficientFunds);
+
+    exception(IdempotencyConflictException.class, (exception, request, response) -> {
+      log.debug("request rejected: {}", exception.getMessage());
+      response.body(jsonResponse(request, response,
+          exception.status(), exception.getMessage()));
     });
   }
 
-  private String jsonResponse(UUID id, int status, Object data) {
+  /**
+   * Wraps money moving route, so requests repeated with the same Idempotency-Key header are
+   * executed once. Response of the first execution is replayed to the rest of them, key
+   * repeated with another body is rejected. Body is read up front to be hashed, route reads it
+   * through {@link #readRequest(Request, Class)}.
+   */
+  private Route idempotent(Route route) {
+    return (request, response) -> {
+      String key = request.headers(IDEMPOTENCY_KEY_HEADER);
+      if (key == null) {
+        return route.handle(request, response);
+      }
+      if (!isValidClientKey(key)) {
+        throw new IllegalArgumentException(IDEMPOTENCY_KEY_HEADER
+            + " must have up to 64 letters, digits or -_.: characters");
+      }
+      byte[] body = requestReader.readBytes(request.raw());
+      request.attribute(IDEMPOTENT_BODY_ATTRIBUTE, body);
+      IdempotencyCache.Claim claim = idempotency.claim(request.matchedPath() + ' ' + key,
+          Hashing.sha256().hashBytes(body));
+      IdempotencyCache.StoredResponse replay = claim.replay();
+      if (replay != null) {
+        response.header(IDEMPOTENT_REPLAY_HEADER, "true");
+        return writeResponse(request, response, replay.status(), replay.body());
+      }
+      request.attribute(IDEMPOTENCY_ATTRIBUTE, claim);
+      return route.handle(request, response);
+    };
+  }
+
+  private <T> T readRequest(Request request, Class<T> type) throws IOException {
+    byte[] body = request.attribute(IDEMPOTENT_BODY_ATTRIBUTE);
+    return body == null
+        ? requestReader.read(request.raw(), type) : requestReader.read(body, type);
+  }
+
+  private String jsonResponse(Request request, spark.Response response, int status,
+                              Object data) {
 
-    log.info("Sending response for request {}", id.toString());
+    Response body = new Response(request.<String>attribute(REQUEST_ID_ATTRIBUTE),
+        HttpStatus.getMessage(status), data);
+    IdempotencyCache.Claim claim = request.attribute(IDEMPOTENCY_ATTRIBUTE);
+    if (claim != null && status < HttpStatus.INTERNAL_SERVER_ERROR_500) {
+      claim.complete(status, body);
+    }
+    return writeResponse(request, response, status, body);
+  }
+
+  private String writeResponse(Request request, spark.Response response, int status,
+                               Response body) {
+
+    request.attribute(ROUTE_ATTRIBUTE, request.matchedPath());
+    response.type("application/json");
+    response.status(status);
     try {
-      return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(
-          new Response(id, HttpStatus.getMessage(status), data));
-    } catch (JsonProcessingException e) {
-      log.error("THIS" + e.toString());
-      return "{\"id\":" + id + ",\"status\":\"Server Error\"}";
+      responseWriter.write(response.raw(), body, isPrettyPrint(request.queryString()));
+    } catch (IOException e) {
+      log.error("failed to send response: " + e.toString());
+    }
+    return "";
+  }
+
+  /**
+   * Streams values as newline delimited JSON. Once streaming starts, failures end the stream
+   * with terminal error line and never reach exception mappers, which would append error body
+   * to response already sent with status 200.
+   */
+  private <T> String linesResponse(Request request, spark.Response response, Class<T> type,
+                                   Iterator<? extends T> values) {
+
+    request.attribute(ROUTE_ATTRIBUTE, request.matchedPath());
+    response.type(NDJSON_CONTENT_TYPE);
+    response.status(HttpStatus.OK_200);
+    try {
+      responseWriter.writeLines(response.raw(), type, values, new Response(
+          request.<String>attribute(REQUEST_ID_ATTRIBUTE),
+          HttpStatus.getMessage(HttpStatus.INTERNAL_SERVER_ERROR_500),
+          "stream ended early by server error"));
+    } catch (IOException e) {
+      log.warn("streamed response interrupted: " + e.toString());
+    }
+    return "";
+  }
+
+  private static <T extends Number> T queryNumber(Request request, String name,
+                                                  Function<String, T> parser) {
+    String value = request.queryParams(name);
+    if (Strings.isNullOrEmpty(value)) {
+      return null;
+    }
+    try {
+      return parser.apply(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a whole number");
+    }
+  }
+
+  private static boolean isValidClientKey(String key) {
+    return !Strings.isNullOrEmpty(key)
+        && key.length() <= CLIENT_KEY_MAX_LENGTH
+        && CLIENT_KEY_CHARS.matchesAllOf(key);
+  }
+
+  private static boolean isPrettyPrint(String queryString) {
+    if (Strings.isNullOrEmpty(queryString)) {
+      return false;
+    }
+    for (String parameter : QUERY_SPLITTER.split(queryString)) {
+      if ("pretty".equals(parameter) || "pretty=true".equals(parameter)) {
+        return true;
+      }
     }
+    return false;
   }
 }
@@ -0,0 +1,72 @@
+package com.github.r0kas.controller.rest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+/**
+ * Jetty thread pool running every task on its own thread of provided executor. New executor is
+ * created on every start, so server can be stopped and started again.
+ */
+final class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+
+  private static final long STOP_TIMEOUT_SECONDS = 5;
+
+  private final Supplier<ExecutorService> executors;
+  private final AtomicInteger threads = new AtomicInteger();
+  private volatile ExecutorService executor;
+
+  VirtualThreadPool(Supplier<ExecutorService> executors) {
+    this.executors = executors;
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    executor = executors.get();
+    super.doStart();
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    super.doStop();
+    executor.shutdown();
+    if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    executor.execute(() -> {
+      threads.incrementAndGet();
+      try {
+        task.run();
+      } finally {
+        threads.decrementAndGet();
+      }
+    });
+  }
+
+  @Override
+  public void join() throws InterruptedException {
+    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public int getThreads() {
+    return threads.get();
+  }
+
+  @Override
+  public int getIdleThreads() {
+    return 0;
+  }
+
+  @Override
+  public boolean isLowOnThreads() {
+    return false;
+  }
+}
@@ -1,23 +1,46 @@
 package com.github.r0kas.model.data;
 
+import static com.github.r0kas.model.data.MinorUnits.toMajorUnits;
+import static com.github.r0kas.model.data.MinorUnits.toMinorUnits;
+
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Currency;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Account represents funds holding entity.
+ * Balance is kept in minor units of account currency. Balance, last update date and journal
+ * position form one immutable state which is replaced atomically on every mutation, so
+ * readers never block writers and {@link #copy()} never mixes two versions.
+ * Removal of account closes its state, after which compare-and-set of balance fails, so
+ * lock-free mutations racing with removal observe it instead of changing removed account.
+ * Position of the newest {@link TransactionLog} entry is kept apart from the state, it belongs
+ * to the stored account and is not carried over to copies.
+ * Account is serialized through its accessors, so views over other storage can extend it.
  */
-@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+@JsonAutoDetect(fieldVisibility = Visibility.NONE, getterVisibility = Visibility.NONE,
+    isGetterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
+@JsonPropertyOrder({"id", "holderId", "createdOn", "updatedOn", "currency", "balance"})
 public class Account {
 
-  private UUID id;
-  private UUID holderId;
-  private String createdOn;
-  private String updatedOn;
-  private Currency currency;
-  private double balance;
+  private static final AtomicReferenceFieldUpdater<Account, State> STATE =
+      AtomicReferenceFieldUpdater.newUpdater(Account.class, State.class, "state");
+  private static final AtomicLongFieldUpdater<Account> HISTORY_HEAD =
+      AtomicLongFieldUpdater.newUpdater(Account.class, "historyHead");
+
+  private final UUID id;
+  private final UUID holderId;
+  private final String createdOn;
+  private final Currency currency;
+  private volatile State state;
+  private volatile long historyHead = -1;
 
   /**
    * New account constructor for generation of funds holding account.
@@ -30,9 +53,47 @@ public class Account {
     this.id = UUID.randomUUID();
     this.holderId = holderID;
     this.createdOn = ZonedDateTime.now(ZoneOffset.UTC).toString();
-    this.updatedOn = createdOn;
     this.currency = currency;
-    this.balance = 0.0;
+    this.state = new State(0L, createdOn, 0L);
+  }
+
+  /**
+   * Restores account with previously persisted state.
+   *
+   * @param id           account uuid
+   * @param holderId     account holder uuid
+   * @param createdOn    creation date
+   * @param updatedOn    last update date
+   * @param currency     account currency
+   * @param minorBalance balance in minor units
+   */
+  Account(UUID id, UUID holderId, String createdOn, String updatedOn,
+          Currency currency, long minorBalance) {
+    this(id, holderId, createdOn, currency, new State(minorBalance, updatedOn, 0L));
+  }
+
+  /**
+   * Instantiates account without state, for views over other storage.
+   */
+  Account() {
+    this(null, null, null, null, null);
+  }
+
+  /**
+   * Instantiates account with provided state.
+   *
+   * @param id        account uuid
+   * @param holderId  account holder uuid
+   * @param createdOn creation date
+   * @param currency  account currency
+   * @param state     account state
+   */
+  Account(UUID id, UUID holderId, String createdOn, Currency currency, State state) {
+    this.id = id;
+    this.holderId = holderId;
+    this.createdOn = createdOn;
+    this.currency = currency;
+    this.state = state;
   }
 
   /**
@@ -40,6 +101,7 @@ public class Account {
    *
    * @return account uuid
    */
+  @JsonProperty("id")
   public UUID id() {
     return id;
   }
@@ -49,6 +111,7 @@ public class Account {
    *
    * @return account holder uuid
    */
+  @JsonProperty("holderId")
   public UUID holderId() {
     return holderId;
   }
@@ -58,6 +121,7 @@ public class Account {
    *
    * @return string representing creation date
    */
+  @JsonProperty("createdOn")
   public String createdOn() {
     return createdOn;
   }
@@ -67,8 +131,9 @@ public class Account {
    *
    * @return string representing last update date
    */
+  @JsonProperty("updatedOn")
   public String updatedOn() {
-    return updatedOn;
+    return state.updatedOn;
   }
 
   /**
@@ -77,7 +142,12 @@ public class Account {
    * @param updatedOn ZonedDateTime of last update time.
    */
   public void setUpdatedOn(ZonedDateTime updatedOn) {
-    this.updatedOn = updatedOn.toString();
+    String date = updatedOn.toString();
+    State current;
+    do {
+      current = state;
+    } while (!STATE.compareAndSet(this, current,
+        new State(current.minorBalance, date, current.journalPosition, current.closed)));
   }
 
   /**
@@ -85,6 +155,7 @@ public class Account {
    *
    * @return account currency
    */
+  @JsonProperty("currency")
   public Currency currency() {
     return currency;
   }
@@ -94,8 +165,9 @@ public class Account {
    *
    * @return double representing account balance
    */
+  @JsonProperty("balance")
   public double balance() {
-    return balance;
+    return toMajorUnits(minorBalance(), currency());
   }
 
   /**
@@ -104,6 +176,260 @@ public class Account {
    * @param balance double to which account balance should be set
    */
   public void setBalance(double balance) {
-    this.balance = balance;
+    setMinorBalance(toMinorUnits(balance, currency()));
+  }
+
+  /**
+   * Getter for current account balance in minor units of account currency.
+   *
+   * @return balance in minor units
+   */
+  public long minorBalance() {
+    return state.minorBalance;
+  }
+
+  /**
+   * Sets account balance in minor units of account currency.
+   *
+   * @param minorBalance balance in minor units
+   */
+  public void setMinorBalance(long minorBalance) {
+    State current;
+    do {
+      current = state;
+    } while (!STATE.compareAndSet(this, current,
+        new State(minorBalance, current.updatedOn, current.journalPosition, current.closed)));
+  }
+
+  /**
+   * Sets account balance together with last update date in one step.
+   *
+   * @param minorBalance balance in minor units
+   * @param updatedOn    ZonedDateTime of the update
+   */
+  public void setMinorBalance(long minorBalance, ZonedDateTime updatedOn) {
+    String date = updatedOn.toString();
+    State current;
+    do {
+      current = state;
+    } while (!STATE.compareAndSet(this, current,
+        new State(minorBalance, date, current.journalPosition, current.closed)));
+  }
+
+  /**
+   * Atomically sets balance to updated value if current balance equals expected value and
+   * account is not closed.
+   *
+   * @param expected balance in minor units expected to be current
+   * @param updated  new balance in minor units
+   * @return true if balance was updated
+   */
+  public boolean compareAndSetMinorBalance(long expected, long updated) {
+    State current;
+    do {
+      current = state;
+      if (current.closed || current.minorBalance != expected) {
+        return false;
+      }
+    } while (!STATE.compareAndSet(this, current,
+        new State(updated, current.updatedOn, current.journalPosition, current.closed)));
+    return true;
+  }
+
+  /**
+   * Atomically sets balance to updated value together with last update date, if current
+   * balance equals expected value and account is not closed.
+   *
+   * @param expected  balance in minor units expected to be current
+   * @param updated   new balance in minor units
+   * @param updatedOn ZonedDateTime of the update
+   * @return true if balance was updated
+   */
+  public boolean compareAndSetMinorBalance(long expected, long updated,
+                                           ZonedDateTime updatedOn) {
+    String date = updatedOn.toString();
+    State current;
+    do {
+      current = state;
+      if (current.closed || current.minorBalance != expected) {
+        return false;
+      }
+    } while (!STATE.compareAndSet(this, current,
+        new State(updated, date, current.journalPosition, current.closed)));
+    return true;
+  }
+
+  /**
+   * Atomically adds delta to current balance.
+   *
+   * @param delta amount in minor units to add, negative to subtract
+   * @return balance in minor units after update
+   */
+  public long addMinorBalance(long delta) {
+    State current;
+    State updated;
+    do {
+      current = state;
+      updated = new State(current.minorBalance + delta, current.updatedOn,
+          current.journalPosition, current.closed);
+    } while (!STATE.compareAndSet(this, current, updated));
+    return updated.minorBalance;
+  }
+
+  /**
+   * Atomically adds delta to current balance and sets last update date in the same step.
+   *
+   * @param delta     amount in minor units to add, negative to subtract
+   * @param updatedOn ZonedDateTime of the update
+   * @return balance in minor units after update
+   */
+  public long addMinorBalance(long delta, ZonedDateTime updatedOn) {
+    String date = updatedOn.toString();
+    State current;
+    State updated;
+    do {
+      current = state;
+      updated = new State(current.minorBalance + delta, date, current.journalPosition,
+          current.closed);
+    } while (!STATE.compareAndSet(this, current, updated));
+    return updated.minorBalance;
+  }
+
+  /**
+   * Getter of journal position of the latest mutation applied to this account.
+   *
+   * @return journal position, zero when account is not journaled
+   */
+  public long journalPosition() {
+    return state.journalPosition;
+  }
+
+  /**
+   * Sets journal position of the latest mutation applied to this account.
+   *
+   * @param journalPosition journal position returned by append
+   */
+  public void setJournalPosition(long journalPosition) {
+    State current;
+    do {
+      current = state;
+    } while (!STATE.compareAndSet(this, current,
+        new State(current.minorBalance, current.updatedOn, journalPosition, current.closed)));
+  }
+
+  /**
+   * Closes account when it is removed. Compare-and-set of balance fails on closed account,
+   * so returned balance is final for lock-free mutations.
+   *
+   * @return balance in minor units at the time account was closed
+   */
+  public long close() {
+    State current;
+    do {
+      current = state;
+      if (current.closed) {
+        return current.minorBalance;
+      }
+    } while (!STATE.compareAndSet(this, current,
+        new State(current.minorBalance, current.updatedOn, current.journalPosition, true)));
+    return current.minorBalance;
+  }
+
+  /**
+   * Checks whether account was closed by removal.
+   *
+   * @return true if account is closed
+   */
+  public boolean isClosed() {
+    return state.closed;
+  }
+
+  /**
+   * Getter of transaction log position of the newest history entry of this account.
+   *
+   * @return entry position, -1 when no transaction was recorded
+   */
+  long historyHead() {
+    return historyHead;
+  }
+
+  /**
+   * Atomically sets position of the newest history entry if current one equals expected.
+   *
+   * @param expected entry position expected to be the newest
+   * @param updated  position of appended entry
+   * @return true if position was updated
+   */
+  boolean compareAndSetHistoryHead(long expected, long updated) {
+    return HISTORY_HEAD.compareAndSet(this, expected, updated);
+  }
+
+  /**
+   * Creates detached copy of current account state. Copy is a consistent version of the
+   * account, it is not changed by later mutations.
+   *
+   * @return account copy
+   */
+  public Account copy() {
+    return new Account(id(), holderId(), createdOn(), currency(), currentState());
+  }
+
+  /**
+   * Current state of the account. Views over other storage read it from their record.
+   *
+   * @return current state
+   */
+  State currentState() {
+    return state;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof Account)) {
+      return false;
+    }
+    return id().equals(((Account) other).id());
+  }
+
+  @Override
+  public int hashCode() {
+    return id().hashCode();
+  }
+
+  /**
+   * Immutable version of account's mutable part.
+   */
+  static final class State {
+
+    private final long minorBalance;
+    private final String updatedOn;
+    private final long journalPosition;
+    private final boolean closed;
+
+    State(long minorBalance, String updatedOn, long journalPosition) {
+      this(minorBalance, updatedOn, journalPosition, false);
+    }
+
+    State(long minorBalance, String updatedOn, long journalPosition, boolean closed) {
+      this.minorBalance = minorBalance;
+      this.updatedOn = updatedOn;
+      this.journalPosition = journalPosition;
+      this.closed = closed;
+    }
+
+    long minorBalance() {
+      return minorBalance;
+    }
+
+    String updatedOn() {
+      return updatedOn;
+    }
+
+    long journalPosition() {
+      return journalPosition;
+    }
   }
 }
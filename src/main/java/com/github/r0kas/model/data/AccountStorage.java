@@ -0,0 +1,15 @@
+package com.github.r0kas.model.data;
+
+/**
+ * Account storage defines where data store keeps account records.
+ */
+public enum AccountStorage {
+  /**
+   * Accounts are plain heap objects.
+   */
+  HEAP,
+  /**
+   * Accounts are fixed width records in off-heap memory, accessed through views.
+   */
+  OFF_HEAP
+}
@@ -0,0 +1,41 @@
+package com.github.r0kas.model.data;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Account table is storage of accounts indexed by account id.
+ */
+interface AccountTable {
+
+  /**
+   * Getter for account by both halves of its id.
+   *
+   * @param msb most significant bits of the account id
+   * @param lsb least significant bits of the account id
+   * @return stored account or null if absent
+   */
+  Account get(long msb, long lsb);
+
+  /**
+   * Stores account state, replacing state stored for the same id.
+   *
+   * @param account account to store
+   * @return stored account, which may be a view different from provided instance
+   */
+  Account put(Account account);
+
+  /**
+   * Removes account.
+   *
+   * @param accountId the account id
+   */
+  void remove(UUID accountId);
+
+  /**
+   * Weakly consistent view of stored accounts.
+   *
+   * @return accounts view
+   */
+  Collection<Account> values();
+}
@@ -0,0 +1,72 @@
+package com.github.r0kas.model.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Balance report holds maintained per currency totals and, when verification was requested,
+ * totals computed by scanning all accounts.
+ */
+public final class BalanceReport {
+
+  private final List<CurrencyBalance> balances;
+  private final List<CurrencyBalance> scanned;
+
+  /**
+   * Instantiates a new balance report.
+   *
+   * @param balances maintained totals
+   * @param scanned  totals computed from accounts, null if not verified
+   */
+  public BalanceReport(List<CurrencyBalance> balances, List<CurrencyBalance> scanned) {
+    this.balances = List.copyOf(balances);
+    this.scanned = scanned == null ? null : List.copyOf(scanned);
+  }
+
+  /**
+   * Getter for maintained totals.
+   *
+   * @return unmodifiable list of totals ordered by currency code
+   */
+  public List<CurrencyBalance> balances() {
+    return balances;
+  }
+
+  /**
+   * Getter for totals computed from accounts. Currencies without accounts are not listed.
+   *
+   * @return unmodifiable list of totals ordered by currency code, null if not verified
+   */
+  public List<CurrencyBalance> scanned() {
+    return scanned;
+  }
+
+  /**
+   * Is report verified.
+   *
+   * @return true if totals were compared with scanned accounts
+   */
+  public boolean isVerified() {
+    return scanned != null;
+  }
+
+  /**
+   * Do maintained totals match totals computed from accounts. Currencies left without
+   * accounts match if their total is zero.
+   *
+   * @return true if verified totals match
+   * @throws IllegalStateException if report is not verified
+   */
+  public boolean isConsistent() throws IllegalStateException {
+    if (scanned == null) {
+      throw new IllegalStateException("balance report is not verified");
+    }
+    List<CurrencyBalance> maintained = new ArrayList<>(balances.size());
+    for (CurrencyBalance balance : balances) {
+      if (balance.accounts() != 0 || balance.minorBalance() != 0) {
+        maintained.add(balance);
+      }
+    }
+    return maintained.equals(scanned);
+  }
+}
@@ -0,0 +1,52 @@
+package com.github.r0kas.model.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Binary records encode data store values shared by journal and snapshot formats.
+ * Callers are responsible for buffer capacity.
+ */
+final class BinaryRecords {
+
+  static final int UUID_BYTES = Long.BYTES * 2;
+  static final int INSTANT_BYTES = Long.BYTES + Integer.BYTES;
+
+  private BinaryRecords() {
+  }
+
+  static void putUuid(ByteBuffer buffer, UUID id) {
+    buffer.putLong(id.getMostSignificantBits());
+    buffer.putLong(id.getLeastSignificantBits());
+  }
+
+  static UUID getUuid(ByteBuffer buffer) {
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  static void putInstant(ByteBuffer buffer, Instant instant) {
+    buffer.putLong(instant.getEpochSecond());
+    buffer.putInt(instant.getNano());
+  }
+
+  static Instant getInstant(ByteBuffer buffer) {
+    return Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+  }
+
+  static void putString(ByteBuffer buffer, byte[] utf8) {
+    buffer.putInt(utf8.length);
+    buffer.put(utf8);
+  }
+
+  static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  static byte[] utf8(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,77 @@
+package com.github.r0kas.model.data;
+
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Currency balance is number of accounts in a currency and sum of their balances.
+ */
+public final class CurrencyBalance {
+
+  private final Currency currency;
+  private final long accounts;
+  private final long minorBalance;
+
+  /**
+   * Instantiates a new currency balance.
+   *
+   * @param currency     the currency
+   * @param accounts     number of accounts in the currency
+   * @param minorBalance sum of account balances in minor units
+   */
+  public CurrencyBalance(Currency currency, long accounts, long minorBalance) {
+    this.currency = currency;
+    this.accounts = accounts;
+    this.minorBalance = minorBalance;
+  }
+
+  /**
+   * Getter for currency.
+   *
+   * @return the currency
+   */
+  public Currency currency() {
+    return currency;
+  }
+
+  /**
+   * Getter for number of accounts.
+   *
+   * @return the number of accounts
+   */
+  public long accounts() {
+    return accounts;
+  }
+
+  /**
+   * Getter for sum of account balances in minor units.
+   *
+   * @return the sum of balances
+   */
+  public long minorBalance() {
+    return minorBalance;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof CurrencyBalance)) {
+      return false;
+    }
+    CurrencyBalance that = (CurrencyBalance) other;
+    return accounts == that.accounts && minorBalance == that.minorBalance
+        && currency.equals(that.currency);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(currency, accounts, minorBalance);
+  }
+
+  @Override
+  public String toString() {
+    return currency + ": " + accounts + " accounts, " + minorBalance;
+  }
+}
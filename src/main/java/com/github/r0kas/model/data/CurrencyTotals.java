@@ -0,0 +1,119 @@
+package com.github.r0kas.model.data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Currency totals keep number of accounts and sum of their balances per currency. Totals are
+ * striped counters updated by every operation changing them, so concurrent updates of the same
+ * currency do not contend on a shared word and reading all totals takes time proportional to
+ * the number of currencies, not accounts.
+ *
+ * <p>Totals are updated right after the account change and read without locks, therefore
+ * while operations are in flight totals may briefly be out of step with account balances.
+ */
+public final class CurrencyTotals {
+
+  private static final Comparator<CurrencyBalance> BY_CURRENCY =
+      Comparator.comparing(balance -> balance.currency().getCurrencyCode());
+
+  private final ConcurrentMap<Currency, Totals> totals = new ConcurrentHashMap<>();
+
+  /**
+   * Adds account to totals of its currency.
+   *
+   * @param currency     account currency
+   * @param minorBalance account balance in minor units
+   */
+  public void accountAdded(Currency currency, long minorBalance) {
+    Totals currencyTotals = totals(currency);
+    currencyTotals.accounts.increment();
+    currencyTotals.minorBalance.add(minorBalance);
+  }
+
+  /**
+   * Removes account from totals of its currency.
+   *
+   * @param currency     account currency
+   * @param minorBalance account balance in minor units at removal
+   */
+  public void accountRemoved(Currency currency, long minorBalance) {
+    Totals currencyTotals = totals(currency);
+    currencyTotals.accounts.decrement();
+    currencyTotals.minorBalance.add(-minorBalance);
+  }
+
+  /**
+   * Adds balance change of account to totals of its currency.
+   *
+   * @param currency   account currency
+   * @param minorDelta balance change in minor units, negative for debits
+   */
+  public void balanceChanged(Currency currency, long minorDelta) {
+    totals(currency).minorBalance.add(minorDelta);
+  }
+
+  /**
+   * Reads current totals of every currency that has or had accounts.
+   *
+   * @return totals ordered by currency code
+   */
+  public List<CurrencyBalance> balances() {
+    List<CurrencyBalance> balances = new ArrayList<>(totals.size());
+    totals.forEach((currency, currencyTotals) -> balances.add(new CurrencyBalance(currency,
+        currencyTotals.accounts.sum(), currencyTotals.minorBalance.sum())));
+    balances.sort(BY_CURRENCY);
+    return balances;
+  }
+
+  /**
+   * Computes totals by scanning provided accounts. Takes time proportional to the number of
+   * accounts and is meant for verification of maintained totals.
+   *
+   * @param accounts accounts to sum up
+   * @return totals of currencies having accounts, ordered by currency code
+   */
+  public static List<CurrencyBalance> scan(Iterable<Account> accounts) {
+    Map<Currency, long[]> sums = new HashMap<>();
+    for (Account account : accounts) {
+      long[] sum = sums.computeIfAbsent(account.currency(), currency -> new long[2]);
+      sum[0]++;
+      sum[1] += account.minorBalance();
+    }
+    List<CurrencyBalance> balances = new ArrayList<>(sums.size());
+    sums.forEach((currency, sum) -> balances.add(new CurrencyBalance(currency, sum[0], sum[1])));
+    balances.sort(BY_CURRENCY);
+    return balances;
+  }
+
+  /**
+   * Replaces totals by totals of provided accounts. Must not run concurrently with updates,
+   * used after data store is restored from files.
+   *
+   * @param accounts all stored accounts
+   */
+  void recount(Iterable<Account> accounts) {
+    totals.clear();
+    for (Account account : accounts) {
+      accountAdded(account.currency(), account.minorBalance());
+    }
+  }
+
+  private Totals totals(Currency currency) {
+    Totals currencyTotals = totals.get(currency);
+    return currencyTotals != null
+        ? currencyTotals : totals.computeIfAbsent(currency, key -> new Totals());
+  }
+
+  private static final class Totals {
+    private final LongAdder accounts = new LongAdder();
+    private final LongAdder minorBalance = new LongAdder();
+  }
+}
@@ -0,0 +1,64 @@
+package com.github.r0kas.model.data;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Disabled journal ignores every record. Mutations are acknowledged immediately.
+ */
+enum DisabledJournal implements Journal {
+  INSTANCE;
+
+  @Override
+  public long userPut(User user) {
+    return 0;
+  }
+
+  @Override
+  public long userRemoved(UUID userId) {
+    return 0;
+  }
+
+  @Override
+  public long accountPut(Account account) {
+    return 0;
+  }
+
+  @Override
+  public long accountRemoved(UUID accountId) {
+    return 0;
+  }
+
+  @Override
+  public long balanceAdjusted(UUID accountId, long minorDelta, ZonedDateTime updatedOn) {
+    return 0;
+  }
+
+  @Override
+  public long transferred(UUID sourceId, UUID targetId, long minorAmount,
+                          ZonedDateTime updatedOn) {
+    return 0;
+  }
+
+  @Override
+  public void ensureWritable() {
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return false;
+  }
+
+  @Override
+  public long appendedPosition() {
+    return 0;
+  }
+
+  @Override
+  public void awaitDurable(long position) {
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,555 @@
+package com.github.r0kas.model.data;
+
+import static com.github.r0kas.model.data.BinaryRecords.getInstant;
+import static com.github.r0kas.model.data.BinaryRecords.getString;
+import static com.github.r0kas.model.data.BinaryRecords.getUuid;
+import static java.util.Objects.isNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File journal is binary write-ahead log of data store mutations.
+ * Request threads encode records into shared in memory buffer, single flusher thread
+ * writes everything appended since previous write with one {@link FileChannel} write and,
+ * depending on sync policy, one force. Concurrent writers are therefore group committed.
+ *
+ * <p>Every record is framed as payload length, CRC32 of payload and payload itself.
+ * Journal positions are byte offsets in journal file.
+ *
+ * <p>Failed write fails the journal for good: flusher stops, records not yet written are
+ * dropped and every later append, durability wait and {@link #ensureWritable()} throws, so
+ * services stop changing memory which journal can no longer follow.
+ */
+public final class FileJournal implements Journal {
+
+  private static final Logger log = LoggerFactory.getLogger(FileJournal.class);
+
+  private static final int HEADER_BYTES = Integer.BYTES * 2;
+  private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+  private static final int READ_BUFFER_BYTES = 1024 * 1024;
+
+  private static final byte USER_PUT = 1;
+  private static final byte USER_REMOVED = 2;
+  private static final byte ACCOUNT_PUT = 3;
+  private static final byte ACCOUNT_REMOVED = 4;
+  private static final byte BALANCE_ADJUSTED = 5;
+  private static final byte TRANSFERRED = 6;
+
+  private final FileChannel channel;
+  private final SyncPolicy syncPolicy;
+  private final long syncIntervalNanos;
+  private final Object appendLock = new Object();
+  private final Object durableLock = new Object();
+  private final CRC32 crc = new CRC32();
+  private final Thread flusher;
+
+  private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+  private volatile long appendedPosition;
+  private volatile long writtenPosition;
+  private volatile long syncedPosition;
+  private volatile IOException failure;
+  private volatile boolean running = true;
+
+  private FileJournal(FileChannel channel, SyncPolicy syncPolicy, long syncIntervalMillis)
+      throws IOException {
+    this.channel = channel;
+    this.syncPolicy = syncPolicy;
+    this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+    this.appendedPosition = channel.size();
+    this.writtenPosition = appendedPosition;
+    this.syncedPosition = appendedPosition;
+    this.flusher = new Thread(this::flushLoop, "journal-flusher");
+    this.flusher.setDaemon(true);
+  }
+
+  /**
+   * Opens journal file for appending, creating it if it does not exist.
+   * Existing records should be replayed with {@link #replay(MemoryDataStore, long)}
+   * before first append.
+   *
+   * @param path               journal file location
+   * @param syncPolicy         when appended records are forced to disk
+   * @param syncIntervalMillis force interval for {@link SyncPolicy#INTERVAL} policy
+   * @return opened journal
+   * @throws IOException if journal file cannot be opened
+   */
+  public static FileJournal open(Path path, SyncPolicy syncPolicy, long syncIntervalMillis)
+      throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    FileJournal journal = new FileJournal(channel, syncPolicy, syncIntervalMillis);
+    journal.flusher.start();
+    return journal;
+  }
+
+  /**
+   * Applies journal records starting at provided position to data store.
+   * Torn or corrupted tail left by a crash is truncated, appends continue after last
+   * valid record. Account records at or below account journal position are skipped, so
+   * replay on top of a snapshot does not apply them twice.
+   *
+   * @param store        data store to restore
+   * @param fromPosition journal position of first record to apply
+   * @return number of applied records
+   * @throws IOException if journal cannot be read
+   */
+  public long replay(MemoryDataStore store, long fromPosition) throws IOException {
+    synchronized (appendLock) {
+      if (appendedPosition != writtenPosition || pending.position() > 0) {
+        throw new IllegalStateException("journal must be replayed before first append");
+      }
+      long size = channel.size();
+      if (fromPosition > size) {
+        throw new IOException("journal ends at " + size + " before replay position "
+            + fromPosition);
+      }
+      long position = fromPosition;
+      long records = 0;
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      ByteBuffer payload = ByteBuffer.allocate(READ_BUFFER_BYTES);
+      while (position + HEADER_BYTES <= size) {
+        header.clear();
+        readFully(header, position);
+        int length = header.getInt(0);
+        final int checksum = header.getInt(Integer.BYTES);
+        if (length <= 0 || position + HEADER_BYTES + length > size) {
+          break;
+        }
+        if (payload.capacity() < length) {
+          payload = ByteBuffer.allocate(length);
+        }
+        payload.clear().limit(length);
+        readFully(payload, position + HEADER_BYTES);
+        payload.flip();
+        crc.reset();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksum) {
+          break;
+        }
+        position += HEADER_BYTES + length;
+        apply(store, payload, position);
+        records++;
+      }
+      if (position < size) {
+        log.warn("truncating {} bytes of incomplete journal tail", size - position);
+        channel.truncate(position);
+      }
+      appendedPosition = position;
+      writtenPosition = position;
+      syncedPosition = position;
+      store.recountCurrencyTotals();
+      return records;
+    }
+  }
+
+  @Override
+  public long userPut(User user) {
+    synchronized (appendLock) {
+      final int start = beginRecord(USER_PUT);
+      putUuid(user.id());
+      putString(user.createdOn());
+      putString(user.updatedOn());
+      putString(user.name());
+      putString(user.address());
+      putString(user.countryCode());
+      pending.put((byte) user.type().ordinal());
+      return endRecord(start);
+    }
+  }
+
+  @Override
+  public long userRemoved(UUID userId) {
+    synchronized (appendLock) {
+      final int start = beginRecord(USER_REMOVED);
+      putUuid(userId);
+      return endRecord(start);
+    }
+  }
+
+  @Override
+  public long accountPut(Account account) {
+    synchronized (appendLock) {
+      final int start = beginRecord(ACCOUNT_PUT);
+      putUuid(account.id());
+      putUuid(account.holderId());
+      putString(account.createdOn());
+      putString(account.updatedOn());
+      putString(account.currency().getCurrencyCode());
+      pending.putLong(account.minorBalance());
+      return endRecord(start);
+    }
+  }
+
+  @Override
+  public long accountRemoved(UUID accountId) {
+    synchronized (appendLock) {
+      final int start = beginRecord(ACCOUNT_REMOVED);
+      putUuid(accountId);
+      return endRecord(start);
+    }
+  }
+
+  @Override
+  public long balanceAdjusted(UUID accountId, long minorDelta, ZonedDateTime updatedOn) {
+    synchronized (appendLock) {
+      final int start = beginRecord(BALANCE_ADJUSTED);
+      putUuid(accountId);
+      pending.putLong(minorDelta);
+      putInstant(updatedOn.toInstant());
+      return endRecord(start);
+    }
+  }
+
+  @Override
+  public long transferred(UUID sourceId, UUID targetId, long minorAmount,
+                          ZonedDateTime updatedOn) {
+    synchronized (appendLock) {
+      final int start = beginRecord(TRANSFERRED);
+      putUuid(sourceId);
+      putUuid(targetId);
+      pending.putLong(minorAmount);
+      putInstant(updatedOn.toInstant());
+      return endRecord(start);
+    }
+  }
+
+  @Override
+  public void ensureWritable() {
+    IOException failed = failure;
+    if (!isNull(failed)) {
+      throw new UncheckedIOException("journal write failed", failed);
+    }
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public long appendedPosition() {
+    return appendedPosition;
+  }
+
+  @Override
+  public void awaitDurable(long position) {
+    if (durablePosition() >= position) {
+      return;
+    }
+    boolean interrupted = false;
+    synchronized (durableLock) {
+      while (durablePosition() < position) {
+        if (!isNull(failure)) {
+          throw new UncheckedIOException("journal write failed", failure);
+        }
+        try {
+          durableLock.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (appendLock) {
+      running = false;
+      appendLock.notifyAll();
+    }
+    try {
+      flusher.join();
+      channel.force(false);
+      channel.close();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      log.error("failed to close journal: " + e.toString());
+    }
+  }
+
+  private long durablePosition() {
+    return syncPolicy == SyncPolicy.BATCH ? syncedPosition : writtenPosition;
+  }
+
+  private void flushLoop() {
+    ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    long lastSync = System.nanoTime();
+    try {
+      while (true) {
+        ByteBuffer batch;
+        long batchEnd;
+        synchronized (appendLock) {
+          while (pending.position() == 0 && running && !syncDue(lastSync)) {
+            waitForAppends(lastSync);
+          }
+          if (pending.position() == 0 && !running) {
+            return;
+          }
+          batch = pending;
+          pending = spare;
+          batchEnd = appendedPosition;
+        }
+
+        batch.flip();
+        long position = batchEnd - batch.remaining();
+        while (batch.hasRemaining()) {
+          position += channel.write(batch, position);
+        }
+        batch.clear();
+        spare = batch;
+        writtenPosition = batchEnd;
+
+        if (syncPolicy == SyncPolicy.BATCH || syncDue(lastSync)) {
+          channel.force(false);
+          syncedPosition = batchEnd;
+          lastSync = System.nanoTime();
+        }
+        signalDurable();
+      }
+    } catch (IOException e) {
+      log.error("journal write failed: " + e.toString());
+      synchronized (appendLock) {
+        failure = e;
+        pending.clear();
+      }
+      signalDurable();
+    }
+  }
+
+  private boolean syncDue(long lastSync) {
+    return syncPolicy == SyncPolicy.INTERVAL
+        && syncedPosition < writtenPosition
+        && System.nanoTime() - lastSync >= syncIntervalNanos;
+  }
+
+  private void waitForAppends(long lastSync) {
+    try {
+      if (syncPolicy == SyncPolicy.INTERVAL && syncedPosition < writtenPosition) {
+        long remaining = syncIntervalNanos - (System.nanoTime() - lastSync);
+        TimeUnit.NANOSECONDS.timedWait(appendLock, Math.max(remaining, 1));
+      } else {
+        appendLock.wait();
+      }
+    } catch (InterruptedException e) {
+      running = false;
+    }
+  }
+
+  private void signalDurable() {
+    synchronized (durableLock) {
+      durableLock.notifyAll();
+    }
+  }
+
+  private int beginRecord(byte type) {
+    if (!running) {
+      throw new IllegalStateException("journal is closed");
+    }
+    ensureWritable();
+    ensureCapacity(HEADER_BYTES + 1);
+    int start = pending.position();
+    pending.position(start + HEADER_BYTES);
+    pending.put(type);
+    return start;
+  }
+
+  private long endRecord(int start) {
+    int end = pending.position();
+    final int length = end - start - HEADER_BYTES;
+    ByteBuffer payload = pending.duplicate();
+    payload.position(start + HEADER_BYTES).limit(end);
+    crc.reset();
+    crc.update(payload);
+    pending.putInt(start, length);
+    pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+    appendedPosition += HEADER_BYTES + length;
+    appendLock.notify();
+    return appendedPosition;
+  }
+
+  private void putUuid(UUID id) {
+    ensureCapacity(BinaryRecords.UUID_BYTES);
+    BinaryRecords.putUuid(pending, id);
+  }
+
+  private void putInstant(Instant instant) {
+    ensureCapacity(BinaryRecords.INSTANT_BYTES);
+    BinaryRecords.putInstant(pending, instant);
+  }
+
+  private void putString(String value) {
+    byte[] bytes = BinaryRecords.utf8(value);
+    ensureCapacity(Integer.BYTES + bytes.length + Long.BYTES);
+    BinaryRecords.putString(pending, bytes);
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (pending.remaining() >= bytes + Long.BYTES * 4) {
+      return;
+    }
+    ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2,
+        pending.position() + bytes + INITIAL_BUFFER_BYTES));
+    pending.flip();
+    grown.put(pending);
+    pending = grown;
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, offset);
+      if (read < 0) {
+        throw new IOException("unexpected end of journal at " + offset);
+      }
+      offset += read;
+    }
+  }
+
+  private static void apply(MemoryDataStore store, ByteBuffer record, long position) {
+    byte type = record.get();
+    switch (type) {
+      case USER_PUT:
+        applyUserPut(store, record);
+        break;
+      case USER_REMOVED:
+        store.removeUser(getUuid(record));
+        break;
+      case ACCOUNT_PUT:
+        applyAccountPut(store, record, position);
+        break;
+      case ACCOUNT_REMOVED:
+        applyAccountRemoved(store, getUuid(record), position);
+        break;
+      case BALANCE_ADJUSTED:
+        applyBalanceAdjusted(store, record, position);
+        break;
+      case TRANSFERRED:
+        applyTransfer(store, record, position);
+        break;
+      default:
+        throw new IllegalStateException("unknown journal record type: " + type);
+    }
+  }
+
+  private static void applyUserPut(MemoryDataStore store, ByteBuffer record) {
+    UUID id = getUuid(record);
+    String createdOn = getString(record);
+    String updatedOn = getString(record);
+    String name = getString(record);
+    String address = getString(record);
+    String countryCode = getString(record);
+    HolderType type = HolderType.values()[record.get()];
+    User restored = new User(id, createdOn, updatedOn, name, address, countryCode, type);
+    User existing = store.getUser(id);
+    if (!isNull(existing)) {
+      restored = existing.withDetailsOf(restored);
+    }
+    store.setUser(restored);
+  }
+
+  private static void applyAccountPut(MemoryDataStore store, ByteBuffer record,
+                                      long position) {
+    Account account = new Account(getUuid(record), getUuid(record), getString(record),
+        getString(record), Currency.getInstance(getString(record)), record.getLong());
+    if (!isApplied(store.getAccount(account.id()), position)) {
+      account.setJournalPosition(position);
+      store.setAccount(account);
+    }
+    // holder is linked even when account itself is already restored
+    store.linkOwnedAccount(account.holderId(), account.id());
+  }
+
+  private static void applyAccountRemoved(MemoryDataStore store, UUID accountId,
+                                          long position) {
+    Account account = store.getAccount(accountId);
+    if (isNull(account) || isApplied(account, position)) {
+      return;
+    }
+    store.unlinkOwnedAccount(account.holderId(), accountId);
+    store.removeAccount(accountId);
+  }
+
+  private static void applyBalanceAdjusted(MemoryDataStore store, ByteBuffer record,
+                                           long position) {
+    Account account = store.getAccount(getUuid(record));
+    long minorDelta = record.getLong();
+    Instant updatedOn = getInstant(record);
+    if (applyAdjustment(account, minorDelta, updatedOn, position)) {
+      recordTransaction(store, account, minorDelta < 0
+          ? TransactionType.WITHDRAW : TransactionType.DEPOSIT, null, minorDelta, updatedOn);
+    }
+  }
+
+  private static boolean applyAdjustment(Account account, long minorDelta, Instant updatedOn,
+                                         long position) {
+    if (isNull(account) || isApplied(account, position)) {
+      return false;
+    }
+    account.addMinorBalance(minorDelta, ZonedDateTime.ofInstant(updatedOn, ZoneOffset.UTC));
+    account.setJournalPosition(position);
+    return true;
+  }
+
+  private static void applyTransfer(MemoryDataStore store, ByteBuffer record, long position) {
+    UUID sourceId = getUuid(record);
+    UUID targetId = getUuid(record);
+    Account source = store.getAccount(sourceId);
+    Account target = store.getAccount(targetId);
+    long amount = record.getLong();
+    Instant updatedOn = getInstant(record);
+    if (source == target) {
+      if (applyAdjustment(source, 0, updatedOn, position)) {
+        recordTransaction(store, source, TransactionType.TRANSFER_OUT, sourceId, -amount,
+            updatedOn);
+        recordTransaction(store, source, TransactionType.TRANSFER_IN, sourceId, amount,
+            updatedOn);
+      }
+      return;
+    }
+    if (applyAdjustment(source, -amount, updatedOn, position)) {
+      recordTransaction(store, source, TransactionType.TRANSFER_OUT, targetId, -amount,
+          updatedOn);
+    }
+    if (applyAdjustment(target, amount, updatedOn, position)) {
+      recordTransaction(store, target, TransactionType.TRANSFER_IN, sourceId, amount,
+          updatedOn);
+    }
+  }
+
+  /**
+   * Rebuilds account history of replayed records. History of records included in snapshot
+   * is not restored.
+   */
+  private static void recordTransaction(MemoryDataStore store, Account account,
+                                        TransactionType type, UUID counterpartyId,
+                                        long minorAmount, Instant updatedOn) {
+    store.transactionLog().append(account, type, counterpartyId, minorAmount,
+        account.minorBalance(), updatedOn.toEpochMilli());
+  }
+
+  /**
+   * Account loaded from snapshot already reflects records up to its journal position,
+   * such records must not be applied again.
+   */
+  private static boolean isApplied(Account account, long position) {
+    return !isNull(account) && account.journalPosition() >= position;
+  }
+}
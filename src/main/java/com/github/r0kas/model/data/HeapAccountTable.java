@@ -0,0 +1,33 @@
+package com.github.r0kas.model.data;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Heap account table keeps account objects in {@link UuidMap}.
+ */
+final class HeapAccountTable implements AccountTable {
+
+  private final UuidMap<Account> accounts = new UuidMap<>();
+
+  @Override
+  public Account get(long msb, long lsb) {
+    return accounts.get(msb, lsb);
+  }
+
+  @Override
+  public Account put(Account account) {
+    accounts.put(account.id(), account);
+    return account;
+  }
+
+  @Override
+  public void remove(UUID accountId) {
+    accounts.remove(accountId);
+  }
+
+  @Override
+  public Collection<Account> values() {
+    return accounts.values();
+  }
+}
@@ -30,4 +30,20 @@ public enum HolderType {
   public String getDisplayName() {
     return displayName;
   }
+
+  /**
+   * Finds holder type by its display name.
+   *
+   * @param displayName display name, for ex. Personal
+   * @return holder type
+   * @throws IllegalArgumentException if no holder type has provided display name
+   */
+  public static HolderType fromDisplayName(String displayName) throws IllegalArgumentException {
+    for (HolderType type : values()) {
+      if (type.displayName.equals(displayName)) {
+        return type;
+      }
+    }
+    throw new IllegalArgumentException(displayName + " is not a valid user type");
+  }
 }
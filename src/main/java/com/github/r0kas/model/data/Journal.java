@@ -0,0 +1,110 @@
+package com.github.r0kas.model.data;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Journal records every data store mutation in append only log.
+ * Each append returns journal position after the record, mutation is durable once
+ * {@link #awaitDurable(long)} returns for that position.
+ */
+public interface Journal extends AutoCloseable {
+
+  /**
+   * Journal which does not record anything. Used when durability is not required.
+   *
+   * @return disabled journal instance
+   */
+  static Journal disabled() {
+    return DisabledJournal.INSTANCE;
+  }
+
+  /**
+   * Appends created or updated user state.
+   *
+   * @param user user to record
+   * @return journal position after the record
+   */
+  long userPut(User user);
+
+  /**
+   * Appends user removal.
+   *
+   * @param userId UUID of removed user
+   * @return journal position after the record
+   */
+  long userRemoved(UUID userId);
+
+  /**
+   * Appends created account state.
+   *
+   * @param account account to record
+   * @return journal position after the record
+   */
+  long accountPut(Account account);
+
+  /**
+   * Appends account removal.
+   *
+   * @param accountId UUID of removed account
+   * @return journal position after the record
+   */
+  long accountRemoved(UUID accountId);
+
+  /**
+   * Appends balance change of single account.
+   *
+   * @param accountId  UUID of changed account
+   * @param minorDelta balance change in minor units, negative for withdrawals
+   * @param updatedOn  time of the change
+   * @return journal position after the record
+   */
+  long balanceAdjusted(UUID accountId, long minorDelta, ZonedDateTime updatedOn);
+
+  /**
+   * Appends funds transfer between two accounts.
+   *
+   * @param sourceId    UUID of debited account
+   * @param targetId    UUID of credited account
+   * @param minorAmount transferred amount in minor units
+   * @param updatedOn   time of the transfer
+   * @return journal position after the record
+   */
+  long transferred(UUID sourceId, UUID targetId, long minorAmount, ZonedDateTime updatedOn);
+
+  /**
+   * Verifies that journal still accepts records. Services call it before changing data
+   * store, so once journal failed no further change is applied in memory only.
+   *
+   * @throws java.io.UncheckedIOException if journal write failed
+   */
+  void ensureWritable();
+
+  /**
+   * Tells whether journal records mutations at all.
+   *
+   * @return false for disabled journal
+   */
+  boolean isEnabled();
+
+  /**
+   * Getter for position after the latest appended record.
+   *
+   * @return latest appended position
+   */
+  long appendedPosition();
+
+  /**
+   * Blocks until all records up to provided position are durable according to sync policy.
+   *
+   * @param position journal position returned by append
+   * @throws java.io.UncheckedIOException if journal cannot be written
+   */
+  void awaitDurable(long position);
+
+  /**
+   * Flushes pending records and closes journal.
+   */
+  @Override
+  void close();
+}
@@ -2,9 +2,11 @@ package com.github.r0kas.model.data;
 
 import static java.util.Objects.isNull;
 
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * In memory data storage structure for accounts and users.
@@ -13,12 +15,69 @@ public final class MemoryDataStore {
 
   private static MemoryDataStore instance;
 
-  private Map<UUID, Account> accounts;
-  private Map<UUID, User> users;
+  private AccountTable accounts;
+  private UuidMap<User> users;
+  private UserIndex userIndex;
+  private TransactionLog transactionLog;
+  private CurrencyTotals currencyTotals;
 
-  private MemoryDataStore() {
-    accounts = new ConcurrentHashMap<>();
-    users = new ConcurrentHashMap<>();
+  /**
+   * Instantiates standalone data store keeping accounts on heap.
+   * Application uses shared {@link #getInstance()}.
+   */
+  public MemoryDataStore() {
+    this(AccountStorage.HEAP);
+  }
+
+  /**
+   * Instantiates standalone data store with provided account storage.
+   *
+   * @param accountStorage where account records are kept
+   */
+  public MemoryDataStore(AccountStorage accountStorage) {
+    this(accountStorage, TransactionLog.DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Instantiates standalone data store with provided account storage and history capacity.
+   *
+   * @param accountStorage  where account records are kept
+   * @param historyCapacity number of retained transaction history entries of all accounts
+   */
+  public MemoryDataStore(AccountStorage accountStorage, int historyCapacity) {
+    accounts = accountStorage == AccountStorage.OFF_HEAP
+        ? new OffHeapAccountTable() : new HeapAccountTable();
+    users = new UuidMap<>();
+    userIndex = new UserIndex();
+    transactionLog = new TransactionLog(historyCapacity);
+    currencyTotals = new CurrencyTotals();
+  }
+
+  /**
+   * Initializes shared data store with provided account storage.
+   * Must be called before first {@link #getInstance()}.
+   *
+   * @param accountStorage where account records are kept
+   * @throws IllegalStateException if shared data store already exists
+   */
+  public static void initialize(AccountStorage accountStorage) {
+    initialize(accountStorage, TransactionLog.DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Initializes shared data store with provided account storage and history capacity.
+   * Must be called before first {@link #getInstance()}.
+   *
+   * @param accountStorage  where account records are kept
+   * @param historyCapacity number of retained transaction history entries of all accounts
+   * @throws IllegalStateException if shared data store already exists
+   */
+  public static synchronized void initialize(AccountStorage accountStorage,
+                                             int historyCapacity) {
+    if (!isNull(instance)) {
+      throw new IllegalStateException("data store is already initialized");
+    }
+    instance = new MemoryDataStore(accountStorage, historyCapacity);
   }
 
   /**
@@ -40,16 +99,30 @@ public final class MemoryDataStore {
    * @return the account
    */
   public Account getAccount(UUID accountID) {
-    return this.accounts.get(accountID);
+    return this.accounts.get(accountID.getMostSignificantBits(),
+        accountID.getLeastSignificantBits());
   }
 
   /**
-   * Puts account object into accounts map.
+   * Getter for account object by both halves of account id, without allocating UUID.
+   *
+   * @param accountIdMsb most significant bits of the account id
+   * @param accountIdLsb least significant bits of the account id
+   * @return the account
+   */
+  public Account getAccount(long accountIdMsb, long accountIdLsb) {
+    return this.accounts.get(accountIdMsb, accountIdLsb);
+  }
+
+  /**
+   * Puts account object into accounts map. With off-heap storage account state is copied
+   * into account record, further changes have to be made through returned account.
    *
    * @param account the account
+   * @return stored account
    */
-  public void setAccount(Account account) {
-    this.accounts.put(account.id(), account);
+  public Account setAccount(Account account) {
+    return this.accounts.put(account);
   }
 
   /**
@@ -59,7 +132,7 @@ public final class MemoryDataStore {
    * @return the boolean
    */
   public boolean isAccountPresent(UUID accountID) {
-    return this.accounts.containsKey(accountID);
+    return !isNull(getAccount(accountID));
   }
 
   /**
@@ -71,6 +144,33 @@ public final class MemoryDataStore {
     this.accounts.remove(accountID);
   }
 
+  /**
+   * Getter for transaction log keeping history of stored accounts.
+   *
+   * @return the transaction log
+   */
+  public TransactionLog transactionLog() {
+    return this.transactionLog;
+  }
+
+  /**
+   * Getter for per currency totals of stored accounts. Totals are maintained by services
+   * changing accounts, direct changes of data store do not update them.
+   *
+   * @return the currency totals
+   */
+  public CurrencyTotals currencyTotals() {
+    return this.currencyTotals;
+  }
+
+  /**
+   * Recounts currency totals from stored accounts. Must not run concurrently with account
+   * changes, used after data store is restored from snapshot and journal.
+   */
+  public void recountCurrencyTotals() {
+    this.currencyTotals.recount(accounts.values());
+  }
+
   /**
    * Getter for user object from user map.
    *
@@ -82,12 +182,14 @@ public final class MemoryDataStore {
   }
 
   /**
-   * Puts user object into user map.
+   * Puts user object into user map and moves it to the index group of its country and type.
+   * Mutations of the same user have to be serialized by caller.
    *
    * @param user the user
    */
   public void setUser(User user) {
-    this.users.put(user.id(), user);
+    User previous = this.users.put(user.id(), user);
+    this.userIndex.update(previous, user);
   }
 
   /**
@@ -101,11 +203,118 @@ public final class MemoryDataStore {
   }
 
   /**
-   * Remove user from user map.
+   * Remove user from user map and its index group.
    *
    * @param userID the user id
    */
   public void removeUser(UUID userID) {
-    this.users.remove(userID);
+    User removed = this.users.remove(userID);
+    if (!isNull(removed)) {
+      this.userIndex.remove(removed);
+    }
+  }
+
+  /**
+   * Getter for accounts currently owned by user, kept by user itself and looked up in
+   * constant time regardless of the number of accounts user holds.
+   *
+   * @param userID the user id
+   * @return unmodifiable weakly consistent view of owned account ids, empty if user owns none
+   */
+  public Set<UUID> getOwnedAccounts(UUID userID) {
+    User user = this.users.get(userID);
+    return isNull(user) ? Set.of() : user.ownedAccounts();
+  }
+
+  /**
+   * Links account to its holder. Missing holder is ignored.
+   *
+   * @param holderID  the holder id
+   * @param accountID the account id
+   */
+  public void linkOwnedAccount(UUID holderID, UUID accountID) {
+    User holder = this.users.get(holderID);
+    if (!isNull(holder)) {
+      holder.linkAccount(accountID);
+    }
+  }
+
+  /**
+   * Unlinks account from its holder. Missing holder is ignored.
+   *
+   * @param holderID  the holder id
+   * @param accountID the account id
+   */
+  public void unlinkOwnedAccount(UUID holderID, UUID accountID) {
+    User holder = this.users.get(holderID);
+    if (!isNull(holder)) {
+      holder.unlinkAccount(accountID);
+    }
+  }
+
+  /**
+   * Finds users matching filter through country and type index, in id order. Takes time
+   * proportional to the number of returned users and known countries, regardless of the
+   * number of stored users. Listing is weakly consistent, users created, modified or deleted
+   * meanwhile may be skipped.
+   *
+   * @param countryCode country code users must have, null for any
+   * @param type        holder type users must have, null for any
+   * @param cursor      cursor returned with previous page, null for the first page
+   * @param limit       maximum number of returned users
+   * @return page of matching users
+   */
+  public UserPage findUsers(String countryCode, HolderType type, UUID cursor, int limit) {
+    return this.userIndex.find(users, countryCode, type, cursor, limit);
+  }
+
+  /**
+   * Writes snapshot of all users and accounts to memory mapped file while data store keeps
+   * serving reads and writes. Entities are captured chunk by chunk through provided source,
+   * so snapshot alone is not a point-in-time image: mutations applied during capture may be
+   * reflected in some chunks only. Only together with journal records after provided
+   * position it restores the data store exactly.
+   *
+   * @param path            snapshot file location, replaced atomically
+   * @param journalPosition journal position all earlier mutations are visible at
+   * @param source          source capturing consistent entity copies
+   * @throws IOException if snapshot cannot be written
+   */
+  public void writeSnapshot(Path path, long journalPosition, SnapshotSource source)
+      throws IOException {
+    SnapshotFile.write(path, journalPosition, users.values(), accounts.values(), source);
+  }
+
+  /**
+   * Loads snapshot into this data store. Intended for empty data store on startup.
+   *
+   * @param path snapshot file location
+   * @return journal position from which journal has to be replayed
+   * @throws IOException if snapshot cannot be read or is corrupted
+   */
+  public long loadSnapshot(Path path) throws IOException {
+    long journalPosition = SnapshotFile.load(path, this);
+    recountCurrencyTotals();
+    return journalPosition;
+  }
+
+  /**
+   * Weakly consistent view of stored accounts. With heap storage iteration does not copy the
+   * accounts, returned accounts are live and keep changing. With off-heap storage returned
+   * accounts are detached copies.
+   *
+   * @return accounts view
+   */
+  public Collection<Account> accounts() {
+    return accounts.values();
+  }
+
+  /**
+   * Weakly consistent view of stored users. Iteration does not copy the users.
+   *
+   * @return users view
+   */
+  public Collection<User> users() {
+    return users.values();
   }
 }
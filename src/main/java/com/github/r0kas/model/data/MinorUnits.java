@@ -0,0 +1,52 @@
+package com.github.r0kas.model.data;
+
+import java.util.Currency;
+
+/**
+ * Minor units converts amounts between major units of currency and its smallest units.
+ * E.g. 150.30 EUR is represented as 15030 cents.
+ */
+public final class MinorUnits {
+
+  private static final long[] POWERS_OF_TEN = {
+      1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+  };
+
+  private MinorUnits() {
+  }
+
+  /**
+   * Converts amount in major units to minor units of provided currency.
+   *
+   * @param amount   amount in major units
+   * @param currency currency of amount
+   * @return amount in minor units
+   * @throws IllegalArgumentException if amount is not a whole number of minor units
+   */
+  public static long toMinorUnits(double amount, Currency currency)
+      throws IllegalArgumentException {
+    long factor = factor(currency);
+    long minorAmount = Math.round(amount * factor);
+    if (minorAmount / (double) factor != amount) {
+      throw new IllegalArgumentException("amount " + amount
+          + " is not a whole number of minor units of " + currency.getCurrencyCode());
+    }
+    return minorAmount;
+  }
+
+  /**
+   * Converts amount in minor units to major units of provided currency.
+   *
+   * @param minorAmount amount in minor units
+   * @param currency    currency of amount
+   * @return amount in major units
+   */
+  public static double toMajorUnits(long minorAmount, Currency currency) {
+    return minorAmount / (double) factor(currency);
+  }
+
+  private static long factor(Currency currency) {
+    int digits = Math.max(currency.getDefaultFractionDigits(), 0);
+    return POWERS_OF_TEN[Math.min(digits, POWERS_OF_TEN.length - 1)];
+  }
+}
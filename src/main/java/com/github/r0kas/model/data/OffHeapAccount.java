@@ -0,0 +1,149 @@
+package com.github.r0kas.model.data;
+
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.UUID;
+
+/**
+ * Off-heap account is a flyweight view of account record in {@link OffHeapAccountTable}.
+ * Every read and write goes directly to the record, views are cheap to create and
+ * any number of them can exist for the same account.
+ *
+ * <p>Record fields are updated in place under version word of the record, so every
+ * mutation changes balance, last update date and journal position as one step and copies
+ * always read them from the same version.
+ *
+ * <p>View is bound to generation of its record. Once removed record is reused by another
+ * account, view reports its account as closed, its writes are ignored and reads of its state
+ * throw {@link java.util.NoSuchElementException}. Id and currency are kept by the view.
+ */
+final class OffHeapAccount extends Account {
+
+  private final OffHeapAccountTable table;
+  private final int record;
+  private final int generation;
+  private final UUID id;
+  private final Currency currency;
+
+  OffHeapAccount(OffHeapAccountTable table, int record, int generation, UUID id,
+                 Currency currency) {
+    this.table = table;
+    this.record = record;
+    this.generation = generation;
+    this.id = id;
+    this.currency = currency;
+  }
+
+  int record() {
+    return record;
+  }
+
+  int generation() {
+    return generation;
+  }
+
+  boolean isViewOf(OffHeapAccount other) {
+    return table == other.table && record == other.record && generation == other.generation;
+  }
+
+  @Override
+  public UUID id() {
+    return id;
+  }
+
+  @Override
+  public UUID holderId() {
+    return table.holderId(record, generation);
+  }
+
+  @Override
+  public String createdOn() {
+    return table.createdOn(record, generation);
+  }
+
+  @Override
+  public String updatedOn() {
+    return table.updatedOn(record, generation);
+  }
+
+  @Override
+  public void setUpdatedOn(ZonedDateTime updatedOn) {
+    table.setUpdatedOn(record, generation, updatedOn);
+  }
+
+  @Override
+  public Currency currency() {
+    return currency;
+  }
+
+  @Override
+  public long minorBalance() {
+    return table.minorBalance(record, generation);
+  }
+
+  @Override
+  public void setMinorBalance(long minorBalance) {
+    table.setMinorBalance(record, generation, minorBalance);
+  }
+
+  @Override
+  public void setMinorBalance(long minorBalance, ZonedDateTime updatedOn) {
+    table.setMinorBalance(record, generation, minorBalance, updatedOn);
+  }
+
+  @Override
+  public boolean compareAndSetMinorBalance(long expected, long updated) {
+    return table.compareAndSetMinorBalance(record, generation, expected, updated);
+  }
+
+  @Override
+  public boolean compareAndSetMinorBalance(long expected, long updated,
+                                           ZonedDateTime updatedOn) {
+    return table.compareAndSetMinorBalance(record, generation, expected, updated, updatedOn);
+  }
+
+  @Override
+  public long addMinorBalance(long delta) {
+    return table.addMinorBalance(record, generation, delta);
+  }
+
+  @Override
+  public long addMinorBalance(long delta, ZonedDateTime updatedOn) {
+    return table.addMinorBalance(record, generation, delta, updatedOn);
+  }
+
+  @Override
+  public long journalPosition() {
+    return table.journalPosition(record, generation);
+  }
+
+  @Override
+  public void setJournalPosition(long journalPosition) {
+    table.setJournalPosition(record, generation, journalPosition);
+  }
+
+  @Override
+  public long close() {
+    return table.close(record, generation);
+  }
+
+  @Override
+  public boolean isClosed() {
+    return table.isClosed(record, generation);
+  }
+
+  @Override
+  long historyHead() {
+    return table.historyHead(record, generation);
+  }
+
+  @Override
+  boolean compareAndSetHistoryHead(long expected, long updated) {
+    return table.compareAndSetHistoryHead(record, generation, expected, updated);
+  }
+
+  @Override
+  State currentState() {
+    return table.state(record, generation);
+  }
+}
@@ -0,0 +1,680 @@
+package com.github.r0kas.model.data;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Off-heap account table keeps accounts as fixed width records in direct memory slabs.
+ * Heap usage does not grow with number of accounts: ids are two longs, timestamps are
+ * epoch nanoseconds, currency is an index into available currencies. Accounts are
+ * returned as short lived {@link OffHeapAccount} views reading and writing the record.
+ *
+ * <p>Every record has a version word, a sequence lock. Writers make version odd for the time
+ * of their change, readers retry when version was odd or changed meanwhile, so they never see
+ * fields of two different updates.
+ *
+ * <p>Id index is open addressing table of record numbers, also kept in direct memory.
+ * Reads are lock-free, inserts and removals are serialized by table lock. Growing index
+ * is rebuilt by writer and published at once, readers keep probing previous one meanwhile.
+ *
+ * <p>Removed records are kept in a free list and reused by inserted accounts, so churn of
+ * accounts does not grow direct memory. Status word of a record holds generation incremented
+ * on every reuse and views remember generation they were created for. View of a reused
+ * record fails its compare-and-set operations and reports its account as closed, other reads
+ * throw {@link NoSuchElementException}. Iteration returns detached copies, so it is not
+ * affected by reuse.
+ */
+final class OffHeapAccountTable implements AccountTable {
+
+  private static final VarHandle LONG =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+  private static final VarHandle INT =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+  private static final int ID_MSB = 0;
+  private static final int ID_LSB = 8;
+  private static final int HOLDER_MSB = 16;
+  private static final int HOLDER_LSB = 24;
+  private static final int CREATED_ON = 32;
+  private static final int UPDATED_ON = 40;
+  private static final int MINOR_BALANCE = 48;
+  private static final int JOURNAL_POSITION = 56;
+  private static final int CURRENCY = 64;
+  private static final int STATUS = 68;
+  private static final int HISTORY_HEAD = 72;
+  private static final int VERSION = 80;
+  private static final int RECORD_BYTES = 88;
+
+  private static final int LIVE = 1;
+  private static final int REMOVED = 2;
+  private static final int STATUS_BITS = 2;
+  private static final int STATUS_MASK = (1 << STATUS_BITS) - 1;
+  private static final int GENERATION_MASK = -1 >>> STATUS_BITS;
+
+  private static final int SLAB_SHIFT = 16;
+  private static final int SLAB_RECORDS = 1 << SLAB_SHIFT;
+  private static final int EMPTY = 0;
+  private static final int TOMBSTONE = -1;
+  private static final int MIN_INDEX_CAPACITY = 1024;
+
+  private static final Currency[] CURRENCIES = currencies();
+  private static final Map<Currency, Integer> CURRENCY_INDEX = currencyIndex();
+
+  private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+  private volatile ByteBuffer index = allocateIndex(MIN_INDEX_CAPACITY);
+  private volatile int records;
+  private volatile int size;
+  private int indexUsed;
+  private int[] free = new int[16];
+  private int freeCount;
+
+  @Override
+  public Account get(long msb, long lsb) {
+    return view(msb, lsb);
+  }
+
+  @Override
+  public Account put(Account account) {
+    UUID id = account.id();
+    OffHeapAccount stored = view(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    if (stored != null) {
+      Account updated = update(stored, account);
+      if (updated != null) {
+        return updated;
+      }
+    }
+    return insert(account);
+  }
+
+  @Override
+  public synchronized void remove(UUID accountId) {
+    long msb = accountId.getMostSignificantBits();
+    long lsb = accountId.getLeastSignificantBits();
+    ByteBuffer entries = index;
+    int mask = entries.capacity() / Integer.BYTES - 1;
+    for (int i = UuidMap.hash(msb, lsb) & mask; ; i = (i + 1) & mask) {
+      int entry = (int) INT.getAcquire(entries, i * Integer.BYTES);
+      if (entry == EMPTY) {
+        return;
+      }
+      if (entry > 0 && matches(entry - 1, msb, lsb)) {
+        int record = entry - 1;
+        ByteBuffer slab = slab(record);
+        int offset = offset(record);
+        long version = beginWrite(slab, offset);
+        int status = (int) INT.getVolatile(slab, offset + STATUS);
+        INT.setVolatile(slab, offset + STATUS, (status & ~STATUS_MASK) | REMOVED);
+        endWrite(slab, offset, version);
+        INT.setRelease(entries, i * Integer.BYTES, TOMBSTONE);
+        size--;
+        if (freeCount == free.length) {
+          free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = record;
+        return;
+      }
+    }
+  }
+
+  @Override
+  public Collection<Account> values() {
+    return new AbstractCollection<>() {
+      @Override
+      public Iterator<Account> iterator() {
+        return new RecordIterator(records);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Number of records allocated in slabs, live or free.
+   *
+   * @return allocated records
+   */
+  int records() {
+    return records;
+  }
+
+  UUID holderId(int record, int generation) {
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    while (true) {
+      long version = (long) LONG.getAcquire(slab, offset + VERSION);
+      if ((version & 1) == 0) {
+        int status = (int) INT.getOpaque(slab, offset + STATUS);
+        long msb = (long) LONG.getOpaque(slab, offset + HOLDER_MSB);
+        long lsb = (long) LONG.getOpaque(slab, offset + HOLDER_LSB);
+        VarHandle.acquireFence();
+        if ((long) LONG.getOpaque(slab, offset + VERSION) == version) {
+          validateGeneration(status, generation);
+          return new UUID(msb, lsb);
+        }
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  String createdOn(int record, int generation) {
+    long createdOn = (long) LONG.getVolatile(slab(record), offset(record) + CREATED_ON);
+    validateGeneration(status(record), generation);
+    return timestamp(createdOn);
+  }
+
+  String updatedOn(int record, int generation) {
+    long updatedOn = (long) LONG.getVolatile(slab(record), offset(record) + UPDATED_ON);
+    validateGeneration(status(record), generation);
+    return timestamp(updatedOn);
+  }
+
+  void setUpdatedOn(int record, int generation, ZonedDateTime updatedOn) {
+    long updatedOnNanos = epochNanos(updatedOn.toInstant());
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    if (isGeneration(slab, offset, generation)) {
+      LONG.setVolatile(slab, offset + UPDATED_ON, updatedOnNanos);
+    }
+    endWrite(slab, offset, version);
+  }
+
+  long minorBalance(int record, int generation) {
+    long balance = (long) LONG.getVolatile(slab(record), offset(record) + MINOR_BALANCE);
+    validateGeneration(status(record), generation);
+    return balance;
+  }
+
+  void setMinorBalance(int record, int generation, long minorBalance) {
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    if (isGeneration(slab, offset, generation)) {
+      LONG.setVolatile(slab, offset + MINOR_BALANCE, minorBalance);
+    }
+    endWrite(slab, offset, version);
+  }
+
+  void setMinorBalance(int record, int generation, long minorBalance,
+                       ZonedDateTime updatedOn) {
+    long updatedOnNanos = epochNanos(updatedOn.toInstant());
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    if (isGeneration(slab, offset, generation)) {
+      LONG.setVolatile(slab, offset + MINOR_BALANCE, minorBalance);
+      LONG.setVolatile(slab, offset + UPDATED_ON, updatedOnNanos);
+    }
+    endWrite(slab, offset, version);
+  }
+
+  boolean compareAndSetMinorBalance(int record, int generation, long expected, long updated) {
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    boolean set = isLive(slab, offset, generation)
+        && (long) LONG.getVolatile(slab, offset + MINOR_BALANCE) == expected;
+    if (set) {
+      LONG.setVolatile(slab, offset + MINOR_BALANCE, updated);
+    }
+    endWrite(slab, offset, version);
+    return set;
+  }
+
+  boolean compareAndSetMinorBalance(int record, int generation, long expected, long updated,
+                                    ZonedDateTime updatedOn) {
+    long updatedOnNanos = epochNanos(updatedOn.toInstant());
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    boolean set = isLive(slab, offset, generation)
+        && (long) LONG.getVolatile(slab, offset + MINOR_BALANCE) == expected;
+    if (set) {
+      LONG.setVolatile(slab, offset + MINOR_BALANCE, updated);
+      LONG.setVolatile(slab, offset + UPDATED_ON, updatedOnNanos);
+    }
+    endWrite(slab, offset, version);
+    return set;
+  }
+
+  long addMinorBalance(int record, int generation, long delta) {
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    try {
+      validateGeneration((int) INT.getVolatile(slab, offset + STATUS), generation);
+      long balance = (long) LONG.getVolatile(slab, offset + MINOR_BALANCE) + delta;
+      LONG.setVolatile(slab, offset + MINOR_BALANCE, balance);
+      return balance;
+    } finally {
+      endWrite(slab, offset, version);
+    }
+  }
+
+  long addMinorBalance(int record, int generation, long delta, ZonedDateTime updatedOn) {
+    long updatedOnNanos = epochNanos(updatedOn.toInstant());
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    try {
+      validateGeneration((int) INT.getVolatile(slab, offset + STATUS), generation);
+      long balance = (long) LONG.getVolatile(slab, offset + MINOR_BALANCE) + delta;
+      LONG.setVolatile(slab, offset + MINOR_BALANCE, balance);
+      LONG.setVolatile(slab, offset + UPDATED_ON, updatedOnNanos);
+      return balance;
+    } finally {
+      endWrite(slab, offset, version);
+    }
+  }
+
+  /**
+   * Marks record removed, so compare-and-set of its balance fails from now on. Record stays
+   * out of free list until it is removed from the table.
+   *
+   * @param record     record number
+   * @param generation generation of the record view
+   * @return balance in minor units at the time record was closed
+   * @throws NoSuchElementException if record was reused
+   */
+  long close(int record, int generation) throws NoSuchElementException {
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    try {
+      int status = (int) INT.getVolatile(slab, offset + STATUS);
+      validateGeneration(status, generation);
+      INT.setVolatile(slab, offset + STATUS, (status & ~STATUS_MASK) | REMOVED);
+      return (long) LONG.getVolatile(slab, offset + MINOR_BALANCE);
+    } finally {
+      endWrite(slab, offset, version);
+    }
+  }
+
+  boolean isClosed(int record, int generation) {
+    return status(record) != liveStatus(generation);
+  }
+
+  long journalPosition(int record, int generation) {
+    long position = (long) LONG.getVolatile(slab(record), offset(record) + JOURNAL_POSITION);
+    validateGeneration(status(record), generation);
+    return position;
+  }
+
+  void setJournalPosition(int record, int generation, long journalPosition) {
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    if (isGeneration(slab, offset, generation)) {
+      LONG.setVolatile(slab, offset + JOURNAL_POSITION, journalPosition);
+    }
+    endWrite(slab, offset, version);
+  }
+
+  /**
+   * Reads balance, last update date and journal position of one version of the record.
+   *
+   * @param record     record number
+   * @param generation generation of the record view
+   * @return record state
+   * @throws NoSuchElementException if record was reused
+   */
+  Account.State state(int record, int generation) throws NoSuchElementException {
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    while (true) {
+      long version = (long) LONG.getAcquire(slab, offset + VERSION);
+      if ((version & 1) == 0) {
+        int status = (int) INT.getOpaque(slab, offset + STATUS);
+        long minorBalance = (long) LONG.getOpaque(slab, offset + MINOR_BALANCE);
+        long updatedOn = (long) LONG.getOpaque(slab, offset + UPDATED_ON);
+        long journalPosition = (long) LONG.getOpaque(slab, offset + JOURNAL_POSITION);
+        VarHandle.acquireFence();
+        if ((long) LONG.getOpaque(slab, offset + VERSION) == version) {
+          validateGeneration(status, generation);
+          return new Account.State(minorBalance, timestamp(updatedOn), journalPosition,
+              (status & STATUS_MASK) != LIVE);
+        }
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  long historyHead(int record, int generation) {
+    long head = (long) LONG.getVolatile(slab(record), offset(record) + HISTORY_HEAD);
+    return status(record) >>> STATUS_BITS == generation ? head : -1;
+  }
+
+  boolean compareAndSetHistoryHead(int record, int generation, long expected, long updated) {
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    boolean set = isGeneration(slab, offset, generation)
+        && LONG.compareAndSet(slab, offset + HISTORY_HEAD, expected, updated);
+    endWrite(slab, offset, version);
+    return set;
+  }
+
+  private OffHeapAccount view(long msb, long lsb) {
+    int record = find(msb, lsb);
+    if (record < 0) {
+      return null;
+    }
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    while (true) {
+      long version = (long) LONG.getAcquire(slab, offset + VERSION);
+      if ((version & 1) == 0) {
+        int status = (int) INT.getOpaque(slab, offset + STATUS);
+        boolean matches = (long) LONG.getOpaque(slab, offset + ID_MSB) == msb
+            && (long) LONG.getOpaque(slab, offset + ID_LSB) == lsb;
+        int currency = (int) INT.getOpaque(slab, offset + CURRENCY);
+        VarHandle.acquireFence();
+        if ((long) LONG.getOpaque(slab, offset + VERSION) == version) {
+          if (!matches || (status & STATUS_MASK) != LIVE) {
+            return null;
+          }
+          return new OffHeapAccount(this, record, status >>> STATUS_BITS, new UUID(msb, lsb),
+              CURRENCIES[currency]);
+        }
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  private Account update(OffHeapAccount stored, Account account) {
+    if (account instanceof OffHeapAccount && ((OffHeapAccount) account).isViewOf(stored)) {
+      return account;
+    }
+    Account.State state = account.currentState();
+    long updatedOn = epochNanos(ZonedDateTime.parse(state.updatedOn()).toInstant());
+    int record = stored.record();
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    long version = beginWrite(slab, offset);
+    boolean current = isGeneration(slab, offset, stored.generation());
+    if (current) {
+      LONG.setVolatile(slab, offset + MINOR_BALANCE, state.minorBalance());
+      LONG.setVolatile(slab, offset + UPDATED_ON, updatedOn);
+      LONG.setVolatile(slab, offset + JOURNAL_POSITION, state.journalPosition());
+    }
+    endWrite(slab, offset, version);
+    return current ? stored : null;
+  }
+
+  private synchronized Account insert(Account account) {
+    UUID id = account.id();
+    OffHeapAccount existing = view(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    if (existing != null) {
+      return update(existing, account);
+    }
+
+    int record;
+    int generation;
+    if (freeCount > 0) {
+      record = free[--freeCount];
+      generation = ((status(record) >>> STATUS_BITS) + 1) & GENERATION_MASK;
+    } else {
+      record = records;
+      generation = 0;
+      if (record == slabs.length * SLAB_RECORDS) {
+        ByteBuffer[] grown = Arrays.copyOf(slabs, slabs.length + 1);
+        grown[slabs.length] = ByteBuffer.allocateDirect(SLAB_RECORDS * RECORD_BYTES)
+            .order(ByteOrder.nativeOrder());
+        slabs = grown;
+      }
+    }
+    write(record, generation, account);
+    if (record == records) {
+      records = record + 1;
+    }
+
+    if ((indexUsed + 1) * 4L > (index.capacity() / Integer.BYTES) * 3L) {
+      rebuildIndex();
+    }
+    publish(index, record);
+    indexUsed++;
+    size++;
+    return new OffHeapAccount(this, record, generation, id, account.currency());
+  }
+
+  /**
+   * Writes every field of a new or reused record. Status with new generation is written
+   * first, so views of previous generation reading any field afterwards detect reuse.
+   */
+  private void write(int record, int generation, Account account) {
+    UUID id = account.id();
+    final long createdOn = epochNanos(ZonedDateTime.parse(account.createdOn()).toInstant());
+    final long updatedOn = epochNanos(ZonedDateTime.parse(account.updatedOn()).toInstant());
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    final long version = beginWrite(slab, offset);
+    INT.setVolatile(slab, offset + STATUS, liveStatus(generation));
+    LONG.setVolatile(slab, offset + ID_MSB, id.getMostSignificantBits());
+    LONG.setVolatile(slab, offset + ID_LSB, id.getLeastSignificantBits());
+    LONG.setVolatile(slab, offset + HOLDER_MSB, account.holderId().getMostSignificantBits());
+    LONG.setVolatile(slab, offset + HOLDER_LSB, account.holderId().getLeastSignificantBits());
+    LONG.setVolatile(slab, offset + CREATED_ON, createdOn);
+    LONG.setVolatile(slab, offset + UPDATED_ON, updatedOn);
+    LONG.setVolatile(slab, offset + MINOR_BALANCE, account.minorBalance());
+    LONG.setVolatile(slab, offset + JOURNAL_POSITION, account.journalPosition());
+    INT.setVolatile(slab, offset + CURRENCY, CURRENCY_INDEX.get(account.currency()));
+    LONG.setVolatile(slab, offset + HISTORY_HEAD, account.historyHead());
+    endWrite(slab, offset, version);
+  }
+
+  /**
+   * Copies record of live account under its version word.
+   *
+   * @param record record number
+   * @return detached account copy, null if record is not live
+   */
+  private Account copy(int record) {
+    ByteBuffer slab = slab(record);
+    int offset = offset(record);
+    while (true) {
+      long version = (long) LONG.getAcquire(slab, offset + VERSION);
+      if ((version & 1) == 0) {
+        int status = (int) INT.getOpaque(slab, offset + STATUS);
+        long idMsb = (long) LONG.getOpaque(slab, offset + ID_MSB);
+        long idLsb = (long) LONG.getOpaque(slab, offset + ID_LSB);
+        long holderMsb = (long) LONG.getOpaque(slab, offset + HOLDER_MSB);
+        long holderLsb = (long) LONG.getOpaque(slab, offset + HOLDER_LSB);
+        long createdOn = (long) LONG.getOpaque(slab, offset + CREATED_ON);
+        long updatedOn = (long) LONG.getOpaque(slab, offset + UPDATED_ON);
+        long minorBalance = (long) LONG.getOpaque(slab, offset + MINOR_BALANCE);
+        long journalPosition = (long) LONG.getOpaque(slab, offset + JOURNAL_POSITION);
+        int currency = (int) INT.getOpaque(slab, offset + CURRENCY);
+        VarHandle.acquireFence();
+        if ((long) LONG.getOpaque(slab, offset + VERSION) == version) {
+          if ((status & STATUS_MASK) != LIVE) {
+            return null;
+          }
+          return new Account(new UUID(idMsb, idLsb), new UUID(holderMsb, holderLsb),
+              timestamp(createdOn), CURRENCIES[currency],
+              new Account.State(minorBalance, timestamp(updatedOn), journalPosition));
+        }
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  private void rebuildIndex() {
+    int capacity = MIN_INDEX_CAPACITY;
+    while (capacity / 4 * 3 <= size * 2) {
+      capacity <<= 1;
+    }
+    ByteBuffer rebuilt = allocateIndex(capacity);
+    int live = 0;
+    for (int record = 0; record < records; record++) {
+      if ((status(record) & STATUS_MASK) == LIVE) {
+        publish(rebuilt, record);
+        live++;
+      }
+    }
+    index = rebuilt;
+    indexUsed = live;
+  }
+
+  private void publish(ByteBuffer entries, int record) {
+    int mask = entries.capacity() / Integer.BYTES - 1;
+    int i = UuidMap.hash(readLong(record, ID_MSB), readLong(record, ID_LSB)) & mask;
+    while ((int) INT.getAcquire(entries, i * Integer.BYTES) != EMPTY) {
+      i = (i + 1) & mask;
+    }
+    INT.setRelease(entries, i * Integer.BYTES, record + 1);
+  }
+
+  /**
+   * Probes index for record with provided id. Reused record may already belong to another
+   * account, so lock-free callers verify id under version word.
+   */
+  private int find(long msb, long lsb) {
+    ByteBuffer entries = index;
+    int mask = entries.capacity() / Integer.BYTES - 1;
+    for (int i = UuidMap.hash(msb, lsb) & mask; ; i = (i + 1) & mask) {
+      int entry = (int) INT.getAcquire(entries, i * Integer.BYTES);
+      if (entry == EMPTY) {
+        return -1;
+      }
+      if (entry > 0 && matches(entry - 1, msb, lsb)) {
+        return entry - 1;
+      }
+    }
+  }
+
+  private boolean matches(int record, long msb, long lsb) {
+    return readLong(record, ID_MSB) == msb && readLong(record, ID_LSB) == lsb;
+  }
+
+  private long beginWrite(ByteBuffer slab, int offset) {
+    while (true) {
+      long version = (long) LONG.getVolatile(slab, offset + VERSION);
+      if ((version & 1) == 0
+          && LONG.compareAndSet(slab, offset + VERSION, version, version + 1)) {
+        return version;
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  private void endWrite(ByteBuffer slab, int offset, long version) {
+    LONG.setRelease(slab, offset + VERSION, version + 2);
+  }
+
+  private boolean isGeneration(ByteBuffer slab, int offset, int generation) {
+    return (int) INT.getVolatile(slab, offset + STATUS) >>> STATUS_BITS == generation;
+  }
+
+  private boolean isLive(ByteBuffer slab, int offset, int generation) {
+    return (int) INT.getVolatile(slab, offset + STATUS) == liveStatus(generation);
+  }
+
+  private int status(int record) {
+    return (int) INT.getAcquire(slab(record), offset(record) + STATUS);
+  }
+
+  private long readLong(int record, int field) {
+    return (long) LONG.getOpaque(slab(record), offset(record) + field);
+  }
+
+  private ByteBuffer slab(int record) {
+    return slabs[record >>> SLAB_SHIFT];
+  }
+
+  private static int offset(int record) {
+    return (record & (SLAB_RECORDS - 1)) * RECORD_BYTES;
+  }
+
+  private static ByteBuffer allocateIndex(int capacity) {
+    return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder());
+  }
+
+  private static long epochNanos(Instant instant) {
+    return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+  }
+
+  private static String timestamp(long epochNanos) {
+    return ZonedDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), ZoneOffset.UTC)
+        .toString();
+  }
+
+  private static Currency[] currencies() {
+    return Currency.getAvailableCurrencies().stream()
+        .sorted(Comparator.comparing(Currency::getCurrencyCode))
+        .toArray(Currency[]::new);
+  }
+
+  private static Map<Currency, Integer> currencyIndex() {
+    Map<Currency, Integer> codes = new HashMap<>();
+    for (int i = 0; i < CURRENCIES.length; i++) {
+      codes.put(CURRENCIES[i], i);
+    }
+    return codes;
+  }
+
+  private static int liveStatus(int generation) {
+    return generation << STATUS_BITS | LIVE;
+  }
+
+  private static void validateGeneration(int status, int generation)
+      throws NoSuchElementException {
+    if (status >>> STATUS_BITS != generation) {
+      throw new NoSuchElementException("account record was reused");
+    }
+  }
+
+  /**
+   * Iterator over copies of live records existing when iteration started.
+   */
+  private final class RecordIterator implements Iterator<Account> {
+
+    private final int end;
+    private int record = -1;
+    private Account next;
+
+    private RecordIterator(int end) {
+      this.end = end;
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Account next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Account account = next;
+      advance();
+      return account;
+    }
+
+    private void advance() {
+      next = null;
+      while (next == null && ++record < end) {
+        next = copy(record);
+      }
+    }
+  }
+}
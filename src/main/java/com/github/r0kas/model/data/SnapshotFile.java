@@ -0,0 +1,316 @@
+package com.github.r0kas.model.data;
+
+import static com.github.r0kas.model.data.BinaryRecords.getString;
+import static com.github.r0kas.model.data.BinaryRecords.getUuid;
+import static com.github.r0kas.model.data.BinaryRecords.putString;
+import static com.github.r0kas.model.data.BinaryRecords.putUuid;
+import static com.github.r0kas.model.data.BinaryRecords.utf8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot file is memory mapped binary image of all users and accounts.
+ * File starts with fixed header, followed by independently encoded chunks of records and
+ * chunk directory. Each chunk is protected by CRC32 and can be decoded on its own, so
+ * loading decodes chunks in parallel.
+ *
+ * <p>Snapshot is written to temporary file which atomically replaces previous snapshot
+ * once fully forced to disk.
+ */
+final class SnapshotFile {
+
+  private static final int MAGIC = 0x54465350;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = Integer.BYTES * 4 + Long.BYTES * 2;
+  private static final int DIRECTORY_ENTRY_BYTES = 1 + Integer.BYTES * 3 + Long.BYTES;
+  private static final int CHUNK_RECORDS = 16 * 1024;
+  private static final int INITIAL_CHUNK_BYTES = 1024 * 1024;
+
+  private static final byte USERS = 1;
+  private static final byte ACCOUNTS = 2;
+
+  private SnapshotFile() {
+  }
+
+  /**
+   * Writes snapshot of provided entities.
+   *
+   * @param path            snapshot file location
+   * @param journalPosition journal position snapshot is taken at
+   * @param users           live users
+   * @param accounts        live accounts
+   * @param source          source capturing consistent entity copies
+   * @throws IOException if snapshot cannot be written
+   */
+  static void write(Path path, long journalPosition, Collection<User> users,
+                    Collection<Account> accounts, SnapshotSource source) throws IOException {
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      Writer writer = new Writer(channel);
+      writer.writeChunks(USERS, users, chunk -> encodeUsers(source.captureUsers(chunk)));
+      writer.writeChunks(ACCOUNTS, accounts,
+          chunk -> encodeAccounts(source.captureAccounts(chunk)));
+      writer.finish(journalPosition);
+      channel.force(true);
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Loads snapshot into data store. Chunks are decoded in parallel, owned accounts are
+   * linked to their holders afterwards.
+   *
+   * @param path  snapshot file location
+   * @param store empty data store to load into
+   * @return journal position snapshot was taken at
+   * @throws IOException if snapshot cannot be read or is corrupted
+   */
+  static long load(Path path, MemoryDataStore store) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_BYTES);
+      if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new IOException("unsupported snapshot file: " + path);
+      }
+      final long journalPosition = header.getLong();
+      long directoryOffset = header.getLong();
+      int chunkCount = header.getInt();
+      int directoryCrc = header.getInt();
+
+      MappedByteBuffer directory = channel.map(MapMode.READ_ONLY, directoryOffset,
+          (long) chunkCount * DIRECTORY_ENTRY_BYTES);
+      if (checksum(directory.duplicate()) != directoryCrc) {
+        throw new IOException("corrupted snapshot directory: " + path);
+      }
+      try {
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+          ByteBuffer entry = directory.duplicate();
+          entry.position(chunk * DIRECTORY_ENTRY_BYTES);
+          decodeChunk(channel, entry, store);
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      linkOwnedAccounts(store);
+      return journalPosition;
+    }
+  }
+
+  private static void decodeChunk(FileChannel channel, ByteBuffer entry,
+                                  MemoryDataStore store) {
+    byte type = entry.get();
+    int count = entry.getInt();
+    long offset = entry.getLong();
+    int length = entry.getInt();
+    int crc = entry.getInt();
+    try {
+      MappedByteBuffer records = channel.map(MapMode.READ_ONLY, offset, length);
+      if (checksum(records.duplicate()) != crc) {
+        throw new IOException("corrupted snapshot chunk at " + offset);
+      }
+      for (int i = 0; i < count; i++) {
+        if (type == USERS) {
+          store.setUser(decodeUser(records));
+        } else {
+          store.setAccount(decodeAccount(records));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void linkOwnedAccounts(MemoryDataStore store) {
+    for (Account account : store.accounts()) {
+      store.linkOwnedAccount(account.holderId(), account.id());
+    }
+  }
+
+  private static Chunk encodeUsers(List<User> users) {
+    Chunk chunk = new Chunk(users.size());
+    for (User user : users) {
+      byte[] createdOn = utf8(user.createdOn());
+      byte[] updatedOn = utf8(user.updatedOn());
+      byte[] name = utf8(user.name());
+      byte[] address = utf8(user.address());
+      byte[] countryCode = utf8(user.countryCode());
+      ByteBuffer buffer = chunk.reserve(BinaryRecords.UUID_BYTES + Integer.BYTES * 5 + 1
+          + createdOn.length + updatedOn.length + name.length + address.length
+          + countryCode.length);
+      putUuid(buffer, user.id());
+      putString(buffer, createdOn);
+      putString(buffer, updatedOn);
+      putString(buffer, name);
+      putString(buffer, address);
+      putString(buffer, countryCode);
+      buffer.put((byte) user.type().ordinal());
+    }
+    return chunk;
+  }
+
+  private static User decodeUser(ByteBuffer buffer) {
+    return new User(getUuid(buffer), getString(buffer), getString(buffer), getString(buffer),
+        getString(buffer), getString(buffer), HolderType.values()[buffer.get()]);
+  }
+
+  private static Chunk encodeAccounts(List<Account> accounts) {
+    Chunk chunk = new Chunk(accounts.size());
+    for (Account account : accounts) {
+      byte[] createdOn = utf8(account.createdOn());
+      byte[] updatedOn = utf8(account.updatedOn());
+      byte[] currency = utf8(account.currency().getCurrencyCode());
+      ByteBuffer buffer = chunk.reserve(BinaryRecords.UUID_BYTES * 2 + Integer.BYTES * 3
+          + Long.BYTES * 2 + createdOn.length + updatedOn.length + currency.length);
+      putUuid(buffer, account.id());
+      putUuid(buffer, account.holderId());
+      putString(buffer, createdOn);
+      putString(buffer, updatedOn);
+      putString(buffer, currency);
+      buffer.putLong(account.minorBalance());
+      buffer.putLong(account.journalPosition());
+    }
+    return chunk;
+  }
+
+  private static Account decodeAccount(ByteBuffer buffer) {
+    Account account = new Account(getUuid(buffer), getUuid(buffer), getString(buffer),
+        getString(buffer), Currency.getInstance(getString(buffer)), buffer.getLong());
+    account.setJournalPosition(buffer.getLong());
+    return account;
+  }
+
+  private static int checksum(ByteBuffer buffer) {
+    CRC32 crc = new CRC32();
+    crc.update(buffer);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Encoded chunk of records.
+   */
+  private static final class Chunk {
+
+    private final int count;
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CHUNK_BYTES);
+
+    private Chunk(int count) {
+      this.count = count;
+    }
+
+    private ByteBuffer reserve(int bytes) {
+      if (buffer.remaining() < bytes) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2,
+            buffer.position() + bytes));
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+      }
+      return buffer;
+    }
+  }
+
+  /**
+   * Chunk encoder invoked with live entities of one chunk.
+   *
+   * @param <T> entity type
+   */
+  @FunctionalInterface
+  private interface ChunkEncoder<T> {
+    Chunk encode(List<T> entities);
+  }
+
+  /**
+   * Writer appends chunks to mapped regions of snapshot file and records their directory.
+   */
+  private static final class Writer {
+
+    private final FileChannel channel;
+    private ByteBuffer entries = ByteBuffer.allocate(DIRECTORY_ENTRY_BYTES * 64);
+    private long position = HEADER_BYTES;
+    private int chunkCount;
+
+    private Writer(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    private <T> void writeChunks(byte type, Collection<T> entities, ChunkEncoder<T> encoder)
+        throws IOException {
+      List<T> batch = new ArrayList<>(CHUNK_RECORDS);
+      for (T entity : entities) {
+        batch.add(entity);
+        if (batch.size() == CHUNK_RECORDS) {
+          writeChunk(type, encoder.encode(batch));
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        writeChunk(type, encoder.encode(batch));
+      }
+    }
+
+    private void writeChunk(byte type, Chunk chunk) throws IOException {
+      ByteBuffer records = chunk.buffer.flip();
+      final int length = records.remaining();
+      final int crc = checksum(records.duplicate());
+      write(records, position);
+
+      if (entries.remaining() < DIRECTORY_ENTRY_BYTES) {
+        ByteBuffer grown = ByteBuffer.allocate(entries.capacity() * 2);
+        entries.flip();
+        grown.put(entries);
+        entries = grown;
+      }
+      entries.put(type);
+      entries.putInt(chunk.count);
+      entries.putLong(position);
+      entries.putInt(length);
+      entries.putInt(crc);
+      position += length;
+      chunkCount++;
+    }
+
+    private void finish(long journalPosition) throws IOException {
+      entries.flip();
+      final int directoryCrc = checksum(entries.duplicate());
+      long directoryOffset = position;
+      write(entries, directoryOffset);
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      header.putInt(MAGIC);
+      header.putInt(VERSION);
+      header.putLong(journalPosition);
+      header.putLong(directoryOffset);
+      header.putInt(chunkCount);
+      header.putInt(directoryCrc);
+      header.flip();
+      write(header, 0);
+    }
+
+    private void write(ByteBuffer source, long offset) throws IOException {
+      if (!source.hasRemaining()) {
+        return;
+      }
+      MappedByteBuffer region = channel.map(MapMode.READ_WRITE, offset, source.remaining());
+      region.put(source);
+      region.force();
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.github.r0kas.model.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot source captures consistent copies of data store entities while snapshot is
+ * written. Entities are passed in chunks, so the owner of the data store can coordinate
+ * each chunk with concurrent mutations without pausing the whole store.
+ */
+public interface SnapshotSource {
+
+  /**
+   * Source copying entities without any coordination. Produces consistent snapshot only
+   * when data store is not modified while snapshot is written.
+   *
+   * @return copying snapshot source
+   */
+  static SnapshotSource copying() {
+    return new SnapshotSource() {
+      @Override
+      public List<User> captureUsers(List<User> users) {
+        return users;
+      }
+
+      @Override
+      public List<Account> captureAccounts(List<Account> accounts) {
+        List<Account> copies = new ArrayList<>(accounts.size());
+        accounts.forEach(account -> copies.add(account.copy()));
+        return copies;
+      }
+    };
+  }
+
+  /**
+   * Captures current versions of provided users. Users removed meanwhile may be omitted.
+   *
+   * @param users stored users
+   * @return captured users
+   */
+  List<User> captureUsers(List<User> users);
+
+  /**
+   * Captures copies of provided accounts. Every copy must carry journal position matching
+   * its balance. Accounts removed meanwhile may be omitted.
+   *
+   * @param accounts live accounts
+   * @return account copies
+   */
+  List<Account> captureAccounts(List<Account> accounts);
+}
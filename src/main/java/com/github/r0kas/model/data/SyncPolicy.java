@@ -0,0 +1,20 @@
+package com.github.r0kas.model.data;
+
+/**
+ * Sync policy describes when journal records are forced to durable storage.
+ */
+public enum SyncPolicy {
+  /**
+   * Every group of concurrently appended records is forced to disk before acknowledging.
+   */
+  BATCH,
+  /**
+   * Records are acknowledged once written to file system, disk is forced on fixed interval.
+   */
+  INTERVAL,
+  /**
+   * Records are acknowledged once written to file system, operating system decides when to
+   * force them to disk.
+   */
+  OS
+}
@@ -0,0 +1,70 @@
+package com.github.r0kas.model.data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Transaction is a single balance change read from account history.
+ */
+public final class Transaction {
+
+  private final TransactionType type;
+  private final UUID counterpartyId;
+  private final long minorAmount;
+  private final long minorBalance;
+  private final Instant timestamp;
+
+  Transaction(TransactionType type, UUID counterpartyId, long minorAmount,
+              long minorBalance, Instant timestamp) {
+    this.type = type;
+    this.counterpartyId = counterpartyId;
+    this.minorAmount = minorAmount;
+    this.minorBalance = minorBalance;
+    this.timestamp = timestamp;
+  }
+
+  /**
+   * Getter for transaction type.
+   *
+   * @return the type
+   */
+  public TransactionType type() {
+    return type;
+  }
+
+  /**
+   * Getter for the other account of transfer.
+   *
+   * @return counterparty account id, null for deposits and withdrawals
+   */
+  public UUID counterpartyId() {
+    return counterpartyId;
+  }
+
+  /**
+   * Getter for balance change in minor units.
+   *
+   * @return amount, negative for withdrawals and outgoing transfers
+   */
+  public long minorAmount() {
+    return minorAmount;
+  }
+
+  /**
+   * Getter for account balance after transaction in minor units.
+   *
+   * @return balance after transaction
+   */
+  public long minorBalance() {
+    return minorBalance;
+  }
+
+  /**
+   * Getter for transaction time, with millisecond precision.
+   *
+   * @return the timestamp
+   */
+  public Instant timestamp() {
+    return timestamp;
+  }
+}
@@ -0,0 +1,225 @@
+package com.github.r0kas.model.data;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transaction log keeps history entries of all accounts as 64 byte records in direct memory
+ * slabs, one cache line per entry and no heap objects. Account keeps position of its newest
+ * entry and every entry links to the previous entry of the same account, so account history
+ * is read newest first by following the links.
+ *
+ * <p>Log is a ring of fixed capacity, slabs are allocated on first use. Once capacity is
+ * reached the oldest entries of all accounts are overwritten, account history then ends at
+ * its oldest retained entry.
+ *
+ * <p>Every append reserves a single entry from shared counter, so no entries are left
+ * reserved but unwritten by threads which stop appending, such as short lived virtual threads.
+ * Low half of account id is stored mixed with entry sequence, so entry left in a slot by an
+ * earlier lap of the ring never passes as entry of the same account at later position.
+ *
+ * <p>Appends and reads take no locks. Entry is fully written before it becomes the newest
+ * entry of account, so readers never see partially recorded changes. Concurrent appends to
+ * the same account are ordered by the moment they become the newest entry. Readers validate
+ * every entry after reading it and stop at entries overwritten in the meantime.
+ */
+public final class TransactionLog {
+
+  /**
+   * Default capacity, 256 MiB of direct memory.
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 22;
+
+  private static final int PREVIOUS = 0;
+  private static final int ACCOUNT_MSB = 8;
+  private static final int ACCOUNT_LSB = 16;
+  private static final int COUNTERPARTY_MSB = 24;
+  private static final int COUNTERPARTY_LSB = 32;
+  private static final int AMOUNT = 40;
+  private static final int BALANCE = 48;
+  private static final int TIMESTAMP = 56;
+  private static final int ENTRY_BYTES = 64;
+
+  private static final int TYPE_SHIFT = 56;
+  private static final long PREVIOUS_MASK = (1L << TYPE_SHIFT) - 1;
+  private static final int SLAB_SHIFT = 16;
+  private static final long SLAB_MASK = (1L << SLAB_SHIFT) - 1;
+  private static final TransactionType[] TYPES = TransactionType.values();
+
+  private final long capacity;
+  private final long mask;
+  private final AtomicLong reserved = new AtomicLong();
+  private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+
+  /**
+   * Instantiates transaction log of default capacity.
+   */
+  public TransactionLog() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Instantiates transaction log keeping up to provided number of the newest entries.
+   * Capacity is rounded up to power of two of at least 65536 entries.
+   *
+   * @param capacity number of retained entries
+   */
+  public TransactionLog(int capacity) {
+    long rounded = 1L << SLAB_SHIFT;
+    while (rounded < capacity) {
+      rounded <<= 1;
+    }
+    this.capacity = rounded;
+    this.mask = rounded - 1;
+  }
+
+  /**
+   * Appends balance change as the newest history entry of account. Entry is dropped when
+   * history of closed account cannot be changed any more.
+   *
+   * @param account        changed account
+   * @param type           transaction type
+   * @param counterpartyId other account of transfer, null for deposits and withdrawals
+   * @param minorAmount    balance change in minor units, negative for debits
+   * @param minorBalance   account balance after the change in minor units
+   * @param epochMillis    time of the change
+   */
+  public void append(Account account, TransactionType type, UUID counterpartyId,
+                     long minorAmount, long minorBalance, long epochMillis) {
+    long position = reserve();
+    ByteBuffer slab = slab(position);
+    int entry = offset(position);
+    long previous = account.historyHead();
+    UUID accountId = account.id();
+    setPrevious(slab, entry, previous, type);
+    slab.putLong(entry + ACCOUNT_MSB, accountId.getMostSignificantBits());
+    slab.putLong(entry + ACCOUNT_LSB, accountId.getLeastSignificantBits() ^ position);
+    if (counterpartyId != null) {
+      slab.putLong(entry + COUNTERPARTY_MSB, counterpartyId.getMostSignificantBits());
+      slab.putLong(entry + COUNTERPARTY_LSB, counterpartyId.getLeastSignificantBits());
+    }
+    slab.putLong(entry + AMOUNT, minorAmount);
+    slab.putLong(entry + BALANCE, minorBalance);
+    slab.putLong(entry + TIMESTAMP, epochMillis);
+    while (!account.compareAndSetHistoryHead(previous, position)) {
+      if (account.isClosed()) {
+        return;
+      }
+      previous = account.historyHead();
+      setPrevious(slab, entry, previous, type);
+    }
+  }
+
+  /**
+   * Reads history entries of account newest first, starting from provided cursor. Takes time
+   * proportional to the number of returned entries regardless of history size. Page of cursor
+   * pointing to already overwritten entries is empty.
+   *
+   * @param account account, its currency is the currency of entry amounts
+   * @param cursor  cursor returned with previous page, null for the newest entry
+   * @param limit   maximum number of returned entries
+   * @return page of entries
+   * @throws IllegalArgumentException if cursor does not point to entry of the account
+   */
+  public TransactionPage read(Account account, Long cursor, int limit)
+      throws IllegalArgumentException {
+    UUID accountId = account.id();
+    if (cursor != null && (cursor < 0 || cursor >= reserved.get()
+        || !isOverwritten(cursor) && !belongsTo(cursor, accountId))) {
+      throw new IllegalArgumentException("cursor does not belong to account " + accountId);
+    }
+    long position = cursor == null ? account.historyHead() : cursor;
+    List<Transaction> transactions = new ArrayList<>(Math.min(limit, 32));
+    while (position >= 0 && transactions.size() < limit) {
+      ByteBuffer slab = slab(position);
+      int entry = offset(position);
+      long link = slab.getLong(entry + PREVIOUS);
+      Transaction transaction = isEntryOf(slab, entry, accountId, position)
+          ? transaction(slab, entry, link) : null;
+      VarHandle.loadLoadFence();
+      if (transaction == null || isOverwritten(position)) {
+        position = -1;
+        break;
+      }
+      transactions.add(transaction);
+      position = (link & PREVIOUS_MASK) - 1;
+    }
+    if (position >= 0 && isOverwritten(position)) {
+      position = -1;
+    }
+    return new TransactionPage(accountId, account.currency(), transactions,
+        position >= 0 ? position : null);
+  }
+
+  private long reserve() {
+    long position = reserved.getAndIncrement();
+    int slab = (int) ((position & mask) >>> SLAB_SHIFT);
+    if (slab >= slabs.length) {
+      ensureSlab(slab);
+    }
+    return position;
+  }
+
+  private boolean isOverwritten(long position) {
+    return reserved.get() - position > capacity;
+  }
+
+  private boolean belongsTo(long position, UUID accountId) {
+    ByteBuffer[] current = slabs;
+    int index = (int) ((position & mask) >>> SLAB_SHIFT);
+    return index < current.length
+        && isEntryOf(current[index], offset(position), accountId, position);
+  }
+
+  private static boolean isEntryOf(ByteBuffer slab, int entry, UUID accountId, long position) {
+    return slab.getLong(entry + ACCOUNT_MSB) == accountId.getMostSignificantBits()
+        && slab.getLong(entry + ACCOUNT_LSB) == (accountId.getLeastSignificantBits() ^ position);
+  }
+
+  private static Transaction transaction(ByteBuffer slab, int entry, long link) {
+    int ordinal = (int) (link >>> TYPE_SHIFT);
+    if (ordinal >= TYPES.length) {
+      return null;
+    }
+    TransactionType type = TYPES[ordinal];
+    UUID counterpartyId = type == TransactionType.TRANSFER_IN
+        || type == TransactionType.TRANSFER_OUT
+        ? new UUID(slab.getLong(entry + COUNTERPARTY_MSB), slab.getLong(entry + COUNTERPARTY_LSB))
+        : null;
+    return new Transaction(type, counterpartyId, slab.getLong(entry + AMOUNT),
+        slab.getLong(entry + BALANCE), Instant.ofEpochMilli(slab.getLong(entry + TIMESTAMP)));
+  }
+
+  private static void setPrevious(ByteBuffer slab, int entry, long previous,
+                                  TransactionType type) {
+    slab.putLong(entry + PREVIOUS, ((long) type.ordinal() << TYPE_SHIFT) | (previous + 1));
+  }
+
+  private ByteBuffer slab(long position) {
+    return slabs[(int) ((position & mask) >>> SLAB_SHIFT)];
+  }
+
+  private static int offset(long position) {
+    return (int) (position & SLAB_MASK) * ENTRY_BYTES;
+  }
+
+  private synchronized void ensureSlab(int slab) {
+    ByteBuffer[] current = slabs;
+    if (slab < current.length) {
+      return;
+    }
+    ByteBuffer[] grown = Arrays.copyOf(current, slab + 1);
+    for (int i = current.length; i < grown.length; i++) {
+      grown[i] = ByteBuffer.allocateDirect((1 << SLAB_SHIFT) * ENTRY_BYTES)
+          .order(ByteOrder.nativeOrder());
+    }
+    slabs = grown;
+  }
+}
@@ -0,0 +1,69 @@
+package com.github.r0kas.model.data;
+
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Transaction page is a newest first slice of account history. Cursor is an opaque position
+ * in transaction log and is valid only for the account it was returned for.
+ */
+public final class TransactionPage {
+
+  private final UUID accountId;
+  private final Currency currency;
+  private final List<Transaction> transactions;
+  private final Long nextCursor;
+
+  /**
+   * Instantiates a new transaction page.
+   *
+   * @param accountId    id of account the history belongs to
+   * @param currency     account currency of transaction amounts
+   * @param transactions transactions, newest first
+   * @param nextCursor   cursor of the next older page, null if this page is the last one
+   */
+  public TransactionPage(UUID accountId, Currency currency, List<Transaction> transactions,
+                         Long nextCursor) {
+    this.accountId = accountId;
+    this.currency = currency;
+    this.transactions = List.copyOf(transactions);
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Getter for account id.
+   *
+   * @return the account id
+   */
+  public UUID accountId() {
+    return accountId;
+  }
+
+  /**
+   * Getter for account currency.
+   *
+   * @return the currency
+   */
+  public Currency currency() {
+    return currency;
+  }
+
+  /**
+   * Getter for transactions of this page.
+   *
+   * @return unmodifiable list of transactions, newest first
+   */
+  public List<Transaction> transactions() {
+    return transactions;
+  }
+
+  /**
+   * Getter for cursor of the next older page.
+   *
+   * @return cursor of the next page, null if there are no more transactions
+   */
+  public Long nextCursor() {
+    return nextCursor;
+  }
+}
@@ -0,0 +1,23 @@
+package com.github.r0kas.model.data;
+
+/**
+ * Transaction type of account history entry.
+ */
+public enum TransactionType {
+  /**
+   * Funds deposited to account.
+   */
+  DEPOSIT,
+  /**
+   * Funds withdrawn from account.
+   */
+  WITHDRAW,
+  /**
+   * Funds transferred from account to counterparty account.
+   */
+  TRANSFER_OUT,
+  /**
+   * Funds transferred to account from counterparty account.
+   */
+  TRANSFER_IN
+}
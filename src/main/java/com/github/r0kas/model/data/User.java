@@ -3,24 +3,29 @@ package com.github.r0kas.model.data;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * User represents formal entities to which accounts are linked to.
+ * User details are immutable, every modification creates a new version which replaces the
+ * previous one in data store, so readers always see one consistent version without locking.
+ * Owned accounts are the only mutable part, a concurrent set shared by every version of the
+ * user, so linking or unlinking an account does not create a new version.
  */
 @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
-public class User {
+public final class User {
 
-  private UUID id;
+  private final UUID id;
   private final String createdOn;
-  private String updatedOn;
-  private String name;
-  private String address;
-  private String countryCode;
-  private HolderType type;
-  private List<UUID> ownedAccounts;
+  private final String updatedOn;
+  private final String name;
+  private final String address;
+  private final String countryCode;
+  private final HolderType type;
+  private final Set<UUID> ownedAccounts;
 
   /**
    * New User constructor. User is a description of account holding entity.
@@ -39,7 +44,36 @@ public class User {
     this.address = address;
     this.countryCode = countryCode;
     this.type = type;
-    this.ownedAccounts = new ArrayList<>();
+    this.ownedAccounts = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * Restores user with previously persisted state. Owned accounts are linked separately.
+   *
+   * @param id          user uuid
+   * @param createdOn   creation date
+   * @param updatedOn   last update date
+   * @param name        full name of the user
+   * @param address     registration address of the user
+   * @param countryCode of user residence
+   * @param type        user type
+   */
+  User(UUID id, String createdOn, String updatedOn, String name, String address,
+       String countryCode, HolderType type) {
+    this(id, createdOn, updatedOn, name, address, countryCode, type,
+        ConcurrentHashMap.newKeySet());
+  }
+
+  private User(UUID id, String createdOn, String updatedOn, String name, String address,
+               String countryCode, HolderType type, Set<UUID> ownedAccounts) {
+    this.id = id;
+    this.createdOn = createdOn;
+    this.updatedOn = updatedOn;
+    this.name = name;
+    this.address = address;
+    this.countryCode = countryCode;
+    this.type = type;
+    this.ownedAccounts = ownedAccounts;
   }
 
   /**
@@ -69,15 +103,6 @@ public class User {
     return updatedOn;
   }
 
-  /**
-   * Sets last update date time of this object.
-   *
-   * @param updatedOn ZonedDateTime of last update time.
-   */
-  public void setUpdatedOn(ZonedDateTime updatedOn) {
-    this.updatedOn = updatedOn.toString();
-  }
-
   /**
    * Getter for user representing name.
    *
@@ -87,15 +112,6 @@ public class User {
     return name;
   }
 
-  /**
-   * Setter for user name.
-   *
-   * @param name the name
-   */
-  public void setName(String name) {
-    this.name = name;
-  }
-
   /**
    * Getter for user address.
    *
@@ -105,15 +121,6 @@ public class User {
     return address;
   }
 
-  /**
-   * Setter for user address.
-   *
-   * @param address the address
-   */
-  public void setAddress(String address) {
-    this.address = address;
-  }
-
   /**
    * Getter for country code string.
    *
@@ -124,58 +131,66 @@ public class User {
   }
 
   /**
-   * Setter for country code.
+   * Getter for user type.
    *
-   * @param code string representing country code.
+   * @return the holder type
    */
-  public void setCountryCode(String code) {
-    this.countryCode = code;
+  public HolderType type() {
+    return type;
   }
 
   /**
-   * Getter for user type.
+   * Get owned accounts. User cannot be deleted until this set has anything.
    *
-   * @return the holder type
+   * @return unmodifiable weakly consistent view of owned accounts UUIDs
    */
-  public HolderType type() {
-    return type;
+  public Set<UUID> ownedAccounts() {
+    return Collections.unmodifiableSet(ownedAccounts);
   }
 
   /**
-   * Setter for user type.
+   * Creates new version of user with modified details.
    *
-   * @param type holder type object representing user type
+   * @param name        full name of the user
+   * @param address     registration address of the user
+   * @param countryCode of user residence
+   * @param type        user type
+   * @param updatedOn   ZonedDateTime of the update
+   * @return modified user
    */
-  public void setType(HolderType type) {
-    this.type = type;
+  public User withDetails(String name, String address, String countryCode, HolderType type,
+                          ZonedDateTime updatedOn) {
+    return new User(id, createdOn, updatedOn.toString(), name, address, countryCode, type,
+        ownedAccounts);
   }
 
   /**
-   * Get owned accounts list. User cannot be deleted until this list has anything.
+   * Creates new version of this user with details of provided restored version, keeping
+   * owned accounts.
    *
-   * @return owned accounts list object containing accounts UUIDs
+   * @param restored restored version of this user
+   * @return modified user
    */
-  public List<UUID> ownedAccounts() {
-    return ownedAccounts;
+  User withDetailsOf(User restored) {
+    return new User(id, restored.createdOn, restored.updatedOn, restored.name, restored.address,
+        restored.countryCode, restored.type, ownedAccounts);
   }
 
   /**
-   * Method to add additional owned account to owned accounts list.
+   * Links account to user and all its versions.
    *
    * @param accountID the account id
-   * @return boolean representing if account was added successfully
    */
-  public boolean addOwnedAccount(UUID accountID) {
-    return ownedAccounts.add(accountID);
+  void linkAccount(UUID accountID) {
+    ownedAccounts.add(accountID);
   }
 
   /**
-   * Remove owned account from owned accounts list.
+   * Unlinks account from user and all its versions.
    *
    * @param accountID the account id
-   * @return boolean representing if account was removed successfully
    */
-  public boolean removeOwnedAccount(UUID accountID) {
-    return ownedAccounts.remove(accountID);
+  void unlinkAccount(UUID accountID) {
+    ownedAccounts.remove(accountID);
   }
 }
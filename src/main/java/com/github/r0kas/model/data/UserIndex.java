@@ -0,0 +1,127 @@
+package com.github.r0kas.model.data;
+
+import com.google.common.collect.Iterators;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * User index keeps ids of users grouped by country code and holder type. Every group is a
+ * sorted concurrent set, query merges groups matching its filter in id order, so its cost
+ * depends on the number of returned users and known countries, not on the number of users.
+ *
+ * <p>Index is updated after user map. User moved to another group is added to the new group
+ * before it is removed from the old one, readers check every listed user against the map and
+ * skip ids which no longer match the filter.
+ */
+final class UserIndex {
+
+  private static final HolderType[] TYPES = HolderType.values();
+
+  private final ConcurrentMap<String, Map<HolderType, NavigableSet<UUID>>> countries =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Moves user to the group of its current version.
+   *
+   * @param previous previous version of user, null for new user
+   * @param current  current version of user
+   */
+  void update(User previous, User current) {
+    if (previous != null && previous.type() == current.type()
+        && previous.countryCode().equals(current.countryCode())) {
+      return;
+    }
+    group(current.countryCode(), current.type()).add(current.id());
+    if (previous != null) {
+      remove(previous);
+    }
+  }
+
+  /**
+   * Removes user from its group.
+   *
+   * @param user removed version of user
+   */
+  void remove(User user) {
+    Map<HolderType, NavigableSet<UUID>> types = countries.get(user.countryCode());
+    if (types != null) {
+      types.get(user.type()).remove(user.id());
+    }
+  }
+
+  /**
+   * Finds page of users matching filter in id order.
+   *
+   * @param users       user map the index is kept for
+   * @param countryCode country code users must have, null for any
+   * @param type        holder type users must have, null for any
+   * @param cursor      id of the last user of previous page, null for the first page
+   * @param limit       maximum number of returned users
+   * @return page of matching users
+   */
+  UserPage find(UuidMap<User> users, String countryCode, HolderType type, UUID cursor,
+                int limit) {
+    Collection<Map<HolderType, NavigableSet<UUID>>> matching;
+    if (countryCode == null) {
+      matching = countries.values();
+    } else {
+      Map<HolderType, NavigableSet<UUID>> types = countries.get(countryCode);
+      matching = types == null ? Collections.emptyList() : Collections.singletonList(types);
+    }
+    List<Iterator<UUID>> groups = new ArrayList<>();
+    for (Map<HolderType, NavigableSet<UUID>> types : matching) {
+      for (HolderType holderType : TYPES) {
+        if (type == null || type == holderType) {
+          NavigableSet<UUID> ids = types.get(holderType);
+          groups.add((cursor == null ? ids : ids.tailSet(cursor, false)).iterator());
+        }
+      }
+    }
+
+    Iterator<UUID> ids = Iterators.mergeSorted(groups, Comparator.naturalOrder());
+    List<User> page = new ArrayList<>(Math.min(limit, 32));
+    UUID previous = null;
+    while (ids.hasNext()) {
+      UUID id = ids.next();
+      if (id.equals(previous)) {
+        continue;
+      }
+      previous = id;
+      User user = users.get(id);
+      if (user == null || !matches(user, countryCode, type)) {
+        continue;
+      }
+      if (page.size() == limit) {
+        return new UserPage(page, page.get(page.size() - 1).id());
+      }
+      page.add(user);
+    }
+    return new UserPage(page, null);
+  }
+
+  private NavigableSet<UUID> group(String countryCode, HolderType type) {
+    return countries.computeIfAbsent(countryCode, code -> {
+      Map<HolderType, NavigableSet<UUID>> types = new EnumMap<>(HolderType.class);
+      for (HolderType holderType : TYPES) {
+        types.put(holderType, new ConcurrentSkipListSet<>());
+      }
+      return types;
+    }).get(type);
+  }
+
+  private static boolean matches(User user, String countryCode, HolderType type) {
+    return (countryCode == null || countryCode.equals(user.countryCode()))
+        && (type == null || type == user.type());
+  }
+}
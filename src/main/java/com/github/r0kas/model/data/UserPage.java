@@ -0,0 +1,43 @@
+package com.github.r0kas.model.data;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * User page is a slice of users matching a filter, in id order. Cursor is the id of the last
+ * user of the page.
+ */
+public final class UserPage {
+
+  private final List<User> users;
+  private final UUID nextCursor;
+
+  /**
+   * Instantiates a new user page.
+   *
+   * @param users      users, in id order
+   * @param nextCursor cursor of the next page, null if this page is the last one
+   */
+  public UserPage(List<User> users, UUID nextCursor) {
+    this.users = List.copyOf(users);
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Getter for users of this page.
+   *
+   * @return unmodifiable list of users
+   */
+  public List<User> users() {
+    return users;
+  }
+
+  /**
+   * Getter for cursor of the next page.
+   *
+   * @return cursor of the next page, null if there are no more users
+   */
+  public UUID nextCursor() {
+    return nextCursor;
+  }
+}
@@ -0,0 +1,437 @@
+package com.github.r0kas.model.data;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Uuid map is concurrent open addressing hash index keyed by both halves of {@link UUID}.
+ * Keys are stored inline in primitive array next to each other and probed linearly, so
+ * entries need no nodes nor boxed keys and lookups can be done without allocating UUID.
+ *
+ * <p>Reads are lock-free. Replacing value of present key is lock-free as well, inserts and
+ * removals are serialized by map lock. Growing table is migrated incrementally: each insert
+ * or removal moves a few slots to the new table, migrated slots forward readers there.
+ * New table is sized from live entries and old table is moved fast enough to be fully migrated
+ * before new table runs out of free slots, however many tombstones the old one holds.
+ *
+ * <p>Slot key is written once, before its value is published, and never changes.
+ * Removed entries leave tombstones which are dropped during migration.
+ *
+ * @param <V> value type
+ */
+public final class UuidMap<V> {
+
+  private static final Object TOMBSTONE = new Object();
+  private static final Object MOVED = new Object();
+
+  private static final int MIN_CAPACITY = 16;
+  private static final int MIGRATION_STEP = 8;
+
+  private volatile Table root;
+  private Table newest;
+  private int migrated;
+  private int migrationStep = MIGRATION_STEP;
+  private volatile int size;
+
+  /**
+   * Instantiates empty map.
+   */
+  public UuidMap() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * Instantiates empty map able to hold provided number of entries without growing.
+   *
+   * @param expectedSize expected number of entries
+   */
+  public UuidMap(int expectedSize) {
+    this.root = new Table(capacityFor(expectedSize));
+    this.newest = root;
+  }
+
+  /**
+   * Getter for value mapped to provided key.
+   *
+   * @param key the key
+   * @return mapped value or null if key is absent
+   */
+  public V get(UUID key) {
+    return get(key.getMostSignificantBits(), key.getLeastSignificantBits());
+  }
+
+  /**
+   * Getter for value mapped to key with provided halves. Does not allocate.
+   *
+   * @param msb most significant bits of the key
+   * @param lsb least significant bits of the key
+   * @return mapped value or null if key is absent
+   */
+  @SuppressWarnings("unchecked")
+  public V get(long msb, long lsb) {
+    int hash = hash(msb, lsb);
+    Table table = root;
+    while (true) {
+      int index = hash & table.mask;
+      while (true) {
+        Object value = table.values.get(index);
+        if (value == null) {
+          break;
+        }
+        if (table.matches(index, msb, lsb)) {
+          if (value == MOVED) {
+            break;
+          }
+          return value == TOMBSTONE ? null : (V) value;
+        }
+        index = (index + 1) & table.mask;
+      }
+      table = table.forward;
+      if (table == null) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Checks if key is present.
+   *
+   * @param key the key
+   * @return true if value is mapped to the key
+   */
+  public boolean containsKey(UUID key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Maps value to provided key. Replacing value of present key does not take map lock.
+   *
+   * @param key   the key
+   * @param value the value, not null
+   * @return previously mapped value or null
+   */
+  public V put(UUID key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("uuid map does not hold null values");
+    }
+    long msb = key.getMostSignificantBits();
+    long lsb = key.getLeastSignificantBits();
+    V replaced = replace(msb, lsb, value);
+    if (replaced != null) {
+      return replaced;
+    }
+    return insert(msb, lsb, value);
+  }
+
+  /**
+   * Removes mapping of provided key.
+   *
+   * @param key the key
+   * @return removed value or null if key was absent
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized V remove(UUID key) {
+    long msb = key.getMostSignificantBits();
+    long lsb = key.getLeastSignificantBits();
+    Object removed = null;
+    Table table = root;
+    int hash = hash(msb, lsb);
+    while (table != null && removed == null) {
+      int index = table.find(hash, msb, lsb);
+      if (index < 0) {
+        table = table.forward;
+        continue;
+      }
+      Object value = table.values.get(index);
+      if (value == TOMBSTONE) {
+        break;
+      }
+      if (value == MOVED) {
+        table = table.forward;
+        continue;
+      }
+      if (table.values.compareAndSet(index, value, TOMBSTONE)) {
+        removed = value;
+      }
+    }
+    if (removed != null) {
+      size--;
+    }
+    migrate(migrationStep);
+    return (V) removed;
+  }
+
+  /**
+   * Number of mapped keys.
+   *
+   * @return map size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Weakly consistent view of mapped values. Iteration finishes pending migration first,
+   * every value present during whole iteration is returned exactly once.
+   *
+   * @return values view
+   */
+  public Collection<V> values() {
+    return new AbstractCollection<>() {
+      @Override
+      public Iterator<V> iterator() {
+        return new ValueIterator(stableTable());
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private V replace(long msb, long lsb, V value) {
+    int hash = hash(msb, lsb);
+    Table table = root;
+    while (table != null) {
+      int index = table.find(hash, msb, lsb);
+      if (index < 0) {
+        table = table.forward;
+        continue;
+      }
+      Object current = table.values.get(index);
+      if (current == TOMBSTONE) {
+        return null;
+      }
+      if (current == MOVED) {
+        table = table.forward;
+        continue;
+      }
+      if (table.values.compareAndSet(index, current, value)) {
+        return (V) current;
+      }
+    }
+    return null;
+  }
+
+  private synchronized V insert(long msb, long lsb, V value) {
+    int hash = hash(msb, lsb);
+    for (Table table = root; table != null; ) {
+      int index = table.find(hash, msb, lsb);
+      if (index < 0) {
+        table = table.forward;
+        continue;
+      }
+      Object current = table.values.get(index);
+      if (current == MOVED) {
+        table = table.forward;
+        continue;
+      }
+      if (table.values.compareAndSet(index, current, value)) {
+        if (current == TOMBSTONE) {
+          size++;
+          migrate(migrationStep);
+          return null;
+        }
+        return cast(current);
+      }
+    }
+
+    if (newest.isFull()) {
+      grow();
+    }
+    newest.append(hash, msb, lsb, value);
+    size++;
+    migrate(migrationStep);
+    return null;
+  }
+
+  /**
+   * Starts migration to new table. New table takes at most current entries plus one entry per
+   * insert meanwhile, each insert migrates enough slots for old table to be fully migrated
+   * before these reach the threshold of new table, so migration always finds a free slot.
+   */
+  private void grow() {
+    migrate(Integer.MAX_VALUE);
+    Table next = new Table(capacityFor(size * 2));
+    int headroom = next.threshold - size;
+    int length = newest.values.length();
+    migrationStep = Math.max(MIGRATION_STEP, (length + headroom - 1) / headroom);
+    newest.forward = next;
+    newest = next;
+    migrated = 0;
+  }
+
+  /**
+   * Moves up to provided number of slots from the oldest table to the newest one.
+   * Must be called holding map lock.
+   */
+  private void migrate(int slots) {
+    Table table = root;
+    if (table == newest) {
+      return;
+    }
+    int end = (int) Math.min((long) migrated + slots, table.values.length());
+    for (; migrated < end; migrated++) {
+      moveSlot(table, migrated);
+    }
+    if (migrated == table.values.length()) {
+      root = newest;
+      migrated = 0;
+    }
+  }
+
+  private void moveSlot(Table table, int index) {
+    long msb = table.keys[index * 2];
+    long lsb = table.keys[index * 2 + 1];
+    int target = -1;
+    while (true) {
+      Object value = table.values.get(index);
+      if (value == null || value == MOVED) {
+        return;
+      }
+      if (value != TOMBSTONE) {
+        if (target < 0) {
+          target = newest.append(hash(msb, lsb), msb, lsb, value);
+        } else {
+          newest.values.set(target, value);
+        }
+      }
+      if (table.values.compareAndSet(index, value, MOVED)) {
+        return;
+      }
+    }
+  }
+
+  private Table stableTable() {
+    synchronized (this) {
+      migrate(Integer.MAX_VALUE);
+      return root;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> V cast(Object value) {
+    return (V) value;
+  }
+
+  private static int capacityFor(int entries) {
+    int capacity = MIN_CAPACITY;
+    while (capacity / 4 * 3L <= entries && capacity < (1 << 30)) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  static int hash(long msb, long lsb) {
+    long hash = (msb ^ Long.rotateLeft(lsb, 32)) * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  /**
+   * Table of slots. Keys of slot i are stored at 2i and 2i + 1.
+   */
+  private static final class Table {
+
+    private final long[] keys;
+    private final AtomicReferenceArray<Object> values;
+    private final int mask;
+    private final int threshold;
+    private volatile Table forward;
+    private int used;
+
+    private Table(int capacity) {
+      this.keys = new long[capacity * 2];
+      this.values = new AtomicReferenceArray<>(capacity);
+      this.mask = capacity - 1;
+      this.threshold = capacity / 4 * 3;
+    }
+
+    private boolean matches(int index, long msb, long lsb) {
+      return keys[index * 2] == msb && keys[index * 2 + 1] == lsb;
+    }
+
+    /**
+     * Finds slot holding provided key.
+     *
+     * @return slot index or -1 when key is not in this table
+     */
+    private int find(int hash, long msb, long lsb) {
+      int index = hash & mask;
+      while (values.get(index) != null) {
+        if (matches(index, msb, lsb)) {
+          return index;
+        }
+        index = (index + 1) & mask;
+      }
+      return -1;
+    }
+
+    private boolean isFull() {
+      return used >= threshold;
+    }
+
+    /**
+     * Appends key absent from this table. Key is written before value is published.
+     * Must be called holding map lock.
+     */
+    private int append(int hash, long msb, long lsb, Object value) {
+      int index = hash & mask;
+      while (values.get(index) != null) {
+        index = (index + 1) & mask;
+      }
+      keys[index * 2] = msb;
+      keys[index * 2 + 1] = lsb;
+      values.set(index, value);
+      used++;
+      return index;
+    }
+  }
+
+  /**
+   * Iterator over values of stable table, following slots migrated meanwhile.
+   */
+  private final class ValueIterator implements Iterator<V> {
+
+    private final Table table;
+    private int index = -1;
+    private V next;
+
+    private ValueIterator(Table table) {
+      this.table = table;
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public V next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      V current = next;
+      advance();
+      return current;
+    }
+
+    private void advance() {
+      next = null;
+      while (next == null && ++index < table.values.length()) {
+        Object value = table.values.get(index);
+        if (value == MOVED) {
+          next = get(table.keys[index * 2], table.keys[index * 2 + 1]);
+        } else if (value != null && value != TOMBSTONE) {
+          next = cast(value);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.github.r0kas.model.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.r0kas.model.data.Account;
+import java.io.IOException;
+
+/**
+ * Streaming serializer writing account fields in the same order as its annotations.
+ */
+final class AccountSerializer extends StdSerializer<Account> {
+
+  AccountSerializer() {
+    super(Account.class);
+  }
+
+  @Override
+  public void serialize(Account account, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
+    gen.writeStartObject();
+    gen.writeStringField("id", account.id().toString());
+    gen.writeStringField("holderId", account.holderId().toString());
+    gen.writeStringField("createdOn", account.createdOn());
+    gen.writeStringField("updatedOn", account.updatedOn());
+    gen.writeStringField("currency", account.currency().getCurrencyCode());
+    gen.writeNumberField("balance", account.balance());
+    gen.writeEndObject();
+  }
+}
@@ -0,0 +1,51 @@
+package com.github.r0kas.model.rest;
+
+import static com.github.r0kas.model.data.MinorUnits.toMajorUnits;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.r0kas.model.data.BalanceReport;
+import com.github.r0kas.model.data.CurrencyBalance;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Streaming serializer writing currency totals with balances in major currency units.
+ * Verification outcome is written only for verified reports, scanned totals only when they
+ * do not match.
+ */
+final class BalanceReportSerializer extends StdSerializer<BalanceReport> {
+
+  BalanceReportSerializer() {
+    super(BalanceReport.class);
+  }
+
+  @Override
+  public void serialize(BalanceReport report, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
+    gen.writeStartObject();
+    writeBalances(gen, "balances", report.balances());
+    if (report.isVerified()) {
+      boolean consistent = report.isConsistent();
+      gen.writeBooleanField("consistent", consistent);
+      if (!consistent) {
+        writeBalances(gen, "scanned", report.scanned());
+      }
+    }
+    gen.writeEndObject();
+  }
+
+  private static void writeBalances(JsonGenerator gen, String name,
+                                    List<CurrencyBalance> balances) throws IOException {
+    gen.writeArrayFieldStart(name);
+    for (CurrencyBalance balance : balances) {
+      gen.writeStartObject();
+      gen.writeStringField("currency", balance.currency().getCurrencyCode());
+      gen.writeNumberField("accounts", balance.accounts());
+      gen.writeNumberField("balance", toMajorUnits(balance.minorBalance(), balance.currency()));
+      gen.writeEndObject();
+    }
+    gen.writeEndArray();
+  }
+}
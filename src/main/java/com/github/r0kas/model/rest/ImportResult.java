@@ -0,0 +1,77 @@
+package com.github.r0kas.model.rest;
+
+import java.util.UUID;
+
+/**
+ * Import result is the outcome of a single bulk import record, either id of created entity
+ * or the reason record was rejected.
+ */
+public final class ImportResult {
+
+  private final long line;
+  private final UUID id;
+  private final String error;
+
+  private ImportResult(long line, UUID id, String error) {
+    this.line = line;
+    this.id = id;
+    this.error = error;
+  }
+
+  /**
+   * Creates result of imported record.
+   *
+   * @param id UUID of created entity
+   * @return import result
+   */
+  public static ImportResult created(UUID id) {
+    return new ImportResult(0, id, null);
+  }
+
+  /**
+   * Creates result of rejected record.
+   *
+   * @param error reason the record was rejected
+   * @return import result
+   */
+  public static ImportResult rejected(String error) {
+    return new ImportResult(0, null, error);
+  }
+
+  /**
+   * Creates copy of this result attributed to provided input line.
+   *
+   * @param line number of input line the record was read from, starting from 1
+   * @return import result
+   */
+  public ImportResult atLine(long line) {
+    return new ImportResult(line, id, error);
+  }
+
+  /**
+   * Getter for input line number.
+   *
+   * @return line number, 0 if result is not attributed to a line yet
+   */
+  public long line() {
+    return line;
+  }
+
+  /**
+   * Getter for created entity id.
+   *
+   * @return entity UUID, null if record was rejected
+   */
+  public UUID id() {
+    return id;
+  }
+
+  /**
+   * Getter for rejection reason.
+   *
+   * @return reason, null if record was imported
+   */
+  public String error() {
+    return error;
+  }
+}
@@ -0,0 +1,29 @@
+package com.github.r0kas.model.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * Streaming serializer writing import result with either created id or rejection reason.
+ */
+final class ImportResultSerializer extends StdSerializer<ImportResult> {
+
+  ImportResultSerializer() {
+    super(ImportResult.class);
+  }
+
+  @Override
+  public void serialize(ImportResult result, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
+    gen.writeStartObject();
+    gen.writeNumberField("line", result.line());
+    if (result.id() != null) {
+      gen.writeStringField("id", result.id().toString());
+    } else {
+      gen.writeStringField("error", result.error());
+    }
+    gen.writeEndObject();
+  }
+}
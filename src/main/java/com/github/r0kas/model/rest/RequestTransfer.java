@@ -1,12 +1,13 @@
 package com.github.r0kas.model.rest;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.util.UUID;
 
 /**
  * The type Request transfer represents JSON object used for mapping incoming transfer requests.
+ * JSON fields are "source", "target" and "amount", read by {@link RequestTransferDeserializer}.
  */
+@JsonDeserialize(using = RequestTransferDeserializer.class)
 public class RequestTransfer {
 
   private UUID sourceAccountId;
@@ -20,10 +21,7 @@ public class RequestTransfer {
    * @param targetAccountId the target account id
    * @param amount          the amount
    */
-  @JsonCreator
-  RequestTransfer(@JsonProperty("source")UUID sourceAccountId,
-                  @JsonProperty("target")UUID targetAccountId,
-                  @JsonProperty("amount")double amount) {
+  RequestTransfer(UUID sourceAccountId, UUID targetAccountId, double amount) {
     this.sourceAccountId = sourceAccountId;
     this.targetAccountId = targetAccountId;
     this.amount = amount;
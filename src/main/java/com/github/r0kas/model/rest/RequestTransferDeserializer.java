@@ -0,0 +1,98 @@
+package com.github.r0kas.model.rest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.deser.std.UUIDDeserializer;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Streaming deserializer for transfer requests. Fields are read token by token and
+ * canonical account ids are decoded straight from parser buffer without creating strings.
+ * Any other input is left to standard Jackson handling, so errors stay the same.
+ */
+final class RequestTransferDeserializer extends StdDeserializer<RequestTransfer> {
+
+  private static final long serialVersionUID = 1L;
+  private static final int UUID_LENGTH = 36;
+
+  private final UUIDDeserializer uuidDeserializer = new UUIDDeserializer();
+
+  RequestTransferDeserializer() {
+    super(RequestTransfer.class);
+  }
+
+  @Override
+  public RequestTransfer deserialize(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.START_OBJECT) {
+      token = parser.nextToken();
+    } else if (token != JsonToken.FIELD_NAME) {
+      return RequestTransfer.class.cast(
+          context.handleUnexpectedToken(RequestTransfer.class, parser));
+    }
+
+    UUID source = null;
+    UUID target = null;
+    double amount = 0;
+    for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "source":
+          source = uuid(parser, context);
+          break;
+        case "target":
+          target = uuid(parser, context);
+          break;
+        case "amount":
+          amount = _parseDoublePrimitive(parser, context);
+          break;
+        default:
+          handleUnknownProperty(parser, context, RequestTransfer.class, field);
+      }
+    }
+    return new RequestTransfer(source, target, amount);
+  }
+
+  private UUID uuid(JsonParser parser, DeserializationContext context) throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    if (parser.currentToken() == JsonToken.VALUE_STRING
+        && parser.getTextLength() == UUID_LENGTH) {
+      char[] chars = parser.getTextCharacters();
+      int offset = parser.getTextOffset();
+      if (chars[offset + 8] == '-' && chars[offset + 13] == '-'
+          && chars[offset + 18] == '-' && chars[offset + 23] == '-') {
+        long high = hex(chars, offset, 8);
+        long middle = hex(chars, offset + 9, 4);
+        long low = hex(chars, offset + 14, 4);
+        long sequence = hex(chars, offset + 19, 4);
+        long node = hex(chars, offset + 24, 12);
+        if ((high | middle | low | sequence | node) >= 0) {
+          return new UUID(high << 32 | middle << 16 | low, sequence << 48 | node);
+        }
+      }
+    }
+    return uuidDeserializer.deserialize(parser, context);
+  }
+
+  /**
+   * Decodes hexadecimal digits into non-negative value, or -1 if any digit is invalid.
+   */
+  private static long hex(char[] chars, int offset, int length) {
+    long value = 0;
+    for (int i = offset; i < offset + length; i++) {
+      int digit = chars[i] < 128 ? Character.digit(chars[i], 16) : -1;
+      if (digit < 0) {
+        return -1;
+      }
+      value = value << 4 | digit;
+    }
+    return value;
+  }
+}
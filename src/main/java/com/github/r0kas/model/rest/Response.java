@@ -10,7 +10,7 @@ import java.util.UUID;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class Response {
 
-  private @JsonProperty("id") UUID id;
+  private @JsonProperty("id") String id;
   private @JsonProperty("status") String status;
   private @JsonProperty("response") Object response;
 
@@ -22,8 +22,31 @@ public class Response {
    * @param response      the response
    */
   public Response(UUID id, String statusMessage, Object response) {
+    this(id == null ? null : id.toString(), statusMessage, response);
+  }
+
+  /**
+   * Instantiates a new Response with request id provided by client or generated earlier.
+   *
+   * @param id            the request id
+   * @param statusMessage the status message
+   * @param response      the response
+   */
+  public Response(String id, String statusMessage, Object response) {
     this.id = id;
     this.status = statusMessage;
     this.response = response;
   }
+
+  String id() {
+    return id;
+  }
+
+  String status() {
+    return status;
+  }
+
+  Object response() {
+    return response;
+  }
 }
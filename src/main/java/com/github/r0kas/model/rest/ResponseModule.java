@@ -0,0 +1,33 @@
+package com.github.r0kas.model.rest;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.BalanceReport;
+import com.github.r0kas.model.data.TransactionPage;
+import com.github.r0kas.model.data.User;
+import com.github.r0kas.model.data.UserPage;
+
+/**
+ * Response module registers hand-written streaming serializers for {@link Response} and
+ * its {@link Account}, {@link User}, {@link TransactionPage} and {@link UserPage} payloads, as
+ * well as for bulk {@link ImportResult} lines. Produced JSON is the same as annotation driven
+ * serialization, without reflective property access.
+ */
+public final class ResponseModule extends SimpleModule {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Instantiates module with response serializers.
+   */
+  public ResponseModule() {
+    super("TransferFulResponse");
+    addSerializer(Response.class, new ResponseSerializer());
+    addSerializer(Account.class, new AccountSerializer());
+    addSerializer(User.class, new UserSerializer());
+    addSerializer(TransactionPage.class, new TransactionPageSerializer());
+    addSerializer(UserPage.class, new UserPageSerializer());
+    addSerializer(ImportResult.class, new ImportResultSerializer());
+    addSerializer(BalanceReport.class, new BalanceReportSerializer());
+  }
+}
@@ -0,0 +1,35 @@
+package com.github.r0kas.model.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * Streaming serializer for response envelope. Null fields are omitted, response payload
+ * is written by serializer registered for its type.
+ */
+final class ResponseSerializer extends StdSerializer<Response> {
+
+  ResponseSerializer() {
+    super(Response.class);
+  }
+
+  @Override
+  public void serialize(Response response, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
+    gen.writeStartObject();
+    if (response.id() != null) {
+      gen.writeStringField("id", response.id());
+    }
+    if (response.status() != null) {
+      gen.writeStringField("status", response.status());
+    }
+    if (response.response() instanceof String) {
+      gen.writeStringField("response", (String) response.response());
+    } else if (response.response() != null) {
+      provider.defaultSerializeField("response", response.response(), gen);
+    }
+    gen.writeEndObject();
+  }
+}
@@ -0,0 +1,46 @@
+package com.github.r0kas.model.rest;
+
+import static com.github.r0kas.model.data.MinorUnits.toMajorUnits;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.r0kas.model.data.Transaction;
+import com.github.r0kas.model.data.TransactionPage;
+import java.io.IOException;
+
+/**
+ * Streaming serializer writing account history page with amounts in major currency units.
+ * Counterparty and next cursor are omitted when absent.
+ */
+final class TransactionPageSerializer extends StdSerializer<TransactionPage> {
+
+  TransactionPageSerializer() {
+    super(TransactionPage.class);
+  }
+
+  @Override
+  public void serialize(TransactionPage page, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
+    gen.writeStartObject();
+    gen.writeStringField("accountId", page.accountId().toString());
+    gen.writeStringField("currency", page.currency().getCurrencyCode());
+    gen.writeArrayFieldStart("transactions");
+    for (Transaction transaction : page.transactions()) {
+      gen.writeStartObject();
+      gen.writeStringField("type", transaction.type().name());
+      gen.writeNumberField("amount", toMajorUnits(transaction.minorAmount(), page.currency()));
+      gen.writeNumberField("balance", toMajorUnits(transaction.minorBalance(), page.currency()));
+      if (transaction.counterpartyId() != null) {
+        gen.writeStringField("counterpartyId", transaction.counterpartyId().toString());
+      }
+      gen.writeStringField("timestamp", transaction.timestamp().toString());
+      gen.writeEndObject();
+    }
+    gen.writeEndArray();
+    if (page.nextCursor() != null) {
+      gen.writeNumberField("nextCursor", page.nextCursor());
+    }
+    gen.writeEndObject();
+  }
+}
@@ -0,0 +1,35 @@
+package com.github.r0kas.model.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.r0kas.model.data.User;
+import com.github.r0kas.model.data.UserPage;
+import java.io.IOException;
+
+/**
+ * Streaming serializer writing page of users. Next cursor is omitted on the last page.
+ */
+final class UserPageSerializer extends StdSerializer<UserPage> {
+
+  private final UserSerializer userSerializer = new UserSerializer();
+
+  UserPageSerializer() {
+    super(UserPage.class);
+  }
+
+  @Override
+  public void serialize(UserPage page, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
+    gen.writeStartObject();
+    gen.writeArrayFieldStart("users");
+    for (User user : page.users()) {
+      userSerializer.serialize(user, gen, provider);
+    }
+    gen.writeEndArray();
+    if (page.nextCursor() != null) {
+      gen.writeStringField("nextCursor", page.nextCursor().toString());
+    }
+    gen.writeEndObject();
+  }
+}
@@ -0,0 +1,41 @@
+package com.github.r0kas.model.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.r0kas.model.data.User;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Streaming serializer writing user fields in the same order as its declared fields.
+ */
+final class UserSerializer extends StdSerializer<User> {
+
+  UserSerializer() {
+    super(User.class);
+  }
+
+  @Override
+  public void serialize(User user, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
+    gen.writeStartObject();
+    gen.writeStringField("id", user.id().toString());
+    gen.writeStringField("createdOn", user.createdOn());
+    gen.writeStringField("updatedOn", user.updatedOn());
+    gen.writeStringField("name", user.name());
+    gen.writeStringField("address", user.address());
+    gen.writeStringField("countryCode", user.countryCode());
+    if (user.type() == null) {
+      gen.writeNullField("type");
+    } else {
+      gen.writeStringField("type", user.type().getDisplayName());
+    }
+    gen.writeArrayFieldStart("ownedAccounts");
+    for (UUID accountId : user.ownedAccounts()) {
+      gen.writeString(accountId.toString());
+    }
+    gen.writeEndArray();
+    gen.writeEndObject();
+  }
+}
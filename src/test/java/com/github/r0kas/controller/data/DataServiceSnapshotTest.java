@@ -0,0 +1,134 @@
+package com.github.r0kas.controller.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.r0kas.model.data.FileJournal;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.MemoryDataStore;
+import com.github.r0kas.model.data.SyncPolicy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import javax.naming.InsufficientResourcesException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DataServiceSnapshotTest {
+
+  private static final int ACCOUNTS = 16;
+  private static final int THREADS = 4;
+  private static final int TRANSFERS = 2_000;
+
+  @TempDir
+  Path directory;
+
+  private Path journalPath;
+  private Path snapshotPath;
+  private Currency eur;
+
+  @BeforeEach
+  void init() {
+    journalPath = directory.resolve("ledger.journal");
+    snapshotPath = directory.resolve("ledger.snapshot");
+    eur = Currency.getInstance("EUR");
+  }
+
+  @Test
+  void snapshot_withStripedEngineUnderLoad_shouldRestoreWithJournalTail() throws Exception {
+    snapshotUnderLoad_shouldRestoreWithJournalTail(
+        journal -> new InMemoryDataService(LockMode.STRIPED, journal));
+  }
+
+  @Test
+  void snapshot_withSequencedEngineUnderLoad_shouldRestoreWithJournalTail() throws Exception {
+    snapshotUnderLoad_shouldRestoreWithJournalTail(
+        journal -> new SequencedDataService(64, journal));
+  }
+
+  @Test
+  void snapshot_withLockFreeEngine_shouldThrow() {
+    DataService dataService = new LockFreeDataService();
+
+    assertThrows(UnsupportedOperationException.class, () -> dataService.snapshot(snapshotPath));
+  }
+
+  @Test
+  void snapshot_withDisabledJournal_shouldThrow() {
+    try (DataService striped = new InMemoryDataService();
+         DataService sequenced = new SequencedDataService(64)) {
+      assertThrows(UnsupportedOperationException.class, () -> striped.snapshot(snapshotPath));
+      assertThrows(UnsupportedOperationException.class, () -> sequenced.snapshot(snapshotPath));
+    }
+  }
+
+  private void snapshotUnderLoad_shouldRestoreWithJournalTail(
+      Function<FileJournal, DataService> engine) throws Exception {
+
+    List<UUID> accounts = new ArrayList<>();
+    long position;
+    try (FileJournal journal = FileJournal.open(journalPath, SyncPolicy.OS, 10);
+         DataService dataService = engine.apply(journal)) {
+      UUID userId = dataService.createUser("John Wick", "Vilnius st. 1", "LT",
+          HolderType.BUSINESS);
+      for (int i = 0; i < ACCOUNTS; i++) {
+        UUID accountId = dataService.createAccount(userId, eur);
+        dataService.deposit(accountId, 100, eur);
+        accounts.add(accountId);
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        results.add(executor.submit(() -> transferRandomly(dataService, accounts)));
+      }
+      position = dataService.snapshot(snapshotPath);
+      for (Future<?> result : results) {
+        result.get();
+      }
+      executor.shutdown();
+    }
+
+    MemoryDataStore restored = new MemoryDataStore();
+    long replayPosition = restored.loadSnapshot(snapshotPath);
+    try (FileJournal journal = FileJournal.open(journalPath, SyncPolicy.OS, 10)) {
+      journal.replay(restored, replayPosition);
+    }
+
+    assertEquals(position, replayPosition);
+    MemoryDataStore live = MemoryDataStore.getInstance();
+    long total = 0;
+    for (UUID accountId : accounts) {
+      assertEquals(live.getAccount(accountId).minorBalance(),
+          restored.getAccount(accountId).minorBalance());
+      total += restored.getAccount(accountId).minorBalance();
+    }
+    assertEquals(ACCOUNTS * 100_00L, total);
+    assertTrue(restored.getUser(live.getAccount(accounts.get(0)).holderId())
+        .ownedAccounts().containsAll(accounts));
+  }
+
+  private void transferRandomly(DataService dataService, List<UUID> accounts) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < TRANSFERS; i++) {
+      UUID source = accounts.get(random.nextInt(accounts.size()));
+      UUID target = accounts.get(random.nextInt(accounts.size()));
+      try {
+        dataService.transfer(source, target, random.nextInt(1, 500) / 100.0);
+      } catch (InsufficientResourcesException e) {
+        // balance exhausted, transfer is rejected as a whole
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
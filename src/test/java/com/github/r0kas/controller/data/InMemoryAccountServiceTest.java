@@ -3,21 +3,42 @@ package com.github.r0kas.controller.data;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.BalanceReport;
+import com.github.r0kas.model.data.CurrencyBalance;
 import com.github.r0kas.model.data.HolderType;
 import com.github.r0kas.model.data.MemoryDataStore;
+import com.github.r0kas.model.data.Transaction;
+import com.github.r0kas.model.data.TransactionPage;
+import com.github.r0kas.model.data.TransactionType;
 import com.github.r0kas.model.data.User;
+import com.github.r0kas.model.rest.ImportResult;
+import com.github.r0kas.model.rest.RequestAccount;
 import com.sun.jdi.InvalidTypeException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Currency;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.naming.InsufficientResourcesException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 class InMemoryAccountServiceTest {
 
@@ -82,6 +103,75 @@ class InMemoryAccountServiceTest {
     assertEquals(expectedAccount, testAccount);
   }
 
+  @Test
+  void getAccount_shouldNotChangeAfterDeposit() throws InvalidTypeException {
+    UUID accountId = accountService.createAccount(userId, eur);
+    Account snapshot = accountService.getAccount(accountId);
+    User holder = dataStore.getUser(userId);
+
+    accountService.deposit(accountId, 10.5, eur);
+    UUID linkedId = accountService.createAccount(userId, eur);
+
+    assertEquals(0.0, snapshot.balance());
+    assertEquals(10.5, accountService.getAccount(accountId).balance());
+    assertSame(holder, dataStore.getUser(userId));
+    assertEquals(Set.of(accountId, linkedId), holder.ownedAccounts());
+    assertThrows(UnsupportedOperationException.class,
+        () -> holder.ownedAccounts().add(UUID.randomUUID()));
+    assertEquals(Set.of(accountId, linkedId), dataStore.getOwnedAccounts(userId));
+  }
+
+  @Test
+  void getUserAccounts_shouldReturnCopiesOfOwnedAccounts() throws InvalidTypeException {
+    UUID eurAccount = accountService.createAccount(userId, eur);
+    UUID usdAccount = accountService.createAccount(userId, Currency.getInstance("USD"));
+    accountService.deposit(eurAccount, 20.0, eur);
+    accountService.deleteAccount(usdAccount);
+
+    List<Account> accounts = userService.getUserAccounts(userId);
+
+    assertEquals(1, accounts.size());
+    assertEquals(20.0, accounts.get(0).balance());
+    assertNotSame(dataStore.getAccount(eurAccount), accounts.get(0));
+    assertThrows(NoSuchElementException.class,
+        () -> userService.getUserAccounts(UUID.randomUUID()));
+  }
+
+  @Test
+  void importAccounts_shouldLinkCreatedAccountsAndRejectInvalidRecords() {
+    UUID missingHolder = UUID.randomUUID();
+    List<ImportResult> results = accountService.importAccounts(List.of(
+        new RequestAccount(userId, eur),
+        new RequestAccount(userId, null),
+        new RequestAccount(missingHolder, eur),
+        new RequestAccount(userId, eur)));
+
+    assertEquals(4, results.size());
+    assertEquals(userId, accountService.getAccount(results.get(0).id()).holderId());
+    assertEquals("provided arguments must hold value", results.get(1).error());
+    assertEquals("no user found with id: " + missingHolder, results.get(2).error());
+    assertEquals(Set.of(results.get(0).id(), results.get(3).id()),
+        userService.getUser(userId).ownedAccounts());
+  }
+
+  @Test
+  void exportAccounts_shouldReturnDetachedCopies() throws InvalidTypeException {
+    UUID accountId = accountService.createAccount(userId, eur);
+    Account exported = null;
+    Iterator<Account> accounts = accountService.exportAccounts();
+    while (accounts.hasNext()) {
+      Account account = accounts.next();
+      if (account.id().equals(accountId)) {
+        exported = account;
+      }
+    }
+
+    accountService.deposit(accountId, 10.5, eur);
+
+    assertEquals(0.0, exported.balance());
+    assertNotSame(dataStore.getAccount(accountId), exported);
+  }
+
   @Test
   void getAccount_withNonExistentId_shouldThrow() {
     assertThrows(NoSuchElementException.class,
@@ -140,7 +230,7 @@ class InMemoryAccountServiceTest {
     dataStore.setAccount(testAccount);
 
     assertDoesNotThrow(() -> accountService.withdraw(testAccount.id(), withdraw, eur));
-    assertEquals(balance - withdraw, dataStore.getAccount(testAccount.id()).balance());
+    assertEquals(49.57, dataStore.getAccount(testAccount.id()).balance());
   }
 
   @Test
@@ -184,6 +274,75 @@ class InMemoryAccountServiceTest {
     assertEquals(transfer, dataStore.getAccount(targetAccount.id()).balance());
   }
 
+  @Test
+  void getTransactions_shouldPageRecordedMovementsNewestFirst() throws Exception {
+    UUID source = accountService.createAccount(userId, eur);
+    UUID target = accountService.createAccount(userId, eur);
+    accountService.deposit(source, 100, eur);
+    accountService.withdraw(source, 10, eur);
+    accountService.transfer(source, target, 25.5);
+
+    TransactionPage first = accountService.getTransactions(source, null, 2);
+    TransactionPage second = accountService.getTransactions(source, first.nextCursor(), 2);
+    Transaction received = accountService.getTransactions(target, null, 10).transactions().get(0);
+
+    assertEquals(TransactionType.TRANSFER_OUT, first.transactions().get(0).type());
+    assertEquals(target, first.transactions().get(0).counterpartyId());
+    assertEquals(-2550, first.transactions().get(0).minorAmount());
+    assertEquals(6450, first.transactions().get(0).minorBalance());
+    assertEquals(TransactionType.WITHDRAW, first.transactions().get(1).type());
+    assertEquals(1, second.transactions().size());
+    assertEquals(TransactionType.DEPOSIT, second.transactions().get(0).type());
+    assertNull(second.nextCursor());
+    assertEquals(TransactionType.TRANSFER_IN, received.type());
+    assertEquals(source, received.counterpartyId());
+    assertThrows(IllegalArgumentException.class,
+        () -> accountService.getTransactions(source, null, 101));
+  }
+
+  @Test
+  void getBalanceReport_shouldFollowAccountAndBalanceChanges() throws Exception {
+    Currency chf = Currency.getInstance("CHF");
+    CurrencyBalance before = currencyBalance(accountService.getBalanceReport(false), chf);
+    UUID kept = accountService.createAccount(userId, chf);
+    UUID deleted = accountService.createAccount(userId, chf);
+    accountService.deposit(kept, 100.25, chf);
+    accountService.deposit(deleted, 50, chf);
+    accountService.withdraw(kept, 20, chf);
+    accountService.transfer(kept, deleted, 10);
+    accountService.deleteAccount(deleted);
+
+    BalanceReport report = accountService.getBalanceReport(true);
+    CurrencyBalance after = currencyBalance(report, chf);
+
+    assertEquals(before.accounts() + 1, after.accounts());
+    assertEquals(before.minorBalance() + 7025, after.minorBalance());
+    assertNull(accountService.getBalanceReport(false).scanned());
+    assertTrue(report.scanned().stream()
+        .anyMatch(scanned -> scanned.currency().equals(chf)
+            && scanned.minorBalance() >= 7025));
+  }
+
+  @Test
+  void creditTransfer_toDeletedTarget_shouldDropDebitedFunds() throws Exception {
+    InMemoryDataService ledger = new InMemoryDataService();
+    Currency huf = Currency.getInstance("HUF");
+    UUID source = ledger.createAccount(userId, huf);
+    UUID target = ledger.createAccount(userId, huf);
+    ledger.deposit(source, 100, huf);
+    long before = currencyBalance(ledger.getBalanceReport(false), huf).minorBalance();
+
+    long debited = ledger.debitTransfer(source, target, 40);
+    ledger.deleteAccount(target);
+    ledger.creditTransfer(source, target, debited);
+
+    assertEquals(4_000, debited);
+    assertEquals(6_000, dataStore.getAccount(source).minorBalance());
+    assertNull(dataStore.getAccount(target));
+    assertEquals(before - 4_000,
+        currencyBalance(ledger.getBalanceReport(false), huf).minorBalance());
+  }
+
   @Test
   void transfer_withNotMatchingCurrency_shouldThrow() {
     Account sourceAccount = new Account(userId, eur);
@@ -211,4 +370,66 @@ class InMemoryAccountServiceTest {
     assertThrows(NoSuchElementException.class,
         () -> accountService.transfer(UUID.randomUUID(), UUID.randomUUID(), 1));
   }
+
+  @Test
+  void rejectedOperations_shouldThrowWithoutStackTrace() {
+    Account account = new Account(userId, eur);
+    dataStore.setAccount(account);
+
+    assertEquals(0, assertThrows(InsufficientResourcesException.class,
+        () -> accountService.withdraw(account.id(), 1, eur)).getStackTrace().length);
+    assertEquals(0, assertThrows(InvalidTypeException.class,
+        () -> accountService.deposit(account.id(), 1, Currency.getInstance("GBP")))
+        .getStackTrace().length);
+    assertEquals(0, assertThrows(NoSuchElementException.class,
+        () -> accountService.getAccount(UUID.randomUUID())).getStackTrace().length);
+  }
+
+  @ParameterizedTest
+  @EnumSource(LockMode.class)
+  void transfer_concurrentOpposingTransfers_shouldConserveFunds(LockMode lockMode) {
+    AccountService service = new InMemoryDataService(lockMode);
+    Account firstAccount = new Account(userId, eur);
+    firstAccount.setBalance(1000);
+    Account secondAccount = new Account(userId, eur);
+    secondAccount.setBalance(1000);
+    dataStore.setAccount(firstAccount);
+    dataStore.setAccount(secondAccount);
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        boolean forward = i % 2 == 0;
+        results.add(executor.submit(() -> {
+          for (int j = 0; j < 1000; j++) {
+            try {
+              if (forward) {
+                service.transfer(firstAccount.id(), secondAccount.id(), 1);
+              } else {
+                service.transfer(secondAccount.id(), firstAccount.id(), 1);
+              }
+            } catch (InsufficientResourcesException ignore) {
+              // drained source is an expected outcome under contention
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+      executor.shutdown();
+    });
+
+    assertEquals(2000, dataStore.getAccount(firstAccount.id()).balance()
+        + dataStore.getAccount(secondAccount.id()).balance());
+  }
+
+  private static CurrencyBalance currencyBalance(BalanceReport report, Currency currency) {
+    return report.balances().stream()
+        .filter(balance -> balance.currency().equals(currency))
+        .findFirst()
+        .orElse(new CurrencyBalance(currency, 0, 0));
+  }
 }
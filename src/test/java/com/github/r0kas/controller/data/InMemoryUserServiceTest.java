@@ -3,14 +3,20 @@ package com.github.r0kas.controller.data;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.github.r0kas.model.data.HolderType;
 import com.github.r0kas.model.data.MemoryDataStore;
 import com.github.r0kas.model.data.User;
+import com.github.r0kas.model.data.UserPage;
+import com.github.r0kas.model.rest.ImportResult;
 import com.github.r0kas.model.rest.RequestUser;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -75,6 +81,44 @@ class InMemoryUserServiceTest {
         () -> userService.createUser(name, address, country, null));
   }
 
+  @Test
+  void importUsers_shouldCreateValidAndRejectInvalidRecords() {
+    List<ImportResult> results = userService.importUsers(List.of(
+        new RequestUser(name, address, country, userType),
+        new RequestUser(name, "", country, userType),
+        new RequestUser(name, address, "XX", userType),
+        new RequestUser(name, address, country, null),
+        new RequestUser("Jane Wick", address, "DE", HolderType.BUSINESS)));
+
+    assertEquals(5, results.size());
+    assertEquals(name, userService.getUser(results.get(0).id()).name());
+    assertEquals("provided arguments must hold value", results.get(1).error());
+    assertEquals("XX is not a valid country code", results.get(2).error());
+    assertNull(results.get(3).id());
+    assertEquals("DE", userService.getUser(results.get(4).id()).countryCode());
+  }
+
+  @Test
+  void findUsers_shouldReturnUsersOfCountryAndType() {
+    UUID business = userService.createUser(name, address, "LV", HolderType.BUSINESS);
+    UUID personal = userService.createUser(name, address, "LV", HolderType.PERSONAL);
+    userService.updateUser(personal, new RequestUser(null, null, null, HolderType.BUSINESS));
+    userService.createUser(name, address, "EE", HolderType.BUSINESS);
+
+    UserPage page = userService.findUsers("LV", HolderType.BUSINESS, null, 10);
+
+    assertEquals(Stream.of(business, personal).sorted().collect(Collectors.toList()),
+        page.users().stream().map(User::id).collect(Collectors.toList()));
+  }
+
+  @Test
+  void findUsers_withInvalidFilter_shouldThrow() {
+    assertThrows(IllegalArgumentException.class,
+        () -> userService.findUsers("XX", null, null, 10));
+    assertThrows(IllegalArgumentException.class,
+        () -> userService.findUsers(null, null, null, 0));
+  }
+
   @Test
   void getUser_withValidInputs() {
     User expectedUser = new User(name, address, country, userType);
@@ -197,9 +241,10 @@ class InMemoryUserServiceTest {
 
   @Test
   void deleteAccount_withOwnedAccounts_shouldThrow() {
+    UUID accountId = UUID.randomUUID();
     User testUser = new User(name, address, country, userType);
-    testUser.addOwnedAccount(UUID.randomUUID());
     dataStore.setUser(testUser);
+    dataStore.linkOwnedAccount(testUser.id(), accountId);
 
     assertThrows(UnsupportedOperationException.class, () -> userService.deleteUser(testUser.id()));
   }
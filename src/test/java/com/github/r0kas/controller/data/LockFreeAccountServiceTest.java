@@ -0,0 +1,266 @@
+package com.github.r0kas.controller.data;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.BalanceReport;
+import com.github.r0kas.model.data.CurrencyBalance;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.MemoryDataStore;
+import com.sun.jdi.InvalidTypeException;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.naming.InsufficientResourcesException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LockFreeAccountServiceTest {
+
+  private AccountService accountService;
+  private MemoryDataStore dataStore;
+  private UUID userId;
+  private Currency eur;
+
+  @BeforeEach
+  void init() {
+    LockFreeDataService dataService = new LockFreeDataService();
+    accountService = dataService;
+    dataStore = MemoryDataStore.getInstance();
+    userId = dataService.createUser("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    eur = Currency.getInstance("EUR");
+  }
+
+  @AfterEach
+  void cleanUp() {
+    accountService = null;
+  }
+
+  @Test
+  void deposit_withValidInputs() {
+    UUID accountId = accountService.createAccount(userId, eur);
+
+    assertDoesNotThrow(() -> accountService.deposit(accountId, 100.01, eur));
+    assertEquals(10001, dataStore.getAccount(accountId).minorBalance());
+  }
+
+  @Test
+  void withdraw_withValidInputs() {
+    Account testAccount = new Account(userId, eur);
+    testAccount.setBalance(100.01);
+    dataStore.setAccount(testAccount);
+
+    assertDoesNotThrow(() -> accountService.withdraw(testAccount.id(), 50.44, eur));
+    assertEquals(49.57, dataStore.getAccount(testAccount.id()).balance());
+  }
+
+  @Test
+  void withdraw_withInsufficientBalance_shouldThrow() {
+    Account testAccount = new Account(userId, eur);
+    dataStore.setAccount(testAccount);
+
+    assertThrows(InsufficientResourcesException.class,
+        () -> accountService.withdraw(testAccount.id(), 0.01, eur));
+    assertEquals(0, testAccount.minorBalance());
+  }
+
+  @Test
+  void transfer_withNotMatchingCurrency_shouldThrow() {
+    Account sourceAccount = new Account(userId, eur);
+    sourceAccount.setBalance(10);
+    Account targetAccount = new Account(userId, Currency.getInstance("GBP"));
+    dataStore.setAccount(sourceAccount);
+    dataStore.setAccount(targetAccount);
+
+    assertThrows(InvalidTypeException.class,
+        () -> accountService.transfer(sourceAccount.id(), targetAccount.id(), 1));
+    assertEquals(10, sourceAccount.balance());
+  }
+
+  @Test
+  void withdraw_concurrentWithdrawals_shouldNeverOverdraw() throws Exception {
+    Account testAccount = new Account(userId, eur);
+    testAccount.setBalance(1000);
+    dataStore.setAccount(testAccount);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(executor.submit(() -> {
+        int succeeded = 0;
+        for (int j = 0; j < 500; j++) {
+          try {
+            accountService.withdraw(testAccount.id(), 1, eur);
+            succeeded++;
+          } catch (InsufficientResourcesException ignore) {
+            // drained account is an expected outcome
+          }
+        }
+        return succeeded;
+      }));
+    }
+    int succeeded = 0;
+    for (Future<Integer> result : results) {
+      succeeded += result.get();
+    }
+    executor.shutdown();
+
+    assertEquals(1000, succeeded);
+    assertEquals(0, testAccount.minorBalance());
+  }
+
+  @Test
+  void getBalanceReport_concurrentDepositsAndWithdrawals_shouldSumEveryChange()
+      throws Exception {
+    Currency sek = Currency.getInstance("SEK");
+    UUID accountId = accountService.createAccount(userId, sek);
+    long before = minorTotal(sek);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(executor.submit(() -> {
+        for (int j = 0; j < 500; j++) {
+          accountService.deposit(accountId, 1, sek);
+          accountService.withdraw(accountId, 0.5, sek);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+
+    assertEquals(200_000, dataStore.getAccount(accountId).minorBalance());
+    assertEquals(before + 200_000, minorTotal(sek));
+  }
+
+  @Test
+  void deposit_withSubMinorUnitAmount_shouldThrow() {
+    UUID accountId = accountService.createAccount(userId, eur);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> accountService.deposit(accountId, 0.001, eur));
+    assertThrows(IllegalArgumentException.class,
+        () -> accountService.deposit(accountId, 1.005, eur));
+    assertEquals(0, dataStore.getAccount(accountId).minorBalance());
+  }
+
+  @Test
+  void deposit_concurrentWithAccountDeletion_shouldNeverLoseFunds() throws Exception {
+    Currency chf = Currency.getInstance("CHF");
+    long before = minorTotal(chf);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    for (int i = 0; i < 200; i++) {
+      UUID accountId = accountService.createAccount(userId, chf);
+      List<Future<?>> results = new ArrayList<>();
+      for (int t = 0; t < 2; t++) {
+        results.add(executor.submit(() -> {
+          try {
+            while (true) {
+              accountService.deposit(accountId, 0.01, chf);
+            }
+          } catch (NoSuchElementException e) {
+            return null;
+          }
+        }));
+      }
+      accountService.deleteAccount(accountId);
+      for (Future<?> result : results) {
+        result.get();
+      }
+    }
+    executor.shutdown();
+
+    assertEquals(before, minorTotal(chf));
+  }
+
+  @Test
+  void transfer_concurrentWithTargetDeletion_shouldRefundSource() throws Exception {
+    Currency dkk = Currency.getInstance("DKK");
+    long before = minorTotal(dkk);
+    UUID sourceId = accountService.createAccount(userId, dkk);
+    accountService.deposit(sourceId, 100_000, dkk);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    for (int i = 0; i < 200; i++) {
+      UUID targetId = accountService.createAccount(userId, dkk);
+      List<Future<?>> results = new ArrayList<>();
+      for (int t = 0; t < 2; t++) {
+        results.add(executor.submit(() -> {
+          try {
+            while (true) {
+              accountService.transfer(sourceId, targetId, 0.01);
+            }
+          } catch (NoSuchElementException e) {
+            return null;
+          }
+        }));
+      }
+      accountService.deleteAccount(targetId);
+      for (Future<?> result : results) {
+        result.get();
+      }
+    }
+    executor.shutdown();
+
+    assertEquals(minorTotal(dkk) - before, dataStore.getAccount(sourceId).minorBalance());
+  }
+
+  @Test
+  void getBalanceReport_verifiedAfterDeletionDuringDeposits_shouldMatchScan() throws Exception {
+    Currency pln = Currency.getInstance("PLN");
+    UUID keptId = accountService.createAccount(userId, pln);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    for (int i = 0; i < 100; i++) {
+      UUID accountId = accountService.createAccount(userId, pln);
+      List<Future<?>> results = new ArrayList<>();
+      for (int t = 0; t < 2; t++) {
+        results.add(executor.submit(() -> {
+          try {
+            while (true) {
+              accountService.deposit(accountId, 0.02, pln);
+              accountService.withdraw(accountId, 0.01, pln);
+              accountService.deposit(keptId, 0.01, pln);
+            }
+          } catch (NoSuchElementException | InsufficientResourcesException e) {
+            return null;
+          }
+        }));
+      }
+      accountService.deleteAccount(accountId);
+      for (Future<?> result : results) {
+        result.get();
+      }
+    }
+    executor.shutdown();
+
+    BalanceReport report = accountService.getBalanceReport(true);
+    assertEquals(minorBalance(report.scanned(), pln), minorBalance(report.balances(), pln));
+  }
+
+  private long minorBalance(List<CurrencyBalance> balances, Currency currency) {
+    return balances.stream()
+        .filter(balance -> balance.currency().equals(currency))
+        .mapToLong(CurrencyBalance::minorBalance)
+        .sum();
+  }
+
+  private long minorTotal(Currency currency) {
+    return accountService.getBalanceReport(false).balances().stream()
+        .filter(balance -> balance.currency().equals(currency))
+        .mapToLong(CurrencyBalance::minorBalance)
+        .sum();
+  }
+}
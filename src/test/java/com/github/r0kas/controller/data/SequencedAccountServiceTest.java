@@ -0,0 +1,178 @@
+package com.github.r0kas.controller.data;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.r0kas.model.data.BalanceReport;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.MemoryDataStore;
+import com.github.r0kas.model.rest.ImportResult;
+import com.github.r0kas.model.rest.RequestAccount;
+import com.sun.jdi.InvalidTypeException;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.naming.InsufficientResourcesException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SequencedAccountServiceTest {
+
+  private SequencedDataService dataService;
+  private MemoryDataStore dataStore;
+  private UUID userId;
+  private Currency eur;
+
+  @BeforeEach
+  void init() {
+    dataService = new SequencedDataService(64);
+    dataStore = MemoryDataStore.getInstance();
+    userId = dataService.createUser("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    eur = Currency.getInstance("EUR");
+  }
+
+  @AfterEach
+  void cleanUp() {
+    dataService.close();
+    dataService = null;
+  }
+
+  @Test
+  void createAccount_withValidInputs() {
+    UUID accountId = dataService.createAccount(userId, eur);
+
+    assertTrue(dataStore.getUser(userId).ownedAccounts().contains(accountId));
+    assertEquals(eur, dataService.getAccount(accountId).currency());
+  }
+
+  @Test
+  void createAccount_withNonExistentHolderId_shouldThrow() {
+    assertThrows(NoSuchElementException.class,
+        () -> dataService.createAccount(UUID.randomUUID(), eur));
+  }
+
+  @Test
+  void importAccounts_withMissingHolder_shouldRejectOnlyThatRecord() {
+    List<ImportResult> results = dataService.importAccounts(List.of(
+        new RequestAccount(UUID.randomUUID(), eur),
+        new RequestAccount(userId, eur)));
+
+    assertTrue(results.get(0).error().startsWith("no user found with id"));
+    assertEquals(userId, dataStore.getAccount(results.get(1).id()).holderId());
+  }
+
+  @Test
+  void deposit_withNotMatchingCurrency_shouldThrow() {
+    UUID accountId = dataService.createAccount(userId, eur);
+
+    assertThrows(InvalidTypeException.class,
+        () -> dataService.deposit(accountId, 1, Currency.getInstance("GBP")));
+  }
+
+  @Test
+  void withdraw_withInsufficientBalance_shouldThrow() {
+    UUID accountId = dataService.createAccount(userId, eur);
+
+    assertThrows(InsufficientResourcesException.class,
+        () -> dataService.withdraw(accountId, 1, eur));
+  }
+
+  @Test
+  void transfer_withInsufficientBalance_shouldRethrowLedgerException() {
+    UUID sourceId = dataService.createAccount(userId, eur);
+    UUID targetId = dataService.createAccount(userId, eur);
+
+    InsufficientResourcesException exception = assertThrows(InsufficientResourcesException.class,
+        () -> dataService.transfer(sourceId, targetId, 1));
+    assertTrue(exception instanceof InsufficientFundsException);
+    assertEquals(0, exception.getStackTrace().length);
+  }
+
+  @Test
+  void transfer_withValidInputs() throws Exception {
+    UUID sourceId = dataService.createAccount(userId, eur);
+    UUID targetId = dataService.createAccount(userId, eur);
+    dataService.deposit(sourceId, 50.5, eur);
+
+    assertDoesNotThrow(() -> dataService.transfer(sourceId, targetId, 22.2));
+    assertEquals(28.3, dataService.getAccount(sourceId).balance());
+    assertEquals(22.2, dataService.getAccount(targetId).balance());
+  }
+
+  @Test
+  void getBalanceReport_verified_shouldScanOnLedgerThread() throws Exception {
+    Currency nok = Currency.getInstance("NOK");
+    UUID accountId = dataService.createAccount(userId, nok);
+    dataService.deposit(accountId, 12.5, nok);
+
+    BalanceReport report = dataService.getBalanceReport(true);
+
+    assertTrue(report.isVerified());
+    assertTrue(report.scanned().stream()
+        .anyMatch(balance -> balance.currency().equals(nok) && balance.minorBalance() >= 1250));
+    assertTrue(report.balances().stream()
+        .anyMatch(balance -> balance.currency().equals(nok) && balance.accounts() >= 1));
+  }
+
+  @Test
+  void deposit_concurrentDepositsBeyondRingCapacity_shouldApplyAll() throws Exception {
+    UUID accountId = dataService.createAccount(userId, eur);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(executor.submit(() -> {
+        for (int j = 0; j < 1000; j++) {
+          dataService.deposit(accountId, 0.01, eur);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+
+    assertEquals(8000, dataService.getAccount(accountId).minorBalance());
+  }
+
+  @Test
+  void close_whileDepositsArePublished_shouldApplyOrRejectEveryDeposit() throws Exception {
+    UUID accountId = dataService.createAccount(userId, eur);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      results.add(executor.submit(() -> {
+        int applied = 0;
+        try {
+          while (true) {
+            dataService.deposit(accountId, 0.01, eur);
+            applied++;
+          }
+        } catch (IllegalStateException e) {
+          return applied;
+        }
+      }));
+    }
+    Thread.sleep(20);
+    dataService.close();
+
+    int applied = 0;
+    for (Future<Integer> result : results) {
+      applied += result.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertEquals(applied, dataService.getAccount(accountId).minorBalance());
+  }
+}
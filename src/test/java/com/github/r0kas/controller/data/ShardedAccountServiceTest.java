@@ -0,0 +1,174 @@
+package com.github.r0kas.controller.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.r0kas.model.data.CurrencyBalance;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.Journal;
+import com.github.r0kas.model.data.MemoryDataStore;
+import com.github.r0kas.model.data.TransactionType;
+import com.github.r0kas.model.rest.ImportResult;
+import com.github.r0kas.model.rest.RequestAccount;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.naming.InsufficientResourcesException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedAccountServiceTest {
+
+  private ShardedDataService dataService;
+  private MemoryDataStore dataStore;
+  private UUID userId;
+  private Currency eur;
+
+  @BeforeEach
+  void init() {
+    dataService = new ShardedDataService(4, 64, Journal.disabled());
+    dataStore = MemoryDataStore.getInstance();
+    userId = dataService.createUser("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    eur = Currency.getInstance("EUR");
+  }
+
+  @AfterEach
+  void cleanUp() {
+    dataService.close();
+    dataService = null;
+  }
+
+  @Test
+  void createAccount_shouldLinkHolderAndStoreAccount() {
+    for (int i = 0; i < 16; i++) {
+      UUID accountId = dataService.createAccount(userId, eur);
+
+      assertTrue(dataStore.getUser(userId).ownedAccounts().contains(accountId));
+      assertEquals(userId, dataService.getAccount(accountId).holderId());
+    }
+  }
+
+  @Test
+  void createAccount_withNonExistentHolderId_shouldThrow() {
+    assertThrows(NoSuchElementException.class,
+        () -> dataService.createAccount(UUID.randomUUID(), eur));
+  }
+
+  @Test
+  void importAccounts_withMissingHolder_shouldRejectOnlyThatRecord() {
+    List<RequestAccount> requests = new ArrayList<>();
+    requests.add(new RequestAccount(UUID.randomUUID(), eur));
+    for (int i = 0; i < 32; i++) {
+      requests.add(new RequestAccount(userId, eur));
+    }
+
+    List<ImportResult> results = dataService.importAccounts(requests);
+
+    assertTrue(results.get(0).error().startsWith("no user found with id"));
+    for (ImportResult result : results.subList(1, results.size())) {
+      assertEquals(userId, dataStore.getAccount(result.id()).holderId());
+      assertTrue(dataStore.getUser(userId).ownedAccounts().contains(result.id()));
+    }
+  }
+
+  @Test
+  void deleteAccount_shouldUnlinkAccountFromHolder() {
+    UUID accountId = dataService.createAccount(userId, eur);
+
+    assertThrows(UnsupportedOperationException.class, () -> dataService.deleteUser(userId));
+    dataService.deleteAccount(accountId);
+
+    assertNull(dataStore.getAccount(accountId));
+    assertFalse(dataStore.getUser(userId).ownedAccounts().contains(accountId));
+    dataService.deleteUser(userId);
+    assertFalse(dataStore.isUserPresent(userId));
+  }
+
+  @Test
+  void transfer_aroundAccountsOfAllShards_shouldMoveFundsAndRecordHistory() throws Exception {
+    UUID[] accounts = new UUID[16];
+    for (int i = 0; i < accounts.length; i++) {
+      accounts[i] = dataService.createAccount(userId, eur);
+    }
+    dataService.deposit(accounts[0], 100, eur);
+
+    for (int i = 1; i < accounts.length; i++) {
+      dataService.transfer(accounts[i - 1], accounts[i], 100);
+    }
+
+    for (int i = 0; i < accounts.length - 1; i++) {
+      assertEquals(0, dataService.getAccount(accounts[i]).minorBalance());
+    }
+    UUID last = accounts[accounts.length - 1];
+    assertEquals(10_000, dataService.getAccount(last).minorBalance());
+    assertEquals(TransactionType.TRANSFER_IN,
+        dataService.getTransactions(last, null, 1).transactions().get(0).type());
+  }
+
+  @Test
+  void transfer_withInsufficientBalance_shouldRethrowLedgerException() {
+    UUID sourceId = dataService.createAccount(userId, eur);
+    UUID targetId = dataService.createAccount(userId, eur);
+
+    InsufficientResourcesException exception = assertThrows(InsufficientResourcesException.class,
+        () -> dataService.transfer(sourceId, targetId, 1));
+    assertTrue(exception instanceof InsufficientFundsException);
+  }
+
+  @Test
+  void transfer_concurrentAcrossShards_shouldConserveFundsAndTotals() throws Exception {
+    Currency dkk = Currency.getInstance("DKK");
+    UUID[] accounts = new UUID[8];
+    for (int i = 0; i < accounts.length; i++) {
+      accounts[i] = dataService.createAccount(userId, dkk);
+      dataService.deposit(accounts[i], 10, dkk);
+    }
+    long before = minorTotal(dkk);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> results = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      results.add(executor.submit(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 2_000; i++) {
+          int source = random.nextInt(accounts.length);
+          int target = (source + 1 + random.nextInt(accounts.length - 1)) % accounts.length;
+          try {
+            dataService.transfer(accounts[source], accounts[target], 0.5);
+          } catch (InsufficientResourcesException ignore) {
+            // drained source is an expected outcome under contention
+          }
+        }
+        return null;
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+
+    long sum = 0;
+    for (UUID account : accounts) {
+      sum += dataService.getAccount(account).minorBalance();
+    }
+    assertEquals(8_000, sum);
+    assertEquals(before, minorTotal(dkk));
+  }
+
+  private long minorTotal(Currency currency) {
+    return dataService.getBalanceReport(false).balances().stream()
+        .filter(balance -> balance.currency().equals(currency))
+        .mapToLong(CurrencyBalance::minorBalance)
+        .sum();
+  }
+}
@@ -0,0 +1,74 @@
+package com.github.r0kas.controller.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+class AccessLogTest {
+
+  private Logger logger;
+  private ListAppender<ILoggingEvent> appender;
+
+  @BeforeEach
+  void init() {
+    logger = (Logger) LoggerFactory.getLogger(AccessLog.LOGGER);
+    appender = new ListAppender<>();
+    appender.start();
+    logger.addAppender(appender);
+  }
+
+  @AfterEach
+  void tearDown() {
+    logger.detachAppender(appender);
+  }
+
+  @Test
+  void record_shouldWriteStructuredLine() {
+    new AccessLog().record("req-1", "POST", "/account/transfer", 200,
+        TimeUnit.MICROSECONDS.toNanos(1_500));
+
+    assertEquals(1, appender.list.size());
+    ILoggingEvent event = appender.list.get(0);
+    assertEquals(Level.INFO, event.getLevel());
+    assertEquals("requestId=req-1 method=POST route=/account/transfer status=200 "
+        + "latencyMicros=1500", event.getFormattedMessage());
+  }
+
+  @Test
+  void record_failedRequests_shouldRaiseLevel() {
+    AccessLog accessLog = new AccessLog();
+    accessLog.record("req-1", "GET", "/account/:id", 404, 0);
+    accessLog.record("req-2", "GET", "/account/:id", 500, 0);
+
+    assertEquals(Level.WARN, appender.list.get(0).getLevel());
+    assertEquals(Level.ERROR, appender.list.get(1).getLevel());
+  }
+
+  @Test
+  void record_sampled_shouldKeepEveryFailedRequest() {
+    AccessLog accessLog = new AccessLog(1_000_000);
+    for (int i = 0; i < 100; i++) {
+      accessLog.record("req-" + i, "GET", "/account/:id", 200, 0);
+      accessLog.record("req-" + i, "GET", "/account/:id", 404, 0);
+    }
+
+    long failed = appender.list.stream().filter(event -> event.getLevel() == Level.WARN).count();
+    assertEquals(100, failed);
+    assertTrue(appender.list.size() < 110);
+  }
+
+  @Test
+  void sampleRate_belowOne_shouldBeRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new AccessLog(0));
+  }
+}
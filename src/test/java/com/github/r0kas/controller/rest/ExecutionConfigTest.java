@@ -0,0 +1,79 @@
+package com.github.r0kas.controller.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.Test;
+
+class ExecutionConfigTest {
+
+  @Test
+  void boundedPool_shouldRejectTasksAboveQueueCapacity() throws Exception {
+    QueuedThreadPool pool = (QueuedThreadPool) ExecutionConfig.boundedPool(2, 1, 2, 1_000)
+        .threadPool();
+    CountDownLatch release = new CountDownLatch(1);
+    pool.start();
+    try {
+      int rejected = 0;
+      for (int i = 0; i < 10; i++) {
+        try {
+          pool.execute(() -> awaitQuietly(release));
+        } catch (RejectedExecutionException e) {
+          rejected++;
+        }
+      }
+
+      assertEquals(2, pool.getMaxThreads());
+      assertTrue(rejected >= 6);
+      assertTrue(pool.getThreads() <= 2);
+    } finally {
+      release.countDown();
+      pool.stop();
+    }
+  }
+
+  @Test
+  void boundedPool_withInvalidLimits_shouldThrow() {
+    assertThrows(IllegalArgumentException.class,
+        () -> ExecutionConfig.boundedPool(1, 2, 10, 1_000));
+    assertThrows(IllegalArgumentException.class,
+        () -> ExecutionConfig.boundedPool(2, 1, 0, 1_000));
+  }
+
+  @Test
+  void virtualThreads_onOlderJdk_shouldThrow() {
+    assumeFalse(ExecutionConfig.virtualThreadsSupported());
+
+    assertThrows(UnsupportedOperationException.class, ExecutionConfig::virtualThreads);
+  }
+
+  @Test
+  void threadPerTaskPool_shouldRunTasksAfterRestart() throws Exception {
+    VirtualThreadPool pool = new VirtualThreadPool(Executors::newCachedThreadPool);
+    for (int restart = 0; restart < 2; restart++) {
+      pool.start();
+      CountDownLatch done = new CountDownLatch(3);
+      for (int i = 0; i < 3; i++) {
+        pool.execute(done::countDown);
+      }
+
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      pool.stop();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.github.r0kas.controller.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.r0kas.model.rest.Response;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyCacheTest {
+
+  private IdempotencyCache cache;
+  private Response body;
+  private HashCode fingerprint;
+
+  @BeforeEach
+  void init() {
+    cache = new IdempotencyCache(2, Duration.ofMinutes(1), Duration.ofMillis(200));
+    body = new Response("request-1", "OK", "deposit successful");
+    fingerprint = hash("{\"amount\": 10}");
+  }
+
+  @Test
+  void claim_completedKey_shouldReplayResponse() throws InterruptedException {
+    IdempotencyCache.Claim first = cache.claim("key", fingerprint);
+    first.complete(200, body);
+
+    IdempotencyCache.StoredResponse replay = cache.claim("key", fingerprint).replay();
+
+    assertNull(first.replay());
+    assertEquals(200, replay.status());
+    assertSame(body, replay.body());
+  }
+
+  @Test
+  void claim_keyInFlight_shouldWaitForFirstResponse() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    IdempotencyCache.Claim first = cache.claim("key", fingerprint);
+
+    Future<IdempotencyCache.StoredResponse> duplicate =
+        executor.submit(() -> cache.claim("key", fingerprint).replay());
+    TimeUnit.MILLISECONDS.sleep(50);
+    assertFalse(duplicate.isDone());
+    first.complete(402, body);
+
+    assertEquals(402, duplicate.get(5, TimeUnit.SECONDS).status());
+    executor.shutdown();
+  }
+
+  @Test
+  void claim_abandonedKey_shouldExecuteAgain() throws InterruptedException {
+    IdempotencyCache.Claim first = cache.claim("key", fingerprint);
+    first.abandon();
+
+    IdempotencyCache.Claim second = cache.claim("key", fingerprint);
+    second.complete(200, body);
+    second.abandon();
+
+    assertNull(second.replay());
+    assertEquals(200, cache.claim("key", fingerprint).replay().status());
+  }
+
+  @Test
+  void claim_aboveMaximumSize_shouldEvictKeys() throws InterruptedException {
+    for (String key : new String[] {"a", "b", "c"}) {
+      cache.claim(key, fingerprint).complete(200, body);
+    }
+
+    assertNull(cache.claim("a", fingerprint).replay());
+  }
+
+  @Test
+  void claim_keyWithAnotherBody_shouldBeRejected() throws InterruptedException {
+    IdempotencyCache.Claim first = cache.claim("key", fingerprint);
+
+    IdempotencyConflictException inFlight = assertThrows(IdempotencyConflictException.class,
+        () -> cache.claim("key", hash("{\"amount\": 20}")));
+    first.complete(200, body);
+    IdempotencyConflictException completed = assertThrows(IdempotencyConflictException.class,
+        () -> cache.claim("key", hash("{\"amount\": 20}")));
+
+    assertEquals(422, inFlight.status());
+    assertEquals(422, completed.status());
+  }
+
+  @Test
+  void claim_keyInFlightTooLong_shouldStopWaiting() throws InterruptedException {
+    cache.claim("key", fingerprint);
+
+    IdempotencyConflictException conflict = assertThrows(IdempotencyConflictException.class,
+        () -> cache.claim("key", fingerprint));
+
+    assertEquals(409, conflict.status());
+  }
+
+  @Test
+  void claim_aboveMaximumSize_shouldKeepKeysInFlight() throws InterruptedException {
+    IdempotencyCache.Claim first = cache.claim("a", fingerprint);
+    for (String key : new String[] {"b", "c", "d"}) {
+      cache.claim(key, fingerprint).complete(200, body);
+    }
+
+    assertThrows(IdempotencyConflictException.class, () -> cache.claim("a", fingerprint));
+    first.complete(402, body);
+    assertEquals(402, cache.claim("a", fingerprint).replay().status());
+  }
+
+  private static HashCode hash(String requestBody) {
+    return Hashing.sha256().hashString(requestBody, StandardCharsets.UTF_8);
+  }
+}
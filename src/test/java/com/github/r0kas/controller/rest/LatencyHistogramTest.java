@@ -0,0 +1,51 @@
+package com.github.r0kas.controller.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void index_shouldCoverValuesWithoutGaps() {
+    for (int index = 1; index < LatencyHistogram.index(LatencyHistogram.MAX_VALUE); index++) {
+      long lowest = LatencyHistogram.highestValue(index - 1) + 1;
+      assertEquals(index, LatencyHistogram.index(lowest));
+      assertEquals(index, LatencyHistogram.index(LatencyHistogram.highestValue(index)));
+    }
+  }
+
+  @Test
+  void valueAt_shouldStayWithinRelativeError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long micros = 1; micros <= 10_000; micros++) {
+      histogram.record(micros * 1_000);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(10_000, snapshot.count());
+    assertEquals(50_005_000_000L, snapshot.sum());
+    assertWithin(5_000_000, snapshot.valueAt(0.5));
+    assertWithin(9_900_000, snapshot.valueAt(0.99));
+    assertWithin(10_000_000, snapshot.valueAt(1));
+    assertWithin(1_000, snapshot.valueAt(0));
+  }
+
+  @Test
+  void record_outOfRangeValues_shouldBeClamped() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(2, snapshot.count());
+    assertEquals(0, snapshot.valueAt(0.5));
+    assertEquals(LatencyHistogram.MAX_VALUE, snapshot.valueAt(1));
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(expected <= actual && actual <= expected * 1.04,
+        "expected ~" + expected + " but was " + actual);
+  }
+}
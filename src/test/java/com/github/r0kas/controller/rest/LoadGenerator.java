@@ -0,0 +1,342 @@
+package com.github.r0kas.controller.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.r0kas.controller.data.DataService;
+import com.github.r0kas.controller.data.InMemoryDataService;
+import com.github.r0kas.controller.data.LockFreeDataService;
+import com.github.r0kas.controller.data.LockMode;
+import com.github.r0kas.controller.data.SequencedDataService;
+import com.github.r0kas.controller.data.ShardedDataService;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.Journal;
+import java.io.IOException;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import spark.Spark;
+
+/**
+ * Load generator starts service locally, seeds funded accounts and sends a mix of ledger requests
+ * at fixed arrival rate. Latency is measured from the time request was scheduled to be sent, not
+ * from the time a connection became free, so server stalls are not hidden by requests which were
+ * never sent during the stall (coordinated omission). Service time, measured from actual send, is
+ * reported next to it for comparison.
+ *
+ * <p>Configured with system properties, for ex.:
+ * {@code mvn -P load test -Dload.args="-Dload.rate=2000 -Dload.maxP99Millis=20"}.
+ * Exits with status 1 if any request failed or p99 latency of any endpoint exceeds
+ * {@code load.maxP99Millis}, so it can gate a release.
+ */
+public final class LoadGenerator {
+
+  private static final Currency EUR = Currency.getInstance("EUR");
+  private static final double SEED_BALANCE = 1_000_000;
+  private static final String AMOUNT = "0.01";
+  private static final long DRAIN_TIMEOUT_SECONDS = 60;
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 1.0};
+
+  private final int port;
+  private final double rate;
+  private final int warmupSeconds;
+  private final int durationSeconds;
+  private final int connections;
+  private final Mix mix;
+  private final Map<Endpoint, Result> results = new EnumMap<>(Endpoint.class);
+  private UUID[] accounts;
+
+  private LoadGenerator(int port, double rate, int warmupSeconds, int durationSeconds,
+                        int connections, Mix mix) {
+    this.port = port;
+    this.rate = rate;
+    this.warmupSeconds = warmupSeconds;
+    this.durationSeconds = durationSeconds;
+    this.connections = connections;
+    this.mix = mix;
+    for (Endpoint endpoint : Endpoint.values()) {
+      results.put(endpoint, new Result());
+    }
+  }
+
+  /**
+   * Runs load and prints report.
+   *
+   * @param args not used, configuration is read from system properties
+   * @throws Exception if service cannot be started or seeded
+   */
+  public static void main(String[] args) throws Exception {
+    LoadGenerator generator = new LoadGenerator(
+        Integer.getInteger("load.port", 8099),
+        Double.parseDouble(System.getProperty("load.rate", "1000")),
+        Integer.getInteger("load.warmupSeconds", 5),
+        Integer.getInteger("load.durationSeconds", 30),
+        Integer.getInteger("load.connections", 64),
+        Mix.parse(System.getProperty("load.mix", "transfer:50,deposit:15,withdraw:15,get:20")));
+
+    DataService dataService = dataService(System.getProperty("load.engine", ""));
+    TransferFulService service = new TransferFulService(new ObjectMapper(),
+        dataService, dataService, RequestIdGenerator.timeOrdered(),
+        new AccessLog(Integer.getInteger("load.accessLogSampleRate", 1_000)));
+    int status;
+    try {
+      generator.seed(dataService, Integer.getInteger("load.users", 100),
+          Integer.getInteger("load.accountsPerUser", 10));
+      service.start(Integer.toString(generator.port));
+      Spark.awaitInitialization();
+      generator.run();
+      status = generator.report(Long.getLong("load.maxP99Millis", 0L));
+    } finally {
+      service.stop();
+      dataService.close();
+    }
+    System.exit(status);
+  }
+
+  private static DataService dataService(String engine) {
+    switch (engine) {
+      case "global":
+        return new InMemoryDataService(LockMode.GLOBAL, Journal.disabled());
+      case "lockfree":
+        return new LockFreeDataService();
+      case "sequenced":
+        return new SequencedDataService(1 << 14, Journal.disabled());
+      case "sharded":
+        return new ShardedDataService();
+      default:
+        return new InMemoryDataService(LockMode.STRIPED, Journal.disabled());
+    }
+  }
+
+  private void seed(DataService dataService, int users, int accountsPerUser) throws Exception {
+    accounts = new UUID[users * accountsPerUser];
+    for (int user = 0; user < users; user++) {
+      UUID holderId = dataService.createUser("Load " + user, "Street " + user, "LT",
+          HolderType.PERSONAL);
+      for (int account = 0; account < accountsPerUser; account++) {
+        UUID accountId = dataService.createAccount(holderId, EUR);
+        dataService.deposit(accountId, SEED_BALANCE, EUR);
+        accounts[user * accountsPerUser + account] = accountId;
+      }
+    }
+  }
+
+  /**
+   * Sends requests at their scheduled times until measured period ends. Scheduler never waits
+   * for responses, requests which cannot be sent on time wait in queue for a free connection
+   * and that wait is counted in their latency.
+   */
+  private void run() throws InterruptedException, IOException {
+    PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager();
+    pool.setMaxTotal(connections);
+    pool.setDefaultMaxPerRoute(connections);
+    ExecutorService senders = Executors.newFixedThreadPool(connections);
+    SplittableRandom random = new SplittableRandom();
+    String base = "http://localhost:" + port;
+    long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    long start = System.nanoTime();
+    long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+    long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+    try (CloseableHttpClient client = HttpClients.custom().setConnectionManager(pool).build()) {
+      for (long sent = 0; ; sent++) {
+        long scheduled = start + sent * interval;
+        if (scheduled >= end) {
+          break;
+        }
+        long wait = scheduled - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        Endpoint endpoint = mix.next(random);
+        HttpUriRequest request = endpoint.request(base, this, random);
+        Result result = scheduled >= measureFrom ? results.get(endpoint) : null;
+        senders.execute(() -> send(client, request, scheduled, result));
+      }
+      senders.shutdown();
+      if (!senders.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        senders.shutdownNow();
+      }
+    }
+  }
+
+  private static void send(CloseableHttpClient client, HttpUriRequest request, long scheduled,
+                           Result result) {
+    long sent = System.nanoTime();
+    boolean failed;
+    try (CloseableHttpResponse response = client.execute(request)) {
+      EntityUtils.consume(response.getEntity());
+      failed = response.getStatusLine().getStatusCode() >= 300;
+    } catch (IOException e) {
+      failed = true;
+    }
+    if (result != null) {
+      long completed = System.nanoTime();
+      result.latency.record(completed - scheduled);
+      result.service.record(completed - sent);
+      if (failed) {
+        result.errors.increment();
+      }
+    }
+  }
+
+  private UUID account(SplittableRandom random) {
+    return accounts[random.nextInt(accounts.length)];
+  }
+
+  /**
+   * Prints throughput and latency percentiles of every endpoint.
+   *
+   * @return process exit status, 1 if any request failed or p99 limit was exceeded
+   */
+  private int report(long maxP99Millis) {
+    int status = 0;
+    System.out.printf(Locale.ROOT, "target rate %.0f/s, %d connections, %ds measured%n",
+        rate, connections, durationSeconds);
+    System.out.printf(Locale.ROOT, "%-9s %9s %9s %7s %9s %9s %9s %9s %9s %11s%n",
+        "endpoint", "requests", "rate/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms",
+        "max ms", "svc p99 ms");
+    for (Map.Entry<Endpoint, Result> entry : results.entrySet()) {
+      LatencyHistogram.Snapshot latency = entry.getValue().latency.snapshot();
+      if (latency.count() == 0) {
+        continue;
+      }
+      long errors = entry.getValue().errors.sum();
+      System.out.printf(Locale.ROOT, "%-9s %9d %9.1f %7d",
+          entry.getKey().name().toLowerCase(Locale.ROOT), latency.count(),
+          (double) latency.count() / durationSeconds, errors);
+      for (double quantile : QUANTILES) {
+        System.out.printf(Locale.ROOT, " %9.3f", millis(latency.valueAt(quantile)));
+      }
+      System.out.printf(Locale.ROOT, " %11.3f%n",
+          millis(entry.getValue().service.snapshot().valueAt(0.99)));
+      if (errors > 0 || (maxP99Millis > 0 && millis(latency.valueAt(0.99)) > maxP99Millis)) {
+        status = 1;
+      }
+    }
+    return status;
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  /**
+   * Ledger endpoints driven by generator.
+   */
+  private enum Endpoint {
+    TRANSFER {
+      @Override
+      HttpUriRequest request(String base, LoadGenerator generator, SplittableRandom random) {
+        UUID source = generator.account(random);
+        UUID target = generator.account(random);
+        while (target.equals(source)) {
+          target = generator.account(random);
+        }
+        return post(base + "/account/transfer", "{\"source\":\"" + source
+            + "\",\"target\":\"" + target + "\",\"amount\":" + AMOUNT + "}");
+      }
+    },
+    DEPOSIT {
+      @Override
+      HttpUriRequest request(String base, LoadGenerator generator, SplittableRandom random) {
+        return post(base + "/account/deposit", depositWithdraw(generator.account(random)));
+      }
+    },
+    WITHDRAW {
+      @Override
+      HttpUriRequest request(String base, LoadGenerator generator, SplittableRandom random) {
+        return post(base + "/account/withdraw", depositWithdraw(generator.account(random)));
+      }
+    },
+    GET {
+      @Override
+      HttpUriRequest request(String base, LoadGenerator generator, SplittableRandom random) {
+        return new HttpGet(base + "/account/" + generator.account(random));
+      }
+    };
+
+    abstract HttpUriRequest request(String base, LoadGenerator generator,
+                                    SplittableRandom random);
+
+    private static HttpUriRequest post(String uri, String json) {
+      HttpPost post = new HttpPost(uri);
+      post.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+      return post;
+    }
+
+    private static String depositWithdraw(UUID accountId) {
+      return "{\"accountId\":\"" + accountId + "\",\"currency\":\"" + EUR.getCurrencyCode()
+          + "\",\"amount\":" + AMOUNT + "}";
+    }
+  }
+
+  /**
+   * Weighted mix of endpoints, for ex. "transfer:50,get:50".
+   */
+  private static final class Mix {
+
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+
+    private Mix(Endpoint[] endpoints, int[] cumulativeWeights) {
+      this.endpoints = endpoints;
+      this.cumulativeWeights = cumulativeWeights;
+    }
+
+    static Mix parse(String mix) {
+      String[] parts = mix.split(",");
+      Endpoint[] endpoints = new Endpoint[parts.length];
+      int[] cumulativeWeights = new int[parts.length];
+      int total = 0;
+      for (int i = 0; i < parts.length; i++) {
+        String[] part = parts[i].trim().split(":");
+        if (part.length != 2 || Integer.parseInt(part[1]) < 0) {
+          throw new IllegalArgumentException("invalid mix entry: " + parts[i]);
+        }
+        endpoints[i] = Endpoint.valueOf(part[0].toUpperCase(Locale.ROOT));
+        total += Integer.parseInt(part[1]);
+        cumulativeWeights[i] = total;
+      }
+      if (total == 0) {
+        throw new IllegalArgumentException("mix has no weight: " + mix);
+      }
+      return new Mix(endpoints, cumulativeWeights);
+    }
+
+    Endpoint next(SplittableRandom random) {
+      int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+      int i = 0;
+      while (pick >= cumulativeWeights[i]) {
+        i++;
+      }
+      return endpoints[i];
+    }
+  }
+
+  /**
+   * Measurements of one endpoint.
+   */
+  private static final class Result {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram service = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+  }
+}
@@ -0,0 +1,71 @@
+package com.github.r0kas.controller.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class RequestIdGeneratorTest {
+
+  @Test
+  void timeOrdered_shouldEncodeCreationMillisecond() {
+    long before = System.currentTimeMillis();
+    UUID id = RequestIdGenerator.timeOrdered().next();
+    long after = System.currentTimeMillis();
+
+    long millis = id.getMostSignificantBits() >>> 16;
+    assertEquals(7, id.version());
+    assertEquals(2, id.variant());
+    assertTrue(before <= millis && millis <= after);
+  }
+
+  @Test
+  void timeOrdered_shouldSortByMillisecond() throws InterruptedException {
+    RequestIdGenerator generator = RequestIdGenerator.timeOrdered();
+    UUID earlier = generator.next();
+    Thread.sleep(2);
+    UUID later = generator.next();
+
+    assertTrue(Long.compareUnsigned(earlier.getMostSignificantBits(),
+        later.getMostSignificantBits()) < 0);
+    assertTrue(earlier.toString().compareTo(later.toString()) < 0);
+  }
+
+  @Test
+  void timeOrdered_concurrently_shouldNotRepeatIds() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<List<UUID>>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(executor.submit(() -> {
+        List<UUID> ids = new ArrayList<>();
+        for (int j = 0; j < 50_000; j++) {
+          ids.add(RequestIdGenerator.timeOrdered().next());
+        }
+        return ids;
+      }));
+    }
+    Set<UUID> unique = new HashSet<>();
+    for (Future<List<UUID>> result : results) {
+      unique.addAll(result.get());
+    }
+    executor.shutdown();
+
+    assertEquals(400_000, unique.size());
+  }
+
+  @Test
+  void random_shouldGenerateVersionFourIds() {
+    UUID id = RequestIdGenerator.random().next();
+
+    assertEquals(4, id.version());
+    assertEquals(2, id.variant());
+  }
+}
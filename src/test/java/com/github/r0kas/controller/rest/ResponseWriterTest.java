@@ -0,0 +1,89 @@
+package com.github.r0kas.controller.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.r0kas.model.rest.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ResponseWriterTest {
+
+  private ResponseWriter writer;
+  private ByteArrayOutputStream body;
+  private HttpServletResponse raw;
+  private Response failure;
+
+  @BeforeEach
+  void init() {
+    writer = new ResponseWriter(new ObjectMapper());
+    body = new ByteArrayOutputStream();
+    ServletOutputStream stream = new ServletOutputStream() {
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setWriteListener(WriteListener listener) {
+      }
+
+      @Override
+      public void write(int b) {
+        body.write(b);
+      }
+    };
+    raw = (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] {HttpServletResponse.class}, (proxy, method, args) -> {
+          if (method.getName().equals("getOutputStream")) {
+            return stream;
+          }
+          throw new UnsupportedOperationException(method.getName());
+        });
+    failure = new Response("request-1", "Server Error", "stream ended early by server error");
+  }
+
+  @Test
+  void writeLines_shouldWriteOneLinePerValue() throws IOException {
+    writer.writeLines(raw, String.class, List.of("a", "b").iterator(), failure);
+
+    assertEquals("\"a\"\n\"b\"\n", body.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void writeLines_failingAfterFirstValue_shouldEndWithErrorLine() throws IOException {
+    Iterator<String> values = new Iterator<>() {
+      private boolean sent;
+
+      @Override
+      public boolean hasNext() {
+        if (sent) {
+          throw new UncheckedIOException(new IOException("journal write failed"));
+        }
+        return true;
+      }
+
+      @Override
+      public String next() {
+        sent = true;
+        return "a";
+      }
+    };
+
+    writer.writeLines(raw, String.class, values, failure);
+
+    assertEquals("\"a\"\n{\"id\":\"request-1\",\"status\":\"Server Error\","
+        + "\"response\":\"stream ended early by server error\"}\n",
+        body.toString(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,82 @@
+package com.github.r0kas.controller.rest;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.r0kas.controller.data.InMemoryDataService;
+import com.github.r0kas.controller.data.MeteredAccountService;
+import com.github.r0kas.model.data.HolderType;
+import com.sun.jdi.InvalidTypeException;
+import java.util.Currency;
+import java.util.UUID;
+import javax.naming.InsufficientResourcesException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ServiceMetricsTest {
+
+  private MeteredAccountService ledger;
+  private ServiceMetrics metrics;
+
+  @BeforeEach
+  void init() {
+    InMemoryDataService dataService = new InMemoryDataService();
+    ledger = new MeteredAccountService(dataService);
+    metrics = new ServiceMetrics(ledger);
+  }
+
+  @Test
+  void scrape_shouldExposeRequestsPerRouteAndStatus() {
+    metrics.record("GET", "/account/:id", 200, 2_000);
+    metrics.record("GET", "/account/:id", 200, 4_000);
+    metrics.record("GET", "/account/:id", 404, 1_000);
+
+    String scrape = metrics.scrape();
+
+    assertTrue(scrape.contains(
+        "transferful_requests_total{method=\"GET\",route=\"/account/:id\",status=\"200\"} 2\n"));
+    assertTrue(scrape.contains(
+        "transferful_requests_total{method=\"GET\",route=\"/account/:id\",status=\"404\"} 1\n"));
+    assertTrue(scrape.contains("transferful_request_duration_seconds_count{method=\"GET\","
+        + "route=\"/account/:id\",status=\"200\"} 2\n"));
+    assertTrue(scrape.contains("transferful_request_duration_seconds_sum{method=\"GET\","
+        + "route=\"/account/:id\",status=\"200\"} 6.0E-6\n"));
+    assertTrue(scrape.contains("transferful_request_duration_seconds{method=\"GET\","
+        + "route=\"/account/:id\",status=\"404\",quantile=\"0.99\"} 1.007E-6\n"));
+  }
+
+  @Test
+  void record_withUnknownMethods_shouldShareOneBucket() {
+    metrics.record("PROPFIND", "unmatched", 404, 1_000);
+    metrics.record("X-CUSTOM-" + UUID.randomUUID(), "unmatched", 404, 1_000);
+
+    String scrape = metrics.scrape();
+
+    assertTrue(scrape.contains(
+        "transferful_requests_total{method=\"OTHER\",route=\"unmatched\",status=\"404\"} 2\n"));
+    assertFalse(scrape.contains("PROPFIND"));
+  }
+
+  @Test
+  void scrape_shouldExposeTransferOutcomes() throws Exception {
+    UUID userId = new InMemoryDataService()
+        .createUser("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    UUID source = ledger.createAccount(userId, Currency.getInstance("EUR"));
+    UUID target = ledger.createAccount(userId, Currency.getInstance("EUR"));
+    UUID other = ledger.createAccount(userId, Currency.getInstance("USD"));
+    ledger.deposit(source, 10, Currency.getInstance("EUR"));
+
+    ledger.transfer(source, target, 5);
+    assertThrows(InsufficientResourcesException.class, () -> ledger.transfer(source, target, 50));
+    assertThrows(InvalidTypeException.class, () -> ledger.transfer(source, other, 1));
+
+    String scrape = metrics.scrape();
+
+    assertTrue(scrape.contains("transferful_ledger_transfers_total{outcome=\"applied\"} 1\n"));
+    assertTrue(scrape.contains(
+        "transferful_ledger_transfers_total{outcome=\"insufficient_funds\"} 1\n"));
+    assertTrue(scrape.contains(
+        "transferful_ledger_transfers_total{outcome=\"currency_mismatch\"} 1\n"));
+  }
+}
@@ -17,6 +17,10 @@ import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
 import java.io.IOException;
 import java.rmi.server.ServerNotActiveException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +32,7 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
 
 public class StepDefinitions {
 
@@ -42,6 +47,7 @@ public class StepDefinitions {
   private UUID ID;
   private UUID accountID_0;
   private UUID accountID_1;
+  private Map<Integer, JsonNode> importResults;
 
   @Given("TransferFulApp is running")
   public void transferfulappIsRunning() {
@@ -88,7 +94,7 @@ public class StepDefinitions {
     requestJson = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
   }
 
-  @Then("user has deposit-withdraw request with saved accountID_0 and {float} and {string}")
+  @Then("user has deposit-withdraw request with saved accountID_0 and {double} and {string}")
   public void depositWithdrawRequestWithSavedID0(double amount, String currency)
       throws JsonProcessingException {
     ObjectNode json = mapper.createObjectNode()
@@ -98,7 +104,7 @@ public class StepDefinitions {
     requestJson = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
   }
 
-  @When("user has transfer request from accountID_0 to accountID_1 for {float}")
+  @When("user has transfer request from accountID_0 to accountID_1 for {double}")
   public void userHasTransferRequestFromAccountID_ToAccountID_For(double amount)
       throws JsonProcessingException {
     ObjectNode json = mapper.createObjectNode()
@@ -109,7 +115,7 @@ public class StepDefinitions {
     System.out.println(requestJson);
   }
 
-  @Then("user has deposit-withdraw request with saved accountID_1 and {float} and {string}")
+  @Then("user has deposit-withdraw request with saved accountID_1 and {double} and {string}")
   public void depositWithdrawRequestWithSavedID1(double amount, String currency)
       throws JsonProcessingException {
     ObjectNode json = mapper.createObjectNode()
@@ -128,6 +134,10 @@ public class StepDefinitions {
     requestJson = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
   }
 
+  @Given("user has import request with lines:")
+  public void userHasImportRequestWithLines(String lines) {
+    requestJson = ID == null ? lines : lines.replace("<ID>", ID.toString());
+  }
 
   @And("user sends POST request to {word} endpoint")
   public void userSendsPOSTRequestToUser(String endpoint) throws IOException {
@@ -136,6 +146,22 @@ public class StepDefinitions {
     post.setHeader("Accept", "application/json");
     post.setHeader("Content-type", "application/json");
     response = httpClient.execute(post);
+    importResults = null;
+  }
+
+  @And("user sends POST request to {word} endpoint with idempotency key {string}")
+  public void userSendsPOSTRequestWithIdempotencyKey(String endpoint, String key)
+      throws IOException {
+    HttpPost post = new HttpPost(LOCAL_API_ENDPOINT + endpoint);
+    post.setEntity(new StringEntity(requestJson));
+    post.setHeader("Content-type", "application/json");
+    post.setHeader("Idempotency-Key", key);
+    response = httpClient.execute(post);
+  }
+
+  @And("response is replayed")
+  public void responseIsReplayed() {
+    assertEquals("true", response.getFirstHeader("Idempotent-Replayed").getValue());
   }
 
   @Then("user sends DELETE request to {word} with ID")
@@ -173,12 +199,47 @@ public class StepDefinitions {
     response = httpClient.execute(get);
   }
 
+  @Then("user sends GET request to {word}")
+  public void userSendsGetRequestTo(String endpoint) throws IOException {
+    response = httpClient.execute(new HttpGet(LOCAL_API_ENDPOINT + endpoint));
+  }
+
   @Then("user sends GET request to {word} with ID")
   public void userSendsGETRequestToUserWithID(String endpoint) throws IOException {
     HttpGet get = new HttpGet(LOCAL_API_ENDPOINT + endpoint + "/" + ID.toString());
     response = httpClient.execute(get);
   }
 
+  @Then("user sends GET request to {word} with ID and suffix {word}")
+  public void userSendsGetRequestWithIDAndSuffix(String endpoint, String suffix)
+      throws IOException {
+    HttpGet get = new HttpGet(LOCAL_API_ENDPOINT + endpoint + "/" + ID.toString() + suffix);
+    response = httpClient.execute(get);
+  }
+
+  @Then("user sends GET request to {word} with ID and request id {string}")
+  public void userSendsGetRequestWithRequestId(String endpoint, String requestId)
+      throws IOException {
+    HttpGet get = new HttpGet(LOCAL_API_ENDPOINT + endpoint + "/" + ID.toString());
+    get.setHeader("X-Request-Id", requestId);
+    response = httpClient.execute(get);
+  }
+
+  @And("response request id is {string}")
+  public void responseRequestIdIs(String requestId) throws IOException {
+    JsonNode json = mapper.readTree(response.getEntity().getContent());
+    assertEquals(requestId, response.getFirstHeader("X-Request-Id").getValue());
+    assertEquals(requestId, json.get("id").asText());
+  }
+
+  @And("response request id is generated")
+  public void responseRequestIdIsGenerated() throws IOException {
+    JsonNode json = mapper.readTree(response.getEntity().getContent());
+    UUID requestId = UUID.fromString(response.getFirstHeader("X-Request-Id").getValue());
+    assertEquals(7, requestId.version());
+    assertEquals(requestId.toString(), json.get("id").asText());
+  }
+
   @And("response account data contains values: {string}, {string}, {string}, {string}")
   public void responseDataContainsValues(String name, String address, String country, String type)
       throws IOException {
@@ -231,7 +292,57 @@ public class StepDefinitions {
     assertTrue(json.get("response").asText().contains(message));
   }
 
-  @And("response account balance is {float}")
+  @And("response body contains {string}")
+  public void responseBodyContains(String text) throws IOException {
+    assertTrue(EntityUtils.toString(response.getEntity()).contains(text));
+  }
+
+  @And("response lines contain entity with ID")
+  public void responseLinesContainEntityWithID() throws IOException {
+    assertTrue(responseLineIds().contains(ID.toString()));
+  }
+
+  @And("response lines contain entity with accountID_0")
+  public void responseLinesContainEntityWithAccountID0() throws IOException {
+    assertTrue(responseLineIds().contains(accountID_0.toString()));
+  }
+
+  @And("import result of line {int} has created ID")
+  public void importResultOfLineHasCreatedID(int line) throws IOException {
+    assertTrue(importResults().get(line).has("id"));
+  }
+
+  @And("import result of line {int} has error {string}")
+  public void importResultOfLineHasError(int line, String error) throws IOException {
+    assertTrue(importResults().get(line).get("error").asText().contains(error));
+  }
+
+  @And("import results have {int} lines")
+  public void importResultsHaveLines(int count) throws IOException {
+    assertEquals(count, importResults().size());
+  }
+
+  @And("response users contain entity with ID")
+  public void responseUsersContainEntityWithID() throws IOException {
+    JsonNode json = mapper.readTree(response.getEntity().getContent());
+    List<String> ids = new ArrayList<>();
+    json.with("response").withArray("users").forEach(user -> ids.add(user.get("id").asText()));
+    assertTrue(ids.contains(ID.toString()));
+  }
+
+  @And("response accounts contain accountID_0 with balance {double}")
+  public void responseAccountsContainAccountID0WithBalance(double balance) throws IOException {
+    JsonNode json = mapper.readTree(response.getEntity().getContent());
+    JsonNode found = null;
+    for (JsonNode account : json.withArray("response")) {
+      if (account.get("id").asText().equals(accountID_0.toString())) {
+        found = account;
+      }
+    }
+    assertEquals(Double.toString(balance), found.get("balance").asText());
+  }
+
+  @And("response account balance is {double}")
   public void responseAccountBalanceIs(double amount) throws IOException {
     JsonNode json = mapper.readTree(response.getEntity().getContent());
     JsonNode data = json.with("response");
@@ -257,4 +368,27 @@ public class StepDefinitions {
     assertEquals(ID.toString(), data.get("holderId").asText());
     assertEquals(currency, data.get("currency").asText());
   }
+
+  private Map<Integer, JsonNode> importResults() throws IOException {
+    if (importResults == null) {
+      assertEquals("application/x-ndjson",
+          response.getFirstHeader("Content-Type").getValue());
+      importResults = new HashMap<>();
+      for (String line : EntityUtils.toString(response.getEntity()).split("\n")) {
+        JsonNode result = mapper.readTree(line);
+        importResults.put(result.get("line").asInt(), result);
+      }
+    }
+    return importResults;
+  }
+
+  private List<String> responseLineIds() throws IOException {
+    assertEquals("application/x-ndjson",
+        response.getFirstHeader("Content-Type").getValue());
+    List<String> ids = new ArrayList<>();
+    for (String line : EntityUtils.toString(response.getEntity()).split("\n")) {
+      ids.add(mapper.readTree(line).get("id").asText());
+    }
+    return ids;
+  }
 }
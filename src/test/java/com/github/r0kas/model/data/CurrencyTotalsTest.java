@@ -0,0 +1,100 @@
+package com.github.r0kas.model.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CurrencyTotalsTest {
+
+  private static final Currency EUR = Currency.getInstance("EUR");
+  private static final Currency USD = Currency.getInstance("USD");
+
+  private CurrencyTotals totals;
+
+  @BeforeEach
+  void init() {
+    totals = new CurrencyTotals();
+  }
+
+  @Test
+  void balances_shouldListCurrenciesByCode() {
+    totals.accountAdded(USD, 0);
+    totals.accountAdded(EUR, 0);
+    totals.accountAdded(EUR, 0);
+    totals.balanceChanged(EUR, 150);
+    totals.balanceChanged(USD, 70);
+    totals.balanceChanged(EUR, -30);
+    totals.accountRemoved(USD, 70);
+
+    assertEquals(List.of(new CurrencyBalance(EUR, 2, 120), new CurrencyBalance(USD, 0, 0)),
+        totals.balances());
+  }
+
+  @Test
+  void balanceChanged_concurrently_shouldKeepEveryChange() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> writers = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      writers.add(executor.submit(() -> {
+        for (int i = 0; i < 100_000; i++) {
+          totals.balanceChanged(i % 2 == 0 ? EUR : USD, 3);
+        }
+      }));
+    }
+    for (Future<?> writer : writers) {
+      writer.get();
+    }
+    executor.shutdown();
+
+    assertEquals(List.of(new CurrencyBalance(EUR, 0, 600_000),
+        new CurrencyBalance(USD, 0, 600_000)), totals.balances());
+  }
+
+  @Test
+  void recount_shouldMatchScannedAccounts() {
+    List<Account> accounts = List.of(account(EUR, 100), account(EUR, 250), account(USD, 5));
+    totals.accountAdded(USD, 999);
+
+    totals.recount(accounts);
+    BalanceReport report = new BalanceReport(totals.balances(), CurrencyTotals.scan(accounts));
+
+    assertEquals(List.of(new CurrencyBalance(EUR, 2, 350), new CurrencyBalance(USD, 1, 5)),
+        report.scanned());
+    assertTrue(report.isConsistent());
+  }
+
+  @Test
+  void isConsistent_shouldIgnoreEmptyCurrenciesAndDetectDrift() {
+    List<Account> accounts = List.of(account(EUR, 100));
+    totals.accountAdded(EUR, 100);
+    totals.accountAdded(USD, 40);
+    totals.accountRemoved(USD, 40);
+
+    assertTrue(new BalanceReport(totals.balances(), CurrencyTotals.scan(accounts))
+        .isConsistent());
+
+    totals.balanceChanged(EUR, 1);
+
+    assertFalse(new BalanceReport(totals.balances(), CurrencyTotals.scan(accounts))
+        .isConsistent());
+    assertThrows(IllegalStateException.class,
+        () -> new BalanceReport(totals.balances(), null).isConsistent());
+  }
+
+  private static Account account(Currency currency, long minorBalance) {
+    Account account = new Account(UUID.randomUUID(), currency);
+    account.setMinorBalance(minorBalance);
+    return account;
+  }
+}
@@ -0,0 +1,157 @@
+package com.github.r0kas.model.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileJournalTest {
+
+  @TempDir
+  Path directory;
+
+  private Path path;
+  private Currency eur;
+
+  @BeforeEach
+  void init() {
+    path = directory.resolve("ledger.journal");
+    eur = Currency.getInstance("EUR");
+  }
+
+  @Test
+  void replay_shouldRestoreUsersAccountsAndBalances() throws IOException {
+    User user = new User("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    Account source = new Account(user.id(), eur);
+    Account target = new Account(user.id(), eur);
+    ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+
+    try (FileJournal journal = FileJournal.open(path, SyncPolicy.BATCH, 10)) {
+      journal.userPut(user);
+      journal.accountPut(source);
+      journal.accountPut(target);
+      journal.balanceAdjusted(source.id(), 10_000, now);
+      journal.balanceAdjusted(source.id(), -2_550, now);
+      journal.awaitDurable(journal.transferred(source.id(), target.id(), 1_025, now));
+    }
+
+    MemoryDataStore store = new MemoryDataStore();
+    try (FileJournal journal = FileJournal.open(path, SyncPolicy.BATCH, 10)) {
+      assertEquals(6, journal.replay(store, 0));
+    }
+
+    assertEquals("John Wick", store.getUser(user.id()).name());
+    assertTrue(store.getUser(user.id()).ownedAccounts().contains(source.id()));
+    assertTrue(store.getUser(user.id()).ownedAccounts().contains(target.id()));
+    assertEquals(6_425, store.getAccount(source.id()).minorBalance());
+    assertEquals(1_025, store.getAccount(target.id()).minorBalance());
+    assertEquals(eur, store.getAccount(target.id()).currency());
+    assertEquals(List.of(new CurrencyBalance(eur, 2, 7_450)),
+        store.currencyTotals().balances());
+  }
+
+  @Test
+  void append_afterWriteFailure_shouldRejectRecords() throws IOException {
+    Path full = Path.of("/dev/full");
+    assumeTrue(Files.isWritable(full));
+    Account account = new Account(UUID.randomUUID(), eur);
+    ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+
+    try (FileJournal journal = FileJournal.open(full, SyncPolicy.BATCH, 10)) {
+      long position = journal.accountPut(account);
+      assertThrows(UncheckedIOException.class, () -> journal.awaitDurable(position));
+
+      assertThrows(UncheckedIOException.class, journal::ensureWritable);
+      assertThrows(UncheckedIOException.class,
+          () -> journal.balanceAdjusted(account.id(), 100, now));
+      assertEquals(position, journal.appendedPosition());
+    }
+  }
+
+  @Test
+  void replay_withAccountAlreadyRestored_shouldStillLinkHolder() throws IOException {
+    User user = new User("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    Account account = new Account(user.id(), eur);
+
+    try (FileJournal journal = FileJournal.open(path, SyncPolicy.BATCH, 10)) {
+      journal.userPut(user);
+      journal.awaitDurable(journal.accountPut(account));
+    }
+
+    MemoryDataStore store = new MemoryDataStore();
+    account.setJournalPosition(Long.MAX_VALUE);
+    store.setAccount(account);
+    try (FileJournal journal = FileJournal.open(path, SyncPolicy.BATCH, 10)) {
+      journal.replay(store, 0);
+    }
+
+    assertTrue(store.getUser(user.id()).ownedAccounts().contains(account.id()));
+  }
+
+  @Test
+  void replay_shouldApplyRemovals() throws IOException {
+    User user = new User("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    Account account = new Account(user.id(), eur);
+
+    try (FileJournal journal = FileJournal.open(path, SyncPolicy.OS, 10)) {
+      journal.userPut(user);
+      journal.accountPut(account);
+      journal.accountRemoved(account.id());
+      journal.awaitDurable(journal.userRemoved(user.id()));
+    }
+
+    MemoryDataStore store = new MemoryDataStore();
+    try (FileJournal journal = FileJournal.open(path, SyncPolicy.OS, 10)) {
+      assertEquals(4, journal.replay(store, 0));
+    }
+
+    assertFalse(store.isUserPresent(user.id()));
+    assertFalse(store.isAccountPresent(account.id()));
+  }
+
+  @Test
+  void replay_withTornTail_shouldTruncateAndContinueAppending() throws IOException {
+    User user = new User("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    Account account = new Account(user.id(), eur);
+    ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+
+    long validPosition;
+    try (FileJournal journal = FileJournal.open(path, SyncPolicy.INTERVAL, 1)) {
+      journal.userPut(user);
+      validPosition = journal.accountPut(account);
+      journal.awaitDurable(validPosition);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.APPEND)) {
+      channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3}));
+    }
+
+    try (FileJournal journal = FileJournal.open(path, SyncPolicy.BATCH, 10)) {
+      assertEquals(2, journal.replay(new MemoryDataStore(), 0));
+      assertEquals(validPosition, Files.size(path));
+      journal.awaitDurable(journal.balanceAdjusted(account.id(), 500, now));
+    }
+
+    MemoryDataStore store = new MemoryDataStore();
+    try (FileJournal journal = FileJournal.open(path, SyncPolicy.BATCH, 10)) {
+      assertEquals(3, journal.replay(store, 0));
+    }
+    assertEquals(500, store.getAccount(account.id()).minorBalance());
+  }
+}
@@ -0,0 +1,183 @@
+package com.github.r0kas.model.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OffHeapAccountTableTest {
+
+  private MemoryDataStore store;
+  private UUID holderId;
+  private Currency eur;
+
+  @BeforeEach
+  void init() {
+    store = new MemoryDataStore(AccountStorage.OFF_HEAP);
+    holderId = UUID.randomUUID();
+    eur = Currency.getInstance("EUR");
+  }
+
+  @Test
+  void setAccount_shouldStoreEveryField() {
+    Account account = new Account(holderId, eur);
+    account.setMinorBalance(12_345);
+    account.setJournalPosition(77);
+
+    Account stored = store.setAccount(account);
+
+    assertTrue(stored instanceof OffHeapAccount);
+    assertEquals(account.id(), stored.id());
+    assertEquals(holderId, stored.holderId());
+    assertEquals(account.createdOn(), stored.createdOn());
+    assertEquals(account.updatedOn(), stored.updatedOn());
+    assertEquals(eur, stored.currency());
+    assertEquals(123.45, stored.balance());
+    assertEquals(77, stored.journalPosition());
+    assertEquals(account, store.getAccount(account.id()));
+  }
+
+  @Test
+  void views_shouldWriteThroughToRecord() {
+    UUID accountId = store.setAccount(new Account(holderId, eur)).id();
+    ZonedDateTime updatedOn = ZonedDateTime.now(ZoneOffset.UTC);
+
+    Account view = store.getAccount(accountId);
+    view.addMinorBalance(500);
+    assertTrue(view.compareAndSetMinorBalance(500, 450));
+    assertFalse(view.compareAndSetMinorBalance(500, 400));
+    view.setUpdatedOn(updatedOn);
+
+    Account other = store.getAccount(accountId.getMostSignificantBits(),
+        accountId.getLeastSignificantBits());
+    assertEquals(450, other.minorBalance());
+    assertEquals(updatedOn.toString(), other.updatedOn());
+  }
+
+  @Test
+  void removeAccount_shouldHideRecordAndAllowNewAccounts() {
+    Account removed = store.setAccount(new Account(holderId, eur));
+    store.removeAccount(removed.id());
+    Account kept = store.setAccount(new Account(holderId, eur));
+
+    assertFalse(store.isAccountPresent(removed.id()));
+    assertNull(store.getAccount(removed.id()));
+    assertTrue(store.isAccountPresent(kept.id()));
+    assertEquals(List.of(kept), new ArrayList<>(store.accounts()));
+  }
+
+  @Test
+  void removeAccount_repeatedChurn_shouldReuseRecords() {
+    OffHeapAccountTable table = new OffHeapAccountTable();
+    for (int i = 0; i < 100_000; i++) {
+      Account account = table.put(new Account(holderId, eur));
+      table.remove(account.id());
+    }
+
+    assertEquals(1, table.records());
+    assertEquals(0, table.values().size());
+  }
+
+  @Test
+  void staleView_afterRecordReuse_shouldNotTouchNewAccount() {
+    Account removed = store.setAccount(new Account(holderId, eur));
+    removed.setMinorBalance(100);
+    store.removeAccount(removed.id());
+    Account reusing = store.setAccount(new Account(holderId, eur));
+    reusing.setMinorBalance(500);
+
+    assertTrue(removed.isClosed());
+    assertFalse(removed.compareAndSetMinorBalance(500, 0));
+    assertThrows(NoSuchElementException.class, removed::minorBalance);
+    assertThrows(NoSuchElementException.class, removed::copy);
+    removed.setMinorBalance(0);
+    removed.setJournalPosition(9);
+
+    assertFalse(reusing.isClosed());
+    assertEquals(500, store.getAccount(reusing.id()).minorBalance());
+    assertEquals(0, store.getAccount(reusing.id()).journalPosition());
+    assertNull(store.getAccount(removed.id()));
+  }
+
+  @Test
+  void setAccount_manyAccounts_shouldSpanSlabsAndGrowIndex() {
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 150_000; i++) {
+      Account account = new Account(holderId, eur);
+      account.setMinorBalance(i);
+      ids.add(store.setAccount(account).id());
+    }
+
+    for (int i = 0; i < ids.size(); i++) {
+      assertEquals(i, store.getAccount(ids.get(i)).minorBalance());
+    }
+    assertEquals(ids.size(), store.accounts().size());
+  }
+
+  @Test
+  void addMinorBalance_concurrently_shouldNotLoseUpdates() throws Exception {
+    UUID accountId = store.setAccount(new Account(holderId, eur)).id();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      results.add(executor.submit(() -> {
+        for (int j = 0; j < 10_000; j++) {
+          store.getAccount(accountId).addMinorBalance(1);
+        }
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+
+    assertEquals(40_000, store.getAccount(accountId).minorBalance());
+  }
+
+  @Test
+  void copy_whileRecordIsUpdated_shouldReadSingleVersion() throws Exception {
+    Account account = new Account(holderId, eur);
+    UUID accountId = store.setAccount(account).id();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> writer = executor.submit(() -> {
+      for (long i = 1; i <= 100_000; i++) {
+        account.setMinorBalance(i);
+        account.setJournalPosition(i);
+        store.setAccount(account);
+      }
+    });
+
+    while (!writer.isDone()) {
+      Account copy = store.getAccount(accountId).copy();
+      assertEquals(copy.minorBalance(), copy.journalPosition());
+    }
+    writer.get();
+    executor.shutdown();
+  }
+
+  @Test
+  void serialization_shouldMatchHeapAccount() throws JsonProcessingException {
+    Account account = new Account(holderId, eur);
+    account.setMinorBalance(1_050);
+    Account stored = store.setAccount(account);
+    ObjectMapper mapper = new ObjectMapper();
+
+    assertEquals(mapper.writeValueAsString(account), mapper.writeValueAsString(stored));
+  }
+}
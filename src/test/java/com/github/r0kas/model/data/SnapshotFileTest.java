@@ -0,0 +1,98 @@
+package com.github.r0kas.model.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotFileTest {
+
+  @TempDir
+  Path directory;
+
+  private Path path;
+  private MemoryDataStore store;
+  private Currency eur;
+
+  @BeforeEach
+  void init() {
+    path = directory.resolve("ledger.snapshot");
+    store = new MemoryDataStore();
+    eur = Currency.getInstance("EUR");
+  }
+
+  @Test
+  void loadSnapshot_shouldRestoreUsersAccountsAndPosition() throws IOException {
+    User user = new User("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    Account account = new Account(user.id(), eur);
+    account.setMinorBalance(12_345);
+    account.setJournalPosition(4_096);
+    store.setUser(user);
+    store.setAccount(account);
+    store.linkOwnedAccount(user.id(), account.id());
+
+    store.writeSnapshot(path, 8_192, SnapshotSource.copying());
+    MemoryDataStore restored = new MemoryDataStore();
+
+    assertEquals(8_192, restored.loadSnapshot(path));
+    User restoredUser = restored.getUser(user.id());
+    Account restoredAccount = restored.getAccount(account.id());
+    assertEquals("John Wick", restoredUser.name());
+    assertEquals(HolderType.BUSINESS, restoredUser.type());
+    assertEquals(Set.of(account.id()), restoredUser.ownedAccounts());
+    assertEquals(Set.of(account.id()), restored.getOwnedAccounts(user.id()));
+    assertEquals(12_345, restoredAccount.minorBalance());
+    assertEquals(4_096, restoredAccount.journalPosition());
+    assertEquals(account.createdOn(), restoredAccount.createdOn());
+    assertEquals(eur, restoredAccount.currency());
+  }
+
+  @Test
+  void loadSnapshot_withManyChunks_shouldRestoreEveryAccount() throws IOException {
+    User user = new User("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    store.setUser(user);
+    List<Account> accounts = new ArrayList<>();
+    for (int i = 0; i < 40_000; i++) {
+      Account account = new Account(user.id(), eur);
+      account.setMinorBalance(i);
+      store.setAccount(account);
+      accounts.add(account);
+    }
+
+    store.writeSnapshot(path, 0, SnapshotSource.copying());
+    MemoryDataStore restored = new MemoryDataStore();
+    restored.loadSnapshot(path);
+
+    for (Account account : accounts) {
+      assertEquals(account.minorBalance(), restored.getAccount(account.id()).minorBalance());
+    }
+    assertEquals(accounts.size(), restored.getUser(user.id()).ownedAccounts().size());
+    assertTrue(Files.notExists(directory.resolve("ledger.snapshot.tmp")));
+  }
+
+  @Test
+  void loadSnapshot_withCorruptedChunk_shouldThrow() throws IOException {
+    User user = new User("John Wick", "Vilnius st. 1", "LT", HolderType.BUSINESS);
+    store.setUser(user);
+    store.writeSnapshot(path, 0, SnapshotSource.copying());
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {42}), 40);
+    }
+
+    assertThrows(IOException.class, () -> new MemoryDataStore().loadSnapshot(path));
+  }
+}
@@ -0,0 +1,180 @@
+package com.github.r0kas.model.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class TransactionLogTest {
+
+  private static final Currency EUR = Currency.getInstance("EUR");
+
+  private TransactionLog log;
+
+  @BeforeEach
+  void init() {
+    log = new TransactionLog();
+  }
+
+  @ParameterizedTest
+  @EnumSource(AccountStorage.class)
+  void read_shouldChainPagesNewestFirst(AccountStorage storage) {
+    Account account = account(storage);
+    Account other = account(storage);
+    UUID counterparty = UUID.randomUUID();
+    for (int i = 0; i < 5_000; i++) {
+      log.append(account, TransactionType.TRANSFER_IN, counterparty, i, i * 10L, 1_000L + i);
+      log.append(other, TransactionType.DEPOSIT, null, -i, -i, i);
+    }
+
+    List<Transaction> all = readAll(account);
+
+    assertEquals(5_000, all.size());
+    for (int i = 0; i < all.size(); i++) {
+      Transaction transaction = all.get(i);
+      assertEquals(4_999 - i, transaction.minorAmount());
+      assertEquals((4_999 - i) * 10L, transaction.minorBalance());
+      assertEquals(counterparty, transaction.counterpartyId());
+      assertEquals(5_999 - i, transaction.timestamp().toEpochMilli());
+    }
+  }
+
+  @Test
+  void read_lastPage_shouldHaveNoNextCursor() {
+    Account account = account(AccountStorage.HEAP);
+    log.append(account, TransactionType.DEPOSIT, null, 100, 100, 1);
+    log.append(account, TransactionType.WITHDRAW, null, -40, 60, 2);
+
+    TransactionPage page = log.read(account, null, 5);
+
+    assertEquals(2, page.transactions().size());
+    assertEquals(TransactionType.WITHDRAW, page.transactions().get(0).type());
+    assertEquals(EUR, page.currency());
+    assertNull(page.transactions().get(1).counterpartyId());
+    assertNull(page.nextCursor());
+    assertTrue(log.read(account(AccountStorage.HEAP), null, 5).transactions().isEmpty());
+  }
+
+  @Test
+  void read_foreignCursor_shouldThrow() {
+    Account account = account(AccountStorage.HEAP);
+    Account other = account(AccountStorage.HEAP);
+    log.append(other, TransactionType.DEPOSIT, null, 1, 1, 1);
+    log.append(other, TransactionType.DEPOSIT, null, 1, 2, 2);
+    log.append(account, TransactionType.DEPOSIT, null, 1, 1, 1);
+    Long foreign = log.read(other, null, 1).nextCursor();
+
+    assertThrows(IllegalArgumentException.class, () -> log.read(account, foreign, 5));
+    assertThrows(IllegalArgumentException.class, () -> log.read(account, -1L, 5));
+    assertThrows(IllegalArgumentException.class, () -> log.read(account, Long.MAX_VALUE, 5));
+  }
+
+  @Test
+  void read_afterLogIsFull_shouldEndAtOldestRetainedEntry() {
+    log = new TransactionLog(1);
+    Account account = account(AccountStorage.HEAP);
+    log.append(account, TransactionType.DEPOSIT, null, 1, 1, 1);
+    log.append(account, TransactionType.DEPOSIT, null, 1, 2, 2);
+    Long expired = log.read(account, null, 1).nextCursor();
+    for (int i = 3; i <= 200_000; i++) {
+      log.append(account, TransactionType.DEPOSIT, null, 1, i, i);
+    }
+
+    List<Transaction> retained = readAll(account);
+
+    assertEquals(65_536, retained.size());
+    assertEquals(200_000, retained.get(0).minorBalance());
+    assertEquals(134_465, retained.get(retained.size() - 1).minorBalance());
+    assertTrue(log.read(account, expired, 5).transactions().isEmpty());
+    assertNull(log.read(account, expired, 5).nextCursor());
+  }
+
+  @ParameterizedTest
+  @EnumSource(AccountStorage.class)
+  void append_concurrently_shouldKeepEveryEntry(AccountStorage storage) throws Exception {
+    Account account = account(storage);
+    int threads = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> writers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      writers.add(executor.submit(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          log.append(account, TransactionType.DEPOSIT, null, 1, i, i);
+        }
+      }));
+    }
+    for (Future<?> writer : writers) {
+      writer.get();
+    }
+    executor.shutdown();
+
+    assertEquals(threads * 10_000, readAll(account).size());
+  }
+
+  @Test
+  void append_fromShortLivedThreads_shouldNotWasteCapacity() throws InterruptedException {
+    log = new TransactionLog(1);
+    Account account = account(AccountStorage.HEAP);
+    for (int i = 1; i <= 2_000; i++) {
+      long balance = i;
+      Thread writer = new Thread(() ->
+          log.append(account, TransactionType.DEPOSIT, null, 1, balance, balance));
+      writer.start();
+      writer.join();
+    }
+
+    List<Transaction> retained = readAll(account);
+
+    assertEquals(2_000, retained.size());
+    assertEquals(1, retained.get(retained.size() - 1).minorBalance());
+  }
+
+  @Test
+  void read_duringAppends_shouldSeeOnlyCompleteEntries() throws Exception {
+    Account account = account(AccountStorage.OFF_HEAP);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> writer = executor.submit(() -> {
+      for (int i = 1; i <= 100_000; i++) {
+        log.append(account, TransactionType.DEPOSIT, null, i, i, i);
+      }
+    });
+    while (!writer.isDone()) {
+      for (Transaction transaction : log.read(account, null, 10).transactions()) {
+        assertEquals(transaction.minorAmount(), transaction.minorBalance());
+        assertEquals(transaction.minorAmount(), transaction.timestamp().toEpochMilli());
+      }
+    }
+    writer.get();
+    executor.shutdown();
+
+    assertEquals(100_000, log.read(account, null, 1).transactions().get(0).minorBalance());
+  }
+
+  private List<Transaction> readAll(Account account) {
+    List<Transaction> all = new ArrayList<>();
+    Long cursor = null;
+    do {
+      TransactionPage page = log.read(account, cursor, 100);
+      all.addAll(page.transactions());
+      cursor = page.nextCursor();
+    } while (cursor != null);
+    return all;
+  }
+
+  private static Account account(AccountStorage storage) {
+    Account account = new Account(UUID.randomUUID(), EUR);
+    return storage == AccountStorage.OFF_HEAP ? new OffHeapAccountTable().put(account) : account;
+  }
+}
@@ -0,0 +1,95 @@
+package com.github.r0kas.model.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UserIndexTest {
+
+  private MemoryDataStore dataStore;
+
+  @BeforeEach
+  void init() {
+    dataStore = new MemoryDataStore();
+  }
+
+  @Test
+  void findUsers_shouldPageMatchingUsersInIdOrder() {
+    List<UUID> expected = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      User business = user("LT", HolderType.BUSINESS);
+      dataStore.setUser(business);
+      expected.add(business.id());
+      dataStore.setUser(user("LT", HolderType.PERSONAL));
+      dataStore.setUser(user("DE", HolderType.BUSINESS));
+    }
+    expected.sort(null);
+
+    List<UUID> found = new ArrayList<>();
+    UUID cursor = null;
+    do {
+      UserPage page = dataStore.findUsers("LT", HolderType.BUSINESS, cursor, 100);
+      page.users().forEach(user -> found.add(user.id()));
+      cursor = page.nextCursor();
+    } while (cursor != null);
+
+    assertEquals(expected, found);
+  }
+
+  @Test
+  void findUsers_withPartialFilter_shouldMergeGroups() {
+    dataStore.setUser(user("LT", HolderType.BUSINESS));
+    dataStore.setUser(user("LT", HolderType.PERSONAL));
+    dataStore.setUser(user("DE", HolderType.BUSINESS));
+
+    assertEquals(2, dataStore.findUsers("LT", null, null, 10).users().size());
+    assertEquals(2, dataStore.findUsers(null, HolderType.BUSINESS, null, 10).users().size());
+    List<UUID> all = ids(dataStore.findUsers(null, null, null, 10));
+    assertEquals(3, all.size());
+    assertEquals(all.stream().sorted().collect(Collectors.toList()), all);
+    assertTrue(dataStore.findUsers("FR", null, null, 10).users().isEmpty());
+  }
+
+  @Test
+  void findUsers_afterUpdateAndRemoval_shouldFollowCurrentUsers() {
+    User moved = user("LT", HolderType.PERSONAL);
+    User removed = user("LT", HolderType.PERSONAL);
+    dataStore.setUser(moved);
+    dataStore.setUser(removed);
+    dataStore.setUser(moved.withDetails(moved.name(), moved.address(), "DE",
+        HolderType.BUSINESS, ZonedDateTime.now(ZoneOffset.UTC)));
+    dataStore.removeUser(removed.id());
+
+    assertTrue(dataStore.findUsers("LT", null, null, 10).users().isEmpty());
+    assertEquals(List.of(moved.id()), ids(dataStore.findUsers("DE", HolderType.BUSINESS,
+        null, 10)));
+  }
+
+  @Test
+  void findUsers_lastFullPage_shouldHaveNoNextCursor() {
+    dataStore.setUser(user("LT", HolderType.PERSONAL));
+    dataStore.setUser(user("LT", HolderType.PERSONAL));
+
+    UserPage page = dataStore.findUsers("LT", HolderType.PERSONAL, null, 2);
+
+    assertEquals(2, page.users().size());
+    assertNull(page.nextCursor());
+  }
+
+  private static List<UUID> ids(UserPage page) {
+    return page.users().stream().map(User::id).collect(Collectors.toList());
+  }
+
+  private static User user(String countryCode, HolderType type) {
+    return new User("John Wick", "Vilnius st. 1", countryCode, type);
+  }
+}
@@ -0,0 +1,157 @@
+package com.github.r0kas.model.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UuidMapTest {
+
+  private UuidMap<String> map;
+
+  @BeforeEach
+  void init() {
+    map = new UuidMap<>();
+  }
+
+  @Test
+  void put_shouldMapAndReplaceValue() {
+    UUID key = UUID.randomUUID();
+
+    assertNull(map.put(key, "first"));
+    assertEquals("first", map.put(key, "second"));
+    assertEquals("second", map.get(key));
+    assertEquals("second", map.get(key.getMostSignificantBits(),
+        key.getLeastSignificantBits()));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  void remove_shouldUnmapAndAllowReinsert() {
+    UUID key = UUID.randomUUID();
+    map.put(key, "value");
+
+    assertEquals("value", map.remove(key));
+    assertFalse(map.containsKey(key));
+    assertNull(map.remove(key));
+    assertEquals(0, map.size());
+
+    map.put(key, "again");
+    assertEquals("again", map.get(key));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  void put_manyKeys_shouldGrowAndKeepEveryMapping() {
+    List<UUID> keys = new ArrayList<>();
+    for (int i = 0; i < 100_000; i++) {
+      UUID key = new UUID(i, i % 7);
+      keys.add(key);
+      map.put(key, Integer.toString(i));
+      if (i % 3 == 0) {
+        map.remove(keys.get(i / 2));
+      }
+    }
+
+    Set<String> expected = new HashSet<>();
+    for (int i = 0; i < keys.size(); i++) {
+      String value = map.get(keys.get(i));
+      if (value != null) {
+        assertEquals(Integer.toString(i), value);
+        expected.add(value);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    assertEquals(expected, new HashSet<>(map.values()));
+  }
+
+  @Test
+  void put_afterMostKeysRemoved_shouldKeepChurning() {
+    List<UUID> keys = new ArrayList<>();
+    for (int i = 0; i < 2_000; i++) {
+      keys.add(UUID.randomUUID());
+      map.put(keys.get(i), Integer.toString(i));
+    }
+    for (int i = 0; i < 1_990; i++) {
+      map.remove(keys.get(i));
+    }
+    List<UUID> churned = new ArrayList<>();
+    Random random = new Random(42);
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      for (int i = 0; i < 200_000; i++) {
+        if (churned.size() < 2) {
+          UUID key = UUID.randomUUID();
+          map.put(key, "churn");
+          churned.add(key);
+        } else {
+          map.remove(churned.remove(random.nextInt(churned.size())));
+        }
+      }
+    });
+
+    assertEquals(10 + churned.size(), map.size());
+    for (int i = 1_990; i < 2_000; i++) {
+      assertEquals(Integer.toString(i), map.get(keys.get(i)));
+    }
+    assertEquals(map.size(), map.values().size());
+  }
+
+  @Test
+  void get_duringConcurrentGrowth_shouldSeeEveryPresentKey() throws Exception {
+    List<UUID> present = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      UUID key = UUID.randomUUID();
+      present.add(key);
+      map.put(key, key.toString());
+    }
+    AtomicBoolean writing = new AtomicBoolean(true);
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    List<Future<Boolean>> readers = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      readers.add(executor.submit(() -> {
+        boolean consistent = true;
+        while (writing.get()) {
+          for (UUID key : present) {
+            consistent &= key.toString().equals(map.get(key));
+            map.put(key, key.toString());
+          }
+        }
+        return consistent;
+      }));
+    }
+    executor.submit(() -> {
+      for (int i = 0; i < 200_000; i++) {
+        UUID key = UUID.randomUUID();
+        map.put(key, key.toString());
+        map.remove(key);
+        map.put(UUID.randomUUID(), "grow");
+      }
+      writing.set(false);
+    }).get();
+
+    for (Future<Boolean> reader : readers) {
+      assertTrue(reader.get());
+    }
+    executor.shutdown();
+    for (UUID key : present) {
+      assertEquals(key.toString(), map.get(key));
+    }
+    assertEquals(201_000, map.size());
+  }
+}
@@ -0,0 +1,65 @@
+package com.github.r0kas.model.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RequestTransferDeserializerTest {
+
+  private ObjectReader reader;
+  private UUID source;
+  private UUID target;
+
+  @BeforeEach
+  void init() {
+    reader = new ObjectMapper().readerFor(RequestTransfer.class);
+    source = UUID.randomUUID();
+    target = UUID.randomUUID();
+  }
+
+  @Test
+  void deserialize_shouldReadEveryField() throws IOException {
+    RequestTransfer request = read("{\"amount\": 12.5, \"target\": \"" + target
+        + "\", \"source\": \"" + source.toString().toUpperCase() + "\"}");
+
+    assertEquals(source, request.getSourceAccountId());
+    assertEquals(target, request.getTargetAccountId());
+    assertEquals(12.5, request.getAmount());
+  }
+
+  @Test
+  void deserialize_missingAndTextualValues_shouldBeCoerced() throws IOException {
+    RequestTransfer request = read("{\"source\": null, \"amount\": \"7.25\"}");
+
+    assertNull(request.getSourceAccountId());
+    assertNull(request.getTargetAccountId());
+    assertEquals(7.25, request.getAmount());
+  }
+
+  @Test
+  void deserialize_invalidInput_shouldFailAsJackson() {
+    assertThrows(InvalidFormatException.class,
+        () -> read("{\"source\": \"" + source.toString().replace('-', 'x') + "\"}"));
+    assertThrows(InvalidFormatException.class, () -> read("{\"source\": \"1-2-3-4-5\"}"));
+    assertThrows(InvalidFormatException.class, () -> read("{\"amount\": \"ten\"}"));
+    assertThrows(UnrecognizedPropertyException.class, () -> read("{\"from\": \"x\"}"));
+    assertThrows(MismatchedInputException.class, () -> read("[]"));
+    assertThrows(MismatchedInputException.class, () -> read(""));
+  }
+
+  private RequestTransfer read(String json) throws IOException {
+    return reader.readValue(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,63 @@
+package com.github.r0kas.model.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.r0kas.model.data.Account;
+import com.github.r0kas.model.data.AccountStorage;
+import com.github.r0kas.model.data.HolderType;
+import com.github.r0kas.model.data.MemoryDataStore;
+import com.github.r0kas.model.data.User;
+import java.util.Currency;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ResponseModuleTest {
+
+  private ObjectMapper annotated;
+  private ObjectMapper streaming;
+  private User user;
+  private Account account;
+
+  @BeforeEach
+  void init() {
+    annotated = new ObjectMapper();
+    streaming = new ObjectMapper().registerModule(new ResponseModule());
+    user = new User("John \"Johnny\" Doe", "Gedimino pr. 1", "LT", HolderType.BUSINESS);
+    account = new Account(user.id(), Currency.getInstance("JPY"));
+    account.setMinorBalance(1_234);
+    MemoryDataStore store = new MemoryDataStore();
+    store.setUser(user);
+    store.linkOwnedAccount(user.id(), account.id());
+    store.linkOwnedAccount(user.id(), UUID.randomUUID());
+  }
+
+  @Test
+  void account_shouldMatchAnnotatedSerialization() throws JsonProcessingException {
+    assertSameJson(new Response(UUID.randomUUID(), "OK", account));
+    assertSameJson(new Response(UUID.randomUUID(), "OK",
+        new MemoryDataStore(AccountStorage.OFF_HEAP).setAccount(account)));
+  }
+
+  @Test
+  void user_shouldMatchAnnotatedSerialization() throws JsonProcessingException {
+    assertSameJson(new Response(UUID.randomUUID(), "Created", user));
+    assertSameJson(new Response(UUID.randomUUID(), "OK",
+        new User(null, null, null, null)));
+  }
+
+  @Test
+  void messageAndNullFields_shouldMatchAnnotatedSerialization() throws JsonProcessingException {
+    assertSameJson(new Response(UUID.randomUUID(), "Not Found", "no account é \n"));
+    assertSameJson(new Response(UUID.randomUUID(), "OK", null));
+    assertSameJson(new Response((String) null, null, null));
+  }
+
+  private void assertSameJson(Response response) throws JsonProcessingException {
+    assertEquals(annotated.writeValueAsString(response), streaming.writeValueAsString(response));
+    assertEquals(annotated.writerWithDefaultPrettyPrinter().writeValueAsString(response),
+        streaming.writerWithDefaultPrettyPrinter().writeValueAsString(response));
+  }
+}
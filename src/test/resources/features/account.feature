@@ -98,6 +98,24 @@ Feature: Account related endpoints
     And user receives response with 409
     And response message contains "cannot complete. Incompatible currency"
 
+  Scenario: Deposit repeated with idempotency key is applied once
+    Given account is created with "EUR" currency
+    And user saves received accountID_0
+    Then user has deposit-withdraw request with saved accountID_0 and 25.5 and "EUR"
+    And user sends POST request to /account/deposit endpoint with idempotency key "deposit-once"
+    And user receives response with 200
+    And response message contains "deposit successful to account with id"
+    And user sends POST request to /account/deposit endpoint with idempotency key "deposit-once"
+    And user receives response with 200
+    And response is replayed
+    And response message contains "deposit successful to account with id"
+    Then user has deposit-withdraw request with saved accountID_0 and 30.0 and "EUR"
+    And user sends POST request to /account/deposit endpoint with idempotency key "deposit-once"
+    And user receives response with 422
+    And response message contains "idempotency key was already used with another request body"
+    Then user sends GET request to /account with accountID_0
+    And response account balance is 25.5
+
   Scenario: Withdraw fails with insufficient balance
     Given account is created with "SEK" currency
     And user saves received accountID_0
@@ -181,3 +199,55 @@ Feature: Account related endpoints
     And user sends POST request to /account/transfer endpoint
     And user receives response with 404
     And response message contains "no account found with id"
+
+  Scenario: Metrics expose requests by route and status
+    Given user has random ID
+    Then user sends GET request to /account with ID
+    And user receives response with 404
+    And response message contains "no account found with id"
+    And endpoint /metrics returns 200 in next 5 seconds
+    And response body contains 'transferful_requests_total{method="GET",route="/account/:id",status="404"}'
+
+  Scenario: Accounts are exported as newline delimited JSON
+    Given account is created with "EUR" currency
+    And user saves received accountID_0
+    Then user sends GET request to /export/accounts
+    And user receives response with 200
+    And response lines contain entity with accountID_0
+
+  Scenario: Accounts are imported from newline delimited JSON
+    Given user has account request with "Eve", "Vilnius st", "LT", "Business"
+    And user sends POST request to /user endpoint
+    And user saves received ID
+    And user has import request with lines:
+      """
+      {"holderId": "<ID>", "currency": "EUR"}
+      {"holderId": "00000000-0000-0000-0000-000000000001", "currency": "EUR"}
+      {"holderId": "<ID>", "currency": "ZZZ"}
+      {"holderId": "<ID>", "currency": "USD"}
+      {"holderId": broken
+      {"holderId": "<ID>", "currency": "EUR"}
+      """
+    When user sends POST request to /import/accounts endpoint
+    Then user receives response with 200
+    And import results have 5 lines
+    And import result of line 1 has created ID
+    And import result of line 2 has error "no user found with id"
+    And import result of line 3 has error "ZZZ"
+    And import result of line 4 has created ID
+    And import result of line 5 has error "Unrecognized token"
+
+  Scenario: Balance totals per currency match scanned accounts
+    Given account is created with "CZK" currency
+    And user saves received accountID_0
+    Then user has deposit-withdraw request with saved accountID_0 and 12.5 and "CZK"
+    And user sends POST request to /account/deposit endpoint
+    And response message contains "deposit successful to account with id"
+    Then user sends GET request to /stats/balances?verify=true
+    And user receives response with 200
+    And response body contains "\"consistent\":true"
+
+  Scenario: Balance totals reject invalid verification flag
+    Given user sends GET request to /stats/balances?verify=yes
+    Then user receives response with 400
+    And response message contains "verify must be true or false"
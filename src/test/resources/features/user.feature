@@ -47,6 +47,18 @@ Feature: User related endpoints
     And user receives response with 404
     And response message contains "no user found with id"
 
+  Scenario: Response carries generated request id
+    Given user has random ID
+    Then user sends GET request to /user with ID
+    And user receives response with 404
+    And response request id is generated
+
+  Scenario: Response carries request id provided by client
+    Given user has random ID
+    Then user sends GET request to /user with ID and request id "client-42"
+    And user receives response with 404
+    And response request id is "client-42"
+
   Scenario: Delete user with linked account fails
     Given user has account request with "John", "Vilnius st.", "LT", "Personal"
     And user sends POST request to /user endpoint
@@ -59,6 +71,23 @@ Feature: User related endpoints
     And user receives response with 409
     And response message contains "cannot delete. Resource has linked objects"
 
+  Scenario: User accounts are returned with balances
+    Given account is created with "EUR" currency
+    And user saves received accountID_0
+    Then user has deposit-withdraw request with saved accountID_0 and 25.5 and "EUR"
+    And user sends POST request to /account/deposit endpoint
+    And user receives response with 200
+    And response message contains "deposit successful to account with id"
+    Then user sends GET request to /user with ID and suffix /accounts
+    And user receives response with 200
+    And response accounts contain accountID_0 with balance 25.5
+
+  Scenario: Accounts of non existing user
+    Given user has random ID
+    Then user sends GET request to /user with ID and suffix /accounts
+    And user receives response with 404
+    And response message contains "no user found with id"
+
   Scenario: Delete existing user
     Given user has account request with "John", "Vilnius st.", "LT", "Personal"
     And user sends POST request to /user endpoint
@@ -108,3 +137,42 @@ Feature: User related endpoints
     Then user sends PATCH request to /user with ID
     And user receives response with 404
     And response message contains "no user found with id"
+
+  Scenario: Users are exported as newline delimited JSON
+    Given user has account request with "Eve", "Vilnius st", "LT", "Business"
+    And user sends POST request to /user endpoint
+    And user saves received ID
+    Then user sends GET request to /export/users
+    And user receives response with 200
+    And response lines contain entity with ID
+
+  Scenario: Users are listed by country and type
+    Given user has account request with "Eve", "Reykjavik st", "IS", "Business"
+    And user sends POST request to /user endpoint
+    And user saves received ID
+    Then user sends GET request to /users?country=IS&type=Business
+    And user receives response with 200
+    And response users contain entity with ID
+
+  Scenario: Listing users fails with invalid type
+    Then user sends GET request to /users?type=Partner
+    And user receives response with 400
+    And response message contains "Partner is not a valid user type"
+
+  Scenario: Users are imported from newline delimited JSON
+    Given user has import request with lines:
+      """
+      {"name": "Eve", "address": "Vilnius st", "country": "LT", "type": "Business"}
+      {"name": "", "address": "Vilnius st", "country": "LT", "type": "Personal"}
+      {"name": "Bob", "address": "Vilnius st", "country": "XX", "type": "Personal"}
+      {"name": "Ann", "address": "Vilnius st", "country": "LT", "type": "Unknown"}
+      {"name": "Tom", "address": "Kaunas st", "country": "DE", "type": "Personal"}
+      """
+    When user sends POST request to /import/users endpoint
+    Then user receives response with 200
+    And import results have 5 lines
+    And import result of line 1 has created ID
+    And import result of line 2 has error "provided arguments must hold value"
+    And import result of line 3 has error "XX is not a valid country code"
+    And import result of line 4 has error "Unknown"
+    And import result of line 5 has created ID